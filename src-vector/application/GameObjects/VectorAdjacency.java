@@ -0,0 +1,49 @@
+package application.GameObjects;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API version of AdjacencyPlane.sum. It is in its own source folder (src-vector), which is compiled
+ * only with --add-modules jdk.incubator.vector, so the sources in src build without the incubator module.
+ * AdjacencyPlane loads this class by reflection when it was compiled and the module is available; otherwise
+ * the scalar sum is used.
+ */
+final class VectorAdjacency implements AdjacencyPlane.PlaneSum {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    VectorAdjacency() {
+    }
+
+    /**
+     * Sums the 8 shifted planes, SPECIES.length() tiles at a time. The last tiles of every row that don't
+     * fill a vector are summed by the scalar loop.
+     * @param plane the expanded mines (see AdjacencyPlane.expand)
+     * @param boardsize the size of the board
+     * @param numbers the numbers plane
+     */
+    @Override
+    public void sum(byte[] plane, int boardsize, byte[] numbers) {
+        int width = boardsize + 2;
+        int bound = SPECIES.loopBound(boardsize);
+        for(int row = 0, up = 0, out = 0; row < boardsize; row++, up += width, out += boardsize) {
+            int middle = up + width;
+            int down = middle + width;
+            for(int col = 0; col < bound; col += SPECIES.length()) {
+                ByteVector.fromArray(SPECIES, plane, up + col)
+                          .add(ByteVector.fromArray(SPECIES, plane, up + col + 1))
+                          .add(ByteVector.fromArray(SPECIES, plane, up + col + 2))
+                          .add(ByteVector.fromArray(SPECIES, plane, middle + col))
+                          .add(ByteVector.fromArray(SPECIES, plane, middle + col + 2))
+                          .add(ByteVector.fromArray(SPECIES, plane, down + col))
+                          .add(ByteVector.fromArray(SPECIES, plane, down + col + 1))
+                          .add(ByteVector.fromArray(SPECIES, plane, down + col + 2))
+                          .intoArray(numbers, out + col);
+            }
+        }
+        if(bound < boardsize) {
+            AdjacencyPlane.sum(plane, boardsize, numbers, 0, bound);
+        }
+    }
+}
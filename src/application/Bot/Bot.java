@@ -0,0 +1,108 @@
+package application.Bot;
+
+import java.util.Random;
+
+import application.GameObjects.BoardGenerator;
+import application.GameObjects.GameEngine;
+import application.ReadScenario.GameDescription;
+import application.Solver.BoardView;
+
+/**
+ * This class plays games with a strategy on a headless game (see GameEngine.headless: small boards are played
+ * on a BitboardGame).
+ * As in the GUI, the first left click is never a mine: if it is, the board is generated again (with the next seed
+ * of the game) until it isn't. Everything depends only on the game's seed, so all the strategies that are given
+ * the same seed play on the same board.
+ * After the first attempt, the strategy can mark tiles before every reveal to try the supermine rule (see
+ * Strategy.nextProbe); a mark doesn't count as an attempt.
+ */
+public class Bot {
+
+    private static final long RANDOM_SALT = 0x9E3779B97F4A7C15L;
+
+    private final Strategy strategy;
+
+    /**
+     * Constructs a new bot.
+     * @param strategy the strategy of the bot
+     */
+    public Bot(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Plays a game until it is won or lost.
+     * @param description the scenario of the game
+     * @param seed the seed of the game
+     * @return the finished game
+     */
+    public GameEngine play(GameDescription description, long seed) {
+        // The strategy's random generator must not follow the board's: the generator places the supermine with
+        // the first numbers of the seed, so a first guess with the same numbers would always be in its row
+        Random random = new Random(Long.rotateLeft(seed, 32) ^ RANDOM_SALT);
+        strategy.reset();
+        GameEngine game = newGame(description, seed);
+        int boardsize = game.getBoardsize();
+        BoardView view = new BoardView(boardsize, description.getNumMines(), description.getHasSupermine());
+
+        long boardSeed = seed;
+        while(!game.getGameOver()) {
+
+            // Try the supermine rule (after the first attempt, which may still change the board)
+            if(game.getAttempts() > 0) {
+                probe(game, view, random);
+                if(game.getGameOver()) {
+                    break;
+                }
+            }
+
+            int cell = strategy.nextMove(view, random);
+            if(cell < 0) {
+                break;
+            }
+            int row = cell / boardsize;
+            int col = cell % boardsize;
+
+            // If the first attempt is a mine or a supermine, change the board until it isn't
+            while(game.getAttempts() == 0 && game.isMine(row, col)) {
+                boardSeed = new Random(boardSeed).nextLong();
+                game = newGame(description, boardSeed);
+            }
+            game.AddRevealClick(row, col);
+            view.update(game);
+        }
+        return game;
+    }
+
+    /**
+     * Marks the tiles that the strategy chooses to try the supermine rule. A tile that is not the supermine is
+     * unmarked at once; the supermine reveals its row and column.
+     */
+    private void probe(GameEngine game, BoardView view, Random random) {
+        int boardsize = game.getBoardsize();
+        for(int cell = strategy.nextProbe(view, random); cell >= 0 && !game.getGameOver(); cell = strategy.nextProbe(view, random)) {
+            int row = cell / boardsize;
+            int col = cell % boardsize;
+            game.flagTile(row, col);
+            if(game.isFlagged(row, col)) {
+                game.flagTile(row, col);
+            }
+            view.setProbed(cell, game.isRevealed(row, col));
+            view.update(game);
+        }
+    }
+
+    private static GameEngine newGame(GameDescription description, long seed) {
+        BoardGenerator boardGenerator = new BoardGenerator(description.getDifficultyLevel(), description.getNumMines(),
+                                                           description.getHasSupermine(), seed);
+        return GameEngine.headless(boardGenerator.GenerateLayout(), description.getNumMines(), description.getMaxTime());
+    }
+
+    /**
+     * Returns the strategy of the bot.
+     * @return the strategy
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+}
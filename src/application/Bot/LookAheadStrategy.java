@@ -0,0 +1,57 @@
+package application.Bot;
+
+import java.util.Random;
+
+import application.Solver.Analysis;
+import application.Solver.BoardView;
+
+/**
+ * This strategy is the probabilistic strategy with a one-move look-ahead for guesses. Among the tiles that are
+ * (almost) as safe as the safest one, it chooses the tile that is most likely to make progress: a tile whose unknown
+ * neighbours are also safe is likely to be a 0 (opening an area) or a small number that leads to new deductions.
+ */
+public class LookAheadStrategy extends ProbabilityStrategy {
+
+    private static final double TOLERANCE = 0.02;  // How much less safe than the safest tile a candidate can be
+
+    private final int[] neighbours = new int[8];
+
+    @Override
+    public String getName() {
+        return "Look-ahead";
+    }
+
+    @Override
+    protected int choose(BoardView view, Analysis analysis, Random random) {
+        int safest = analysis.getSafestCell();
+        if(safest < 0 || analysis.getProbability(safest) == 0) {
+            return safest;
+        }
+        double limit = analysis.getProbability(safest) + TOLERANCE;
+
+        int best = safest;
+        double bestScore = -1;
+        for(int cell = 0; cell < view.getNumCells(); cell++) {
+            double probability = analysis.getProbability(cell);
+            if(Double.isNaN(probability) || probability > limit) {
+                continue;
+            }
+
+            // The chance to survive times the (approximate) chance that all the unknown neighbours are safe
+            double progress = 1;
+            int count = view.getNeighbours(cell, neighbours);
+            for(int i = 0; i < count; i++) {
+                double neighbour = analysis.getProbability(neighbours[i]);
+                if(!Double.isNaN(neighbour)) {
+                    progress *= 1 - neighbour;
+                }
+            }
+            double score = (1 - probability) * (1 + progress);
+            if(score > bestScore) {
+                bestScore = score;
+                best = cell;
+            }
+        }
+        return best;
+    }
+}
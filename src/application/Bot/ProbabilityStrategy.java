@@ -0,0 +1,42 @@
+package application.Bot;
+
+import java.util.Random;
+
+import application.Solver.Analysis;
+import application.Solver.BoardView;
+import application.Solver.Solver;
+
+/**
+ * This strategy reveals the tile with the lowest probability of a mine, as computed by the Solver.
+ * The simple rules are much faster than a full analysis, so the Solver only runs when they find no safe tile.
+ * The analysis has a budget of enumeration steps, not of time, so the same board is always played the same way,
+ * whatever the machine and its load (see Solver.analyzeSteps).
+ */
+public class ProbabilityStrategy extends RuleStrategy {
+
+    // Enough for every component of the level 2 boards (up to 60 mines) to be enumerated completely
+    public static final long STEP_BUDGET = 1_000_000L;
+
+    protected final Solver solver = new Solver();
+
+    @Override
+    public String getName() {
+        return "Probabilistic";
+    }
+
+    @Override
+    protected int guess(BoardView view, byte[] deduced, Random random) {
+        return choose(view, solver.analyzeSteps(view, STEP_BUDGET), random);
+    }
+
+    /**
+     * Chooses a tile from the analysis of the board.
+     * @param view the board view
+     * @param analysis the analysis of the board
+     * @param random the random generator
+     * @return the index of the tile
+     */
+    protected int choose(BoardView view, Analysis analysis, Random random) {
+        return analysis.getSafestCell();
+    }
+}
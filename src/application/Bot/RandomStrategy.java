@@ -0,0 +1,47 @@
+package application.Bot;
+
+import java.util.Random;
+
+import application.Solver.BoardView;
+
+/**
+ * This strategy reveals a random unknown tile. It is the baseline of the tournaments.
+ */
+public class RandomStrategy implements Strategy {
+
+    @Override
+    public String getName() {
+        return "Random";
+    }
+
+    @Override
+    public int nextMove(BoardView view, Random random) {
+        return randomUnknown(view, null, random);
+    }
+
+    /**
+     * Returns a random unknown tile that is not a deduced mine.
+     * @param view the board view
+     * @param deduced the deduced tiles (see Solver.deduce) or null
+     * @param random the random generator
+     * @return the index of the tile or -1 if there is none
+     */
+    static int randomUnknown(BoardView view, byte[] deduced, Random random) {
+        int count = 0;
+        for(int cell = 0; cell < view.getNumCells(); cell++) {
+            if(view.get(cell) == BoardView.UNKNOWN && (deduced == null || deduced[cell] == 0)) {
+                count++;
+            }
+        }
+        if(count == 0) {
+            return -1;
+        }
+        int chosen = random.nextInt(count);
+        for(int cell = 0; cell < view.getNumCells(); cell++) {
+            if(view.get(cell) == BoardView.UNKNOWN && (deduced == null || deduced[cell] == 0) && chosen-- == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
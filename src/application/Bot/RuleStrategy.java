@@ -0,0 +1,72 @@
+package application.Bot;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import application.Solver.BoardView;
+import application.Solver.Solver;
+
+/**
+ * This strategy reveals the tiles that the simple rules prove safe (see Solver.deduce).
+ * If there are none, it guesses a random tile that is not a deduced mine.
+ *
+ * A safe tile stays safe, so all the safe tiles of a deduction are queued and revealed before deducing again.
+ */
+public class RuleStrategy implements Strategy {
+
+    private final int[] neighbours = new int[8];
+    private byte[] deduced = new byte[0];
+    private int[] pending = new int[0];     // Safe tiles that are not revealed yet
+    private int numPending;
+
+    @Override
+    public String getName() {
+        return "Rule-based";
+    }
+
+    @Override
+    public void reset() {
+        numPending = 0;
+    }
+
+    @Override
+    public int nextMove(BoardView view, Random random) {
+
+        // Reveal the queued safe tiles (some may have been opened by an earlier move)
+        while(numPending > 0) {
+            int cell = pending[--numPending];
+            if(view.get(cell) == BoardView.UNKNOWN) {
+                return cell;
+            }
+        }
+
+        if(deduced.length != view.getNumCells()) {
+            deduced = new byte[view.getNumCells()];
+            pending = new int[view.getNumCells()];
+        }
+        else {
+            Arrays.fill(deduced, (byte) 0);
+        }
+        Solver.deduce(view, deduced, neighbours);
+        for(int cell = deduced.length - 1; cell >= 0; cell--) {
+            if(deduced[cell] == Solver.SAFE) {
+                pending[numPending++] = cell;
+            }
+        }
+        if(numPending > 0) {
+            return pending[--numPending];
+        }
+        return guess(view, deduced, random);
+    }
+
+    /**
+     * Chooses a tile when the simple rules found no safe tile.
+     * @param view the board view
+     * @param deduced the deduced tiles (see Solver.deduce)
+     * @param random the random generator
+     * @return the index of the tile
+     */
+    protected int guess(BoardView view, byte[] deduced, Random random) {
+        return RandomStrategy.randomUnknown(view, deduced, random);
+    }
+}
@@ -0,0 +1,354 @@
+package application.Bot;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import application.ReadScenario.GameDescription;
+
+/**
+ * This class searches the scenarios for the ones where a strategy wins at a target rate, so a designer can give
+ * a scenario the difficulty they want without trying its parameters by hand.
+ *
+ * Every valid scenario (see DescriptionReader: 9-11 mines on level 1, 35-45 mines with or without a supermine on
+ * level 2) is a candidate. The candidates are raced: every round plays a batch of BATCH_GAMES games (the same seeds
+ * for every candidate, in parallel, see Tournament) on the candidates that are still sampled, and the 95% (Wilson)
+ * confidence interval of every win rate is updated. Then:
+ *      -> a candidate that is surely farther from the target than the best ones (its closest possible distance is
+ *         larger than the farthest possible distance of the last of the best candidates) is dropped
+ *      -> a candidate stops being sampled when its interval is narrower than the precision, or after maxGames games
+ * The search ends when no candidate is sampled, and the best candidates are those closest to the target.
+ *
+ * The headless games have no clock, so the maximum time doesn't change the win rate of a bot: the scenarios get the
+ * middle of the valid range of their level. A bot doesn't mark tiles, so to a bot the supermine is a mine, and the
+ * scenarios with and without it play the same boards and get the same win rate (the designer chooses between them).
+ *
+ * Usage: java application.Bot.ScenarioTuner target [strategy] [candidates] [max games] [ID prefix]
+ *      e.g. "java application.Bot.ScenarioTuner 40 probabilistic 3" writes medialab/SCENARIO-TUNED-1.txt to -3.txt
+ */
+public class ScenarioTuner {
+
+    public static final int BATCH_GAMES = 256;
+    public static final double Z = 1.96;                // 95% confidence
+    public static final double DEFAULT_PRECISION = 2;   // Win rate points (half the width of the interval)
+
+    // The strategies, by name
+    private static final List<Supplier<Strategy>> STRATEGIES = Arrays.asList(RandomStrategy::new, RuleStrategy::new,
+                                                                             ProbabilityStrategy::new, LookAheadStrategy::new);
+
+    /**
+     * target           -> The target win rate (0 to 100)
+     * strategy         -> The strategy that plays the games
+     * numBest          -> The number of best candidates that are kept
+     * maxGames         -> The maximum number of games of a candidate
+     * precision        -> A candidate is sampled until half the width of its interval is at most this (in points)
+     * firstSeed        -> The seed of the first game
+     * pool             -> The pool that runs the games
+     */
+
+    private final double target;
+    private final Supplier<Strategy> strategy;
+    private final int numBest;
+    private final int maxGames;
+    private final double precision;
+    private final long firstSeed;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new tuner.
+     * @param target the target win rate (0 to 100)
+     * @param strategy creates the strategy that plays the games (a new object for every chunk of games)
+     * @param numBest the number of best candidates that are kept
+     * @param maxGames the maximum number of games of a candidate
+     * @param precision the precision of the win rates (half the width of their 95% intervals, in points)
+     * @param firstSeed the seed of the first game
+     * @param pool the pool that runs the games
+     */
+    public ScenarioTuner(double target, Supplier<Strategy> strategy, int numBest, int maxGames, double precision,
+                         long firstSeed, ForkJoinPool pool) {
+        if(target < 0 || target > 100) {
+            throw new IllegalArgumentException("The target win rate must be between 0 and 100");
+        }
+        this.target = target;
+        this.strategy = strategy;
+        this.numBest = Math.max(numBest, 1);
+        this.maxGames = maxGames;
+        this.precision = precision;
+        this.firstSeed = firstSeed;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns every valid scenario.
+     * @return the scenarios of level 1 and then those of level 2
+     */
+    public static List<GameDescription> parameterSpace() {
+        List<GameDescription> space = new ArrayList<>();
+        for(int numMines = 9; numMines <= 11; numMines++) {
+            space.add(description(1, numMines, 150, false));
+        }
+        for(int numMines = 35; numMines <= 45; numMines++) {
+            space.add(description(2, numMines, 300, false));
+            space.add(description(2, numMines, 300, true));
+        }
+        return space;
+    }
+
+    private static GameDescription description(int difficultyLevel, int numMines, int maxTime, boolean hasSupermine) {
+        GameDescription description = new GameDescription();
+        description.setDifficultyLevel(difficultyLevel);
+        description.setNumMines(numMines);
+        description.setMaxTime(maxTime);
+        description.setHasSupermine(hasSupermine);
+        return description;
+    }
+
+    /**
+     * Races the candidates (see the class comment).
+     * @param candidates the scenarios to search (e.g. parameterSpace())
+     * @return the best candidates, the closest to the target first
+     */
+    public List<Candidate> tune(List<GameDescription> candidates) {
+        List<Candidate> live = new ArrayList<>();
+        for(GameDescription description : candidates) {
+            live.add(new Candidate(description));
+        }
+
+        for(int batch = 0; ; batch++) {
+            List<Candidate> sampled = new ArrayList<>();
+            for(Candidate candidate : live) {
+                if(candidate.games < maxGames && candidate.getHalfWidth() > precision) {
+                    sampled.add(candidate);
+                }
+            }
+            if(sampled.isEmpty()) {
+                break;
+            }
+
+            // Every candidate plays the same boards of this batch
+            Tournament tournament = new Tournament(BATCH_GAMES, firstSeed + (long) batch * BATCH_GAMES, pool);
+            for(int i = 0; i < sampled.size(); i++) {
+                tournament.addScenario(Integer.toString(i), sampled.get(i).description);
+            }
+            tournament.addStrategy(strategy);
+            for(Standing standing : tournament.run()) {
+                Candidate candidate = sampled.get(Integer.parseInt(standing.getScenarioId()));
+                candidate.games += standing.getGames();
+                candidate.wins += standing.getWins();
+            }
+
+            // Drop the candidates that can't be among the best
+            if(live.size() > numBest) {
+                double[] farthest = live.stream().mapToDouble(c -> c.getFarthestDistance(target)).sorted().toArray();
+                double limit = farthest[numBest - 1];
+                live.removeIf(c -> c.getClosestDistance(target) > limit);
+            }
+        }
+
+        live.sort(Comparator.comparingDouble((Candidate c) -> Math.abs(c.getWinRate() - target))
+                            .thenComparingDouble(Candidate::getHalfWidth));
+        return new ArrayList<>(live.subList(0, Math.min(numBest, live.size())));
+    }
+
+    /**
+     * Writes candidates as scenario files (in the format of the Create dialog), with the first free IDs of the form
+     * prefix-1, prefix-2, ... An existing scenario (e.g. one created by hand with the same ID) is never overwritten:
+     * its ID is skipped.
+     * @param best the candidates
+     * @param directory the directory of the scenarios (e.g. medialab)
+     * @param prefix the prefix of the IDs
+     * @return the IDs of the scenarios
+     * @throws IOException if an I/O error occurs
+     */
+    public static List<String> writeScenarios(List<Candidate> best, Path directory, String prefix) throws IOException {
+        Files.createDirectories(directory);
+        List<String> ids = new ArrayList<>();
+        int number = 1;
+        for(Candidate candidate : best) {
+            GameDescription description = candidate.description;
+            byte[] scenario = (description.getDifficultyLevel() + "\n" + description.getNumMines() + "\n"
+                               + description.getMaxTime() + "\n" + (description.getHasSupermine() ? 1 : 0))
+                              .getBytes(StandardCharsets.UTF_8);
+            while(true) {
+                String id = prefix + "-" + number++;
+                try {
+                    // CREATE_NEW fails if the file exists, even if it was created after it was checked
+                    Files.write(directory.resolve("SCENARIO-" + id + ".txt"), scenario, StandardOpenOption.CREATE_NEW,
+                                StandardOpenOption.WRITE);
+                    ids.add(id);
+                    break;
+                } catch (FileAlreadyExistsException e) {
+                    // The ID is taken: try the next one
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the strategy with a name (ignoring case and anything but letters, and matching a prefix),
+     * e.g. "rule" for the rule-based strategy.
+     * @param name the name of the strategy
+     * @return the strategy or null if there is none
+     */
+    public static Supplier<Strategy> findStrategy(String name) {
+        String wanted = name.replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT);
+        for(Supplier<Strategy> strategy : STRATEGIES) {
+            if(!wanted.isEmpty() && strategy.get().getName().replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT).startsWith(wanted)) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prints candidates as a table.
+     * @param best the candidates
+     * @param ids the IDs of their scenarios
+     * @param out the stream the table is printed to
+     */
+    public static void printTable(List<Candidate> best, List<String> ids, PrintStream out) {
+        out.printf("%-12s %-5s %-5s %-9s %8s %9s %17s%n", "Scenario", "Level", "Mines", "Supermine", "Games", "Win %", "95% interval");
+        for(int i = 0; i < best.size(); i++) {
+            Candidate candidate = best.get(i);
+            GameDescription description = candidate.description;
+            out.printf(Locale.ROOT, "%-12s %-5d %-5d %-9s %8d %9.2f %8.2f - %6.2f%n", ids.get(i), description.getDifficultyLevel(),
+                       description.getNumMines(), description.getHasSupermine() ? "yes" : "no", candidate.games,
+                       candidate.getWinRate(), candidate.getLow(), candidate.getHigh());
+        }
+    }
+
+    /**
+     * Tunes the scenarios for a target win rate and writes the best ones to the medialab folder.
+     * @param args the target win rate, the strategy (default probabilistic), the number of scenarios (default 3),
+     *             the maximum number of games of a candidate (default 10000) and the prefix of the IDs (default TUNED)
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: java application.Bot.ScenarioTuner target [strategy] [candidates] [max games] [ID prefix]");
+            System.exit(1);
+        }
+        double target = Double.parseDouble(args[0]);
+        Supplier<Strategy> strategy = findStrategy(args.length > 1 ? args[1] : "probabilistic");
+        if(strategy == null) {
+            System.err.println("Unknown strategy: " + args[1]);
+            System.exit(1);
+        }
+        int numBest = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int maxGames = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        String prefix = args.length > 4 ? args[4] : "TUNED";
+
+        long start = System.nanoTime();
+        ScenarioTuner tuner = new ScenarioTuner(target, strategy, numBest, maxGames, DEFAULT_PRECISION, 0, ForkJoinPool.commonPool());
+        List<Candidate> best = tuner.tune(parameterSpace());
+        Path directory = Paths.get("medialab");
+        List<String> ids = writeScenarios(best, directory, prefix);
+        System.out.printf(Locale.ROOT, "Target win rate %.2f%% (%s), tuned in %.1f s:%n", target, strategy.get().getName(),
+                          (System.nanoTime() - start) / 1e9);
+        printTable(best, ids, System.out);
+        for(String id : ids) {
+            System.out.println("Wrote " + directory.resolve("SCENARIO-" + id + ".txt"));
+        }
+    }
+
+    /**
+     * A scenario of the search and the results of the strategy in it.
+     */
+    public static class Candidate {
+
+        private final GameDescription description;
+        private long games;
+        private long wins;
+
+        Candidate(GameDescription description) {
+            this.description = description;
+        }
+
+        /**
+         * Returns the scenario.
+         * @return the scenario
+         */
+        public GameDescription getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns the number of games played.
+         * @return the number of games
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Returns the percentage of the games that were won.
+         * @return the win rate (0 to 100)
+         */
+        public double getWinRate() {
+            return games == 0 ? 0 : 100.0 * wins / games;
+        }
+
+        /**
+         * Returns the lower bound of the 95% Wilson interval of the win rate.
+         * @return the lower bound (0 to 100)
+         */
+        public double getLow() {
+            return getCenter() - getHalfWidth();
+        }
+
+        /**
+         * Returns the upper bound of the 95% Wilson interval of the win rate.
+         * @return the upper bound (0 to 100)
+         */
+        public double getHigh() {
+            return getCenter() + getHalfWidth();
+        }
+
+        /**
+         * Returns half the width of the 95% Wilson interval of the win rate.
+         * @return the half width in points (100 before the first game)
+         */
+        public double getHalfWidth() {
+            if(games == 0) {
+                return 100;
+            }
+            double p = (double) wins / games;
+            double z2 = Z * Z;
+            return 100 * Z * Math.sqrt(p * (1 - p) / games + z2 / (4.0 * games * games)) / (1 + z2 / games);
+        }
+
+        private double getCenter() {
+            if(games == 0) {
+                return 50;
+            }
+            double z2 = Z * Z;
+            return 100 * ((double) wins / games + z2 / (2.0 * games)) / (1 + z2 / games);
+        }
+
+        /**
+         * Returns the closest distance from a target to the interval of the win rate (0 if the target is in it).
+         */
+        double getClosestDistance(double target) {
+            return Math.max(0, Math.max(getLow() - target, target - getHigh()));
+        }
+
+        /**
+         * Returns the farthest distance from a target to the interval of the win rate.
+         */
+        double getFarthestDistance(double target) {
+            return Math.max(Math.abs(getLow() - target), Math.abs(getHigh() - target));
+        }
+    }
+}
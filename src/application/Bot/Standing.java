@@ -0,0 +1,120 @@
+package application.Bot;
+
+/**
+ * This class holds the results of a strategy in a scenario of a tournament.
+ */
+public class Standing {
+
+    private final String scenarioId;
+    private final String strategyName;
+    private long games;
+    private long wins;
+    private long moves;
+    private long nanos;     // Total time of the games (summed over the threads)
+
+    /**
+     * Constructs an empty standing.
+     * @param scenarioId the ID of the scenario
+     * @param strategyName the name of the strategy
+     */
+    public Standing(String scenarioId, String strategyName) {
+        this.scenarioId = scenarioId;
+        this.strategyName = strategyName;
+    }
+
+    /**
+     * Adds the result of a game.
+     * @param won whether the game was won
+     * @param moves the number of moves of the game
+     */
+    void addGame(boolean won, int moves) {
+        this.games++;
+        this.wins += won ? 1 : 0;
+        this.moves += moves;
+    }
+
+    /**
+     * Adds the time spent on games.
+     * @param nanos the time in nanoseconds
+     */
+    void addTime(long nanos) {
+        this.nanos += nanos;
+    }
+
+    /**
+     * Adds the results of another standing of the same strategy and scenario.
+     * @param other the other standing
+     */
+    void merge(Standing other) {
+        this.games += other.games;
+        this.wins += other.wins;
+        this.moves += other.moves;
+        this.nanos += other.nanos;
+    }
+
+    /**
+     * Returns the percentage of the games that were won.
+     * @return the win rate (0 to 100)
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : 100.0 * wins / games;
+    }
+
+    /**
+     * Returns the average time of a game in microseconds.
+     * @return the time of a game in microseconds
+     */
+    public double getMicrosPerGame() {
+        return games == 0 ? 0 : nanos / 1000.0 / games;
+    }
+
+    /**
+     * Returns the number of moves per second of one thread.
+     * @return the moves per second
+     */
+    public double getMovesPerSecond() {
+        return nanos == 0 ? 0 : moves * 1e9 / nanos;
+    }
+
+    // Getters
+
+    /**
+     * Returns the ID of the scenario.
+     * @return the ID of the scenario
+     */
+    public String getScenarioId() {
+        return scenarioId;
+    }
+
+    /**
+     * Returns the name of the strategy.
+     * @return the name of the strategy
+     */
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    /**
+     * Returns the number of games played.
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games won.
+     * @return the number of wins
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Returns the total number of moves.
+     * @return the number of moves
+     */
+    public long getMoves() {
+        return moves;
+    }
+}
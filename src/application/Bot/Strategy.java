@@ -0,0 +1,44 @@
+package application.Bot;
+
+import java.util.Random;
+
+import application.Solver.BoardView;
+
+/**
+ * This interface is implemented by the strategies of the bots. A strategy only sees what a player sees (a BoardView)
+ * and chooses the next tile to reveal. A strategy object is used by one thread at a time, so it can keep state
+ * (e.g. a solver cache) between its moves and games.
+ */
+public interface Strategy {
+
+    /**
+     * Returns the name of the strategy.
+     * @return the name of the strategy
+     */
+    String getName();
+
+    /**
+     * Prepares the strategy for a new game.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Chooses the next tile to reveal.
+     * @param view the board as seen by the player
+     * @param random the random generator of the game (used to break ties and to guess)
+     * @return the index (row * boardsize + col) of an unknown tile
+     */
+    int nextMove(BoardView view, Random random);
+
+    /**
+     * Chooses a tile to mark before the next reveal, to try the supermine rule (see SupermineStrategy).
+     * If the tile is not the supermine, the bot unmarks it at once and records it in the view (BoardView.isProbed).
+     * @param view the board as seen by the player
+     * @param random the random generator of the game
+     * @return the index of an unknown tile or -1 to reveal a tile instead
+     */
+    default int nextProbe(BoardView view, Random random) {
+        return -1;
+    }
+}
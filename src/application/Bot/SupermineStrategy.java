@@ -0,0 +1,77 @@
+package application.Bot;
+
+import java.util.Random;
+
+import application.Solver.Analysis;
+import application.Solver.BoardView;
+import application.Solver.Solver;
+import application.Solver.SupermineAnalysis;
+
+/**
+ * This strategy adds the supermine rule to another strategy: while the rule can be used, it marks the tiles with
+ * the largest expected information gain (see SupermineAnalysis) before every reveal, up to a number of marks per
+ * game, and then reveals the tiles of the other strategy. With an unlimited number of marks, the rule always
+ * reveals the row and the column of the supermine.
+ */
+public class SupermineStrategy implements Strategy {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final Strategy strategy;
+    private final int maxProbes;
+    private final Solver solver = new Solver();
+    private int probes;
+    private int analyzedAttempts;
+    private int[] order = new int[0];   // The tiles to mark at analyzedAttempts attempts, from the best
+    private int next;                   // The next tile of the order
+
+    /**
+     * Constructs the strategy.
+     * @param strategy the strategy that chooses the tiles to reveal
+     * @param maxProbes the maximum number of marks per game (or UNLIMITED)
+     */
+    public SupermineStrategy(Strategy strategy, int maxProbes) {
+        this.strategy = strategy;
+        this.maxProbes = maxProbes;
+    }
+
+    @Override
+    public String getName() {
+        return strategy.getName() + " +" + (maxProbes == UNLIMITED ? "all" : Integer.toString(maxProbes)) + " marks";
+    }
+
+    @Override
+    public void reset() {
+        strategy.reset();
+        probes = 0;
+        analyzedAttempts = -1;
+    }
+
+    @Override
+    public int nextMove(BoardView view, Random random) {
+        return strategy.nextMove(view, random);
+    }
+
+    @Override
+    public int nextProbe(BoardView view, Random random) {
+        if(probes >= maxProbes || !view.getSupermineRuleOpen()) {
+            return -1;
+        }
+        // The order of the tiles only changes with a new attempt (see SupermineAnalysis.getProbes)
+        if(view.getAttempts() != analyzedAttempts) {
+            Analysis analysis = solver.analyzeSteps(view, ProbabilityStrategy.STEP_BUDGET);
+            order = SupermineAnalysis.of(view, analysis).getProbes();
+            next = 0;
+            analyzedAttempts = view.getAttempts();
+        }
+        while(next < order.length && (view.get(order[next]) != BoardView.UNKNOWN || view.isProbed(order[next]))) {
+            next++;
+        }
+        if(next == order.length) {
+            return -1;
+        }
+        int cell = order[next++];
+        probes++;
+        return cell;
+    }
+}
@@ -0,0 +1,73 @@
+package application.Bot;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import application.ReadScenario.GameDescription;
+
+/**
+ * This class measures how much the supermine rule changes the win rate of a strategy. It plays the same seeded
+ * level 2 boards with a supermine (35, 40 and 45 mines) with the strategy alone and with the strategy marking
+ * 1, 3 or an unlimited number of tiles to try the rule (see SupermineStrategy), and prints the standings and
+ * the change of every win rate.
+ *
+ * Usage: java application.Bot.SupermineTrial [games per scenario] [strategy] [first seed]
+ */
+public class SupermineTrial {
+
+    private static final int[] MINES = {35, 40, 45};
+    private static final int[] PROBES = {1, 3, SupermineStrategy.UNLIMITED};
+
+    /**
+     * Runs the trial.
+     * @param args the number of games per scenario (default 2000), the strategy (default rule-based) and the
+     *             first seed (default 0)
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Supplier<Strategy> strategy = ScenarioTuner.findStrategy(args.length > 1 ? args[1] : "rule");
+        if(strategy == null) {
+            System.err.println("Unknown strategy: " + args[1]);
+            System.exit(1);
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        Tournament tournament = new Tournament(games, seed, ForkJoinPool.commonPool());
+        for(int numMines : MINES) {
+            GameDescription description = new GameDescription();
+            description.setDifficultyLevel(2);
+            description.setNumMines(numMines);
+            description.setMaxTime(300);
+            description.setHasSupermine(true);
+            tournament.addScenario("L2-" + numMines + "S", description);
+        }
+        tournament.addStrategy(strategy);
+        for(int probes : PROBES) {
+            tournament.addStrategy(() -> new SupermineStrategy(strategy.get(), probes));
+        }
+
+        long start = System.nanoTime();
+        List<Standing> standings = tournament.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Tournament.printTable(standings, System.out);
+
+        // The change of the win rate of every variant, against the strategy alone in the same scenario
+        String baseName = strategy.get().getName();
+        System.out.println();
+        for(Standing standing : standings) {
+            if(standing.getStrategyName().equals(baseName)) {
+                continue;
+            }
+            for(Standing base : standings) {
+                if(base.getScenarioId().equals(standing.getScenarioId()) && base.getStrategyName().equals(baseName)) {
+                    System.out.printf(Locale.ROOT, "%-10s %-28s %+7.2f points%n", standing.getScenarioId(),
+                                      standing.getStrategyName(), standing.getWinRate() - base.getWinRate());
+                }
+            }
+        }
+        long total = (long) games * MINES.length * (PROBES.length + 1);
+        System.out.printf(Locale.ROOT, "%d games in %.1f s (%.0f games/s)%n", total, seconds, total / seconds);
+    }
+}
@@ -0,0 +1,202 @@
+package application.Bot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import application.GameObjects.GameEngine;
+import application.GameObjects.ScenarioReader;
+import application.ReadScenario.GameDescription;
+import application.ReadScenario.InvalidDescriptionException;
+import application.ReadScenario.InvalidValueException;
+
+/**
+ * This class pits strategies against each other. Every strategy plays the same games (seeds firstSeed to
+ * firstSeed + gamesPerScenario - 1) in every scenario, so the results only differ because of the strategies.
+ *
+ * The games are split into chunks of CHUNK_SIZE games that run in parallel on a ForkJoinPool (the games of every
+ * strategy in every scenario at the same time). Every chunk creates its own strategy objects (a strategy is not
+ * thread safe), so the strategies are registered with a Supplier.
+ *
+ * Usage: java application.Bot.Tournament [games per scenario] [first seed]
+ */
+public class Tournament {
+
+    public static final int CHUNK_SIZE = 64;
+
+    private final int gamesPerScenario;
+    private final long firstSeed;
+    private final ForkJoinPool pool;
+    private final Map<String, GameDescription> scenarios;
+    private final List<Supplier<Strategy>> strategies;
+
+    /**
+     * Constructs a new tournament without scenarios and strategies.
+     * @param gamesPerScenario the number of games of each strategy in each scenario
+     * @param firstSeed the seed of the first game
+     * @param pool the pool that runs the games
+     */
+    public Tournament(int gamesPerScenario, long firstSeed, ForkJoinPool pool) {
+        this.gamesPerScenario = gamesPerScenario;
+        this.firstSeed = firstSeed;
+        this.pool = pool;
+        this.scenarios = new LinkedHashMap<>();
+        this.strategies = new ArrayList<>();
+    }
+
+    /**
+     * Adds a scenario.
+     * @param id the ID of the scenario
+     * @param description the scenario
+     */
+    public void addScenario(String id, GameDescription description) {
+        scenarios.put(id, description);
+    }
+
+    /**
+     * Adds every valid scenario of the medialab folder. Invalid scenarios are skipped with a message.
+     */
+    public void addMedialabScenarios() {
+        File[] files = new File("medialab").listFiles((directory, name) -> name.startsWith("SCENARIO-") && name.endsWith(".txt"));
+        if(files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for(File file : files) {
+            String id = file.getName().substring("SCENARIO-".length(), file.getName().length() - ".txt".length());
+            try {
+                addScenario(id, new ScenarioReader().Read(id));
+            } catch (InvalidDescriptionException | InvalidValueException | IOException e) {
+                System.err.println("Skipping scenario " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds a strategy.
+     * @param strategy creates a new object of the strategy for every chunk of games
+     */
+    public void addStrategy(Supplier<Strategy> strategy) {
+        strategies.add(strategy);
+    }
+
+    /**
+     * Plays all the games.
+     * @return the standings, grouped by scenario and ranked by win rate (and speed for equal win rates)
+     */
+    public List<Standing> run() {
+        // Every strategy in every scenario is submitted at once, so small scenarios keep all the threads busy too
+        List<Games> games = new ArrayList<>();
+        for(Map.Entry<String, GameDescription> scenario : scenarios.entrySet()) {
+            for(Supplier<Strategy> strategy : strategies) {
+                Games task = new Games(scenario.getKey(), scenario.getValue(), strategy, 0, gamesPerScenario);
+                pool.execute(task);
+                games.add(task);
+            }
+        }
+
+        List<Standing> standings = new ArrayList<>();
+        for(int i = 0; i < games.size(); i += strategies.size()) {
+            List<Standing> ranking = new ArrayList<>();
+            for(Games task : games.subList(i, i + strategies.size())) {
+                ranking.add(task.join());
+            }
+            ranking.sort(Comparator.comparingDouble(Standing::getWinRate).reversed()
+                                   .thenComparingDouble(Standing::getMicrosPerGame));
+            standings.addAll(ranking);
+        }
+        return standings;
+    }
+
+    /**
+     * Prints the standings as a table.
+     * @param standings the standings (see run)
+     * @param out the stream the table is printed to
+     */
+    public static void printTable(List<Standing> standings, PrintStream out) {
+        out.printf("%-10s %-4s %-22s %10s %9s %12s %12s%n", "Scenario", "Rank", "Strategy", "Games", "Win %", "us/game", "moves/s");
+        String scenarioId = null;
+        int rank = 0;
+        for(Standing standing : standings) {
+            rank = standing.getScenarioId().equals(scenarioId) ? rank + 1 : 1;
+            scenarioId = standing.getScenarioId();
+            out.printf("%-10s %-4d %-22s %10d %9.2f %12.1f %12.0f%n", scenarioId, rank, standing.getStrategyName(),
+                       standing.getGames(), standing.getWinRate(), standing.getMicrosPerGame(), standing.getMovesPerSecond());
+        }
+    }
+
+    /**
+     * Runs a tournament of all the strategies in all the medialab scenarios.
+     * @param args the number of games per scenario (default 1000) and the first seed (default 0)
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        Tournament tournament = new Tournament(games, seed, ForkJoinPool.commonPool());
+        tournament.addMedialabScenarios();
+        tournament.addStrategy(RandomStrategy::new);
+        tournament.addStrategy(RuleStrategy::new);
+        tournament.addStrategy(ProbabilityStrategy::new);
+        tournament.addStrategy(LookAheadStrategy::new);
+
+        long start = System.nanoTime();
+        List<Standing> standings = tournament.run();
+        printTable(standings, System.out);
+        System.out.printf("%d games in %.1f s%n", (long) games * tournament.scenarios.size() * tournament.strategies.size(),
+                          (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * The task that plays the games from..to-1 of a strategy in a scenario, splitting them into chunks.
+     */
+    private class Games extends RecursiveTask<Standing> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String scenarioId;
+        private final GameDescription description;
+        private final Supplier<Strategy> strategy;
+        private final int from;
+        private final int to;
+
+        Games(String scenarioId, GameDescription description, Supplier<Strategy> strategy, int from, int to) {
+            this.scenarioId = scenarioId;
+            this.description = description;
+            this.strategy = strategy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Standing compute() {
+            if(to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                Games left = new Games(scenarioId, description, strategy, from, middle);
+                left.fork();
+                Standing standing = new Games(scenarioId, description, strategy, middle, to).compute();
+                standing.merge(left.join());
+                return standing;
+            }
+
+            Bot bot = new Bot(strategy.get());
+            Standing standing = new Standing(scenarioId, bot.getStrategy().getName());
+            long start = System.nanoTime();
+            for(int game = from; game < to; game++) {
+                GameEngine engine = bot.play(description, firstSeed + game);
+                standing.addGame(engine.getGameWon(), engine.getAttempts());
+            }
+            standing.addTime(System.nanoTime() - start);
+            return standing;
+        }
+    }
+}
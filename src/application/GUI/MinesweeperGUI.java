@@ -2,23 +2,33 @@ package application.GUI;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 
 import application.GameObjects.BoardGenerator;
 import application.GameObjects.GameLogic;
+import application.GameObjects.GameSnapshot;
+import application.GameObjects.MoveJournal;
 import application.GameObjects.ScenarioReader;
 import application.GameObjects.Tile;
+import application.Leaderboard.RoundResult;
 import application.ReadScenario.GameDescription;
 import application.ReadScenario.InvalidDescriptionException;
 import application.ReadScenario.InvalidValueException;
+import application.Solver.Hint;
+import application.Solver.HintService;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
@@ -30,6 +40,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonBar.ButtonData;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
@@ -50,6 +61,9 @@ public class MinesweeperGUI extends BorderPane {
     public static final int MINE = -1;
     public static final int SUPER_MINE = -2;
 
+    // The file where the game in progress is saved after every move
+    private static final Path SAVE_PATH = Paths.get("saves", "autosave.bin");
+
     private int difficultyLevel;
     private int numMines;
     private int maxTime;
@@ -57,7 +71,28 @@ public class MinesweeperGUI extends BorderPane {
     private Tile[][] board;
     private GameLogic gameLogic;
     private boolean Loaded;     // Used to check if a scenario is loaded
+    private String scenarioId;  // The ID of the loaded scenario (null if the settings come from a saved game)
     private boolean Playing;    // Used to check if player is playing
+    private HintService hintService;    // Created with the first hint
+    private Tile hintedTile;    // The tile highlighted by the last hint
+    private boolean practice;   // Used to start practice games, whose moves can be undone but which are not ranked
+
+    // The objects of the last game, which are reused by the next one
+    private BoardGenerator boardGenerator;
+    private final Random seeds = new Random();
+    private MoveJournal journal;
+    private boolean recordMines;    // Used to record the mines of a new board with its first click
+    private GridPane gameBoard;
+    private VBox gameBox;           // The counters and the board of a game
+    private VBox gameOverBox;       // The result and the board of a finished game
+    private Label TotalMinesLabel;
+    private Label MarkedTilesLabel;
+    private Label timeLeftLabel;
+    private Label gameOverLabel;
+    private boolean GameOverShown;  // Used to display the result of a game once
+
+    // Refreshes the counters of the game every second (one daemon thread for all the games, created with the first game)
+    private Timer refreshTimer;
 
     
     public MinesweeperGUI() {
@@ -74,17 +109,25 @@ public class MinesweeperGUI extends BorderPane {
         MenuItem createMenuItem = new MenuItem("Create");
         MenuItem loadMenuItem = new MenuItem("Load");
         MenuItem startMenuItem = new MenuItem("Start");
+        MenuItem resumeMenuItem = new MenuItem("Resume");
         MenuItem exitMenuItem = new MenuItem("Exit");
 
         // Add the menu items to the application menu
-        applicationMenu.getItems().addAll(createMenuItem, loadMenuItem, startMenuItem, new SeparatorMenuItem(), exitMenuItem);
+        applicationMenu.getItems().addAll(createMenuItem, loadMenuItem, startMenuItem, resumeMenuItem, new SeparatorMenuItem(), exitMenuItem);
 
         // Create the menu items for the details menu
         MenuItem roundsMenuItem = new MenuItem("Rounds");
         MenuItem solutionMenuItem = new MenuItem("Solution");
+        MenuItem hintMenuItem = new MenuItem("Hint");
+        CheckMenuItem practiceMenuItem = new CheckMenuItem("Practice");
+        MenuItem undoMenuItem = new MenuItem("Undo");
+        MenuItem redoMenuItem = new MenuItem("Redo");
+        hintMenuItem.setAccelerator(KeyCombination.keyCombination("Shortcut+H"));
+        undoMenuItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        redoMenuItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
 
         // Add the menu items to the details menu
-        detailsMenu.getItems().addAll(roundsMenuItem, solutionMenuItem);
+        detailsMenu.getItems().addAll(roundsMenuItem, solutionMenuItem, hintMenuItem, new SeparatorMenuItem(), practiceMenuItem, undoMenuItem, redoMenuItem);
 
         // Add the menus to the menu bar
         menuBar.getMenus().addAll(applicationMenu, detailsMenu);
@@ -98,14 +141,20 @@ public class MinesweeperGUI extends BorderPane {
         createMenuItem.setStyle("-fx-text-fill: black;");
         loadMenuItem.setStyle("-fx-text-fill: black;");
         startMenuItem.setStyle("-fx-text-fill: black;");
+        resumeMenuItem.setStyle("-fx-text-fill: black;");
         exitMenuItem.setStyle("-fx-text-fill: black;");
         roundsMenuItem.setStyle("-fx-text-fill: black;");
         solutionMenuItem.setStyle("-fx-text-fill: black;");
+        hintMenuItem.setStyle("-fx-text-fill: black;");
+        practiceMenuItem.setStyle("-fx-text-fill: black;");
+        undoMenuItem.setStyle("-fx-text-fill: black;");
+        redoMenuItem.setStyle("-fx-text-fill: black;");
 
         // Add action listeners to the menu items
 
-        // If we select Exit, the app will shut down
+        // If we select Exit, the app will shut down (System.exit doesn't call Application.stop, so the files are closed first)
         exitMenuItem.setOnAction(e -> {
+            close();
             System.exit(0);
         });
 
@@ -207,6 +256,8 @@ public class MinesweeperGUI extends BorderPane {
                     FileWriter writer = new FileWriter(path);
                     writer.write(level + "\n" + mines + "\n" + maxTime + "\n" + supermine);
                     writer.close();
+                    // The file may keep its modification time, so the scenario must not be read from the cache
+                    ScenarioReader.invalidate(id);
                     System.out.println("Scenario created successfully.");
                 } catch (IOException ex) {
                     System.err.println("Error creating scenario file.");
@@ -243,6 +294,7 @@ public class MinesweeperGUI extends BorderPane {
                     setNumMines(gameDescription.getNumMines());
                     setMaxTime(gameDescription.getMaxTime());
                     setHasSupermine(gameDescription.getHasSupermine());
+                    scenarioId = ID;
                     Loaded = true;
                 } catch (IOException | InvalidDescriptionException | InvalidValueException ex) {
                     setLoaded(false);
@@ -274,6 +326,23 @@ public class MinesweeperGUI extends BorderPane {
             }
         });
 
+        /*
+         * When resume is selected, the game that was saved last (i.e. the game that was in progress
+         * when the application was closed or crashed) is restored.
+         * If there is no saved game, then an error message is displayed.
+         */
+        resumeMenuItem.setOnAction(e -> {
+            try {
+                resume();
+            } catch (IOException ex) {
+                Alert alert = new Alert(AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText("Failed to resume a game");
+                alert.setContentText("There is no saved game in progress.");
+                alert.showAndWait();
+            }
+        });
+
         // If solution is selected, then gamelogic.Solution is called to reveal the solution 
         solutionMenuItem.setOnAction(e -> {
             if(Playing) {
@@ -288,8 +357,53 @@ public class MinesweeperGUI extends BorderPane {
             }
         });
 
+        // If hint is selected, then the safest tile to reveal is highlighted
+        hintMenuItem.setOnAction(e -> {
+            if(Playing && !gameLogic.getGameOver()) {
+                if(hintedTile != null) {
+                    hintedTile.unhighlight();
+                }
+                if(hintService == null) {
+                    hintService = new HintService();
+                }
+                Hint hint = hintService.getHint(gameLogic);
+                if(hint != null) {
+                    hintedTile = board[hint.getRow()][hint.getCol()];
+                    hintedTile.highlight();
+                }
+            }
+            else {
+                Alert alert = new Alert(AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText("Failed to show a hint");
+                alert.setContentText("This option is unavailable when you are not playing. You must start a game first.");
+                alert.showAndWait();
+            }
+        });
+
+        // If practice is selected, the next games that are started are practice games: their moves can be undone,
+        // but their rounds are not ranked in the leaderboards.
+        practiceMenuItem.setOnAction(e -> {
+            practice = practiceMenuItem.isSelected();
+        });
+
+        // If undo (or redo) is selected, then the last move (or the last undone move) of the player is undone (or redone).
+        // Only the moves of a practice game are recorded, so the other games can't be undone.
+        // A game that is over can't be undone (Playing is only updated by the next refresh of the labels).
+        undoMenuItem.setOnAction(e -> {
+            if(Playing && !gameLogic.getGameOver() && gameLogic.undo()) {
+                autosave();
+            }
+        });
+
+        redoMenuItem.setOnAction(e -> {
+            if(Playing && !gameLogic.getGameOver() && gameLogic.redo()) {
+                autosave();
+            }
+        });
+
         roundsMenuItem.setOnAction(e -> {
-            RoundsAction.handleRoundOption();
+            RoundsAction.handleRoundOption(Loaded ? RoundResult.scenarioKey(difficultyLevel, numMines, maxTime, hasSupermine) : null);
         });
         
         
@@ -319,86 +433,115 @@ public class MinesweeperGUI extends BorderPane {
     /**
      * This method initializes and starts the game. It generates a game board, sets up a timer,
      * and allows the user to interact with the game by left-clicking to reveal tiles and right-clicking to flag tiles.
+     * The generator, the tiles, the panes and the engine of the previous game are reused when the board has the
+     * same size, so consecutive games don't create new objects.
      */
     public void play() {
-        
-        int boardsize = (getDifficultyLevel() == 1) ? 9 : 16;
-        
-        GridPane gameBoard = new GridPane();
-        gameBoard.setAlignment(Pos.CENTER);
-        gameBoard.setPadding(new Insets(10));
-        gameBoard.setHgap(5);
-        gameBoard.setVgap(5);
-    
-        BoardGenerator boardGenerator = new BoardGenerator(difficultyLevel, numMines, hasSupermine);
-
-        Timer timer = new Timer();
-        TimerTask task = new TimerTask() {
-            @Override
-            public void run() {
-                // Check the gameOver flag
-                Platform.runLater(() -> {
-                    if(gameLogic.getGameOver()) {
-                        GameOverAction(gameBoard);
-                        timer.cancel();
-                    }
-                });
-            }       
-        };
-
-        // Schedule the TimerTask to run every second.
-        timer.scheduleAtFixedRate(task, 0, 1000);
 
-        board = boardGenerator.GenerateBoard();
-        boardGenerator.BoardPrinter();
-        for (int row = 0; row < boardsize; row++) {
-            for (int col = 0; col < boardsize; col++) {
-                gameBoard.add(board[row][col], col, row);
-            }
+        if(boardGenerator == null) {
+            boardGenerator = new BoardGenerator(difficultyLevel, numMines, hasSupermine, seeds.nextLong());
         }
+        else {
+            boardGenerator.reset(difficultyLevel, numMines, hasSupermine, seeds.nextLong());
+        }
+        int boardsize = (difficultyLevel == 1) ? 9 : 16;
+        if(board == null || board.length != boardsize) {
+            createBoard(boardsize);
+        }
+        board = boardGenerator.GenerateBoard(board);
+        boardGenerator.BoardPrinter();
 
-        gameLogic = new GameLogic(board, numMines, maxTime);
-
-        Label TotalMinesLabel = new Label("Total mines: " + numMines);
-        Label MarkedTilesLabel = new Label("Marked tiles: " + gameLogic.getMarkedTiles());
-        Label timeLeftLabel = new Label("Remaining time: " + gameLogic.getTimeLeft() + " secs");
+        if(gameLogic == null || gameLogic.getBoard() != board) {
+            gameLogic = new GameLogic(board, numMines, maxTime);
+            gameLogic.setOnTimeUp(this::refresh);
+        }
+        else {
+            gameLogic.reset(numMines, maxTime);
+        }
+        gameLogic.setUndoEnabled(practice);
+        if(journal == null) {
+            journal = new MoveJournal(boardGenerator.getSeed(), difficultyLevel, numMines, maxTime, hasSupermine);
+        }
+        else {
+            journal.reset(boardGenerator.getSeed(), difficultyLevel, numMines, maxTime, hasSupermine);
+        }
+        gameLogic.setJournal(journal);
+        gameLogic.setScenarioId(scenarioId);
+        recordMines = true;
+        showGame();
+    }
 
-        VBox infoBox = new VBox();
-        infoBox.getChildren().addAll(TotalMinesLabel, MarkedTilesLabel, timeLeftLabel);
-        infoBox.setAlignment(Pos.CENTER);
-        infoBox.setPadding(new Insets(50));
+    /**
+     * This method restores the game that was saved in SAVE_PATH and displays it, so the player can continue playing.
+     * @throws IOException if there is no saved game or the saved game can't be read
+     */
+    public void resume() throws IOException {
+
+        GameSnapshot snapshot = GameSnapshot.readFrom(SAVE_PATH);
+
+        // Update game's attributes, so that the game can be restarted with the same scenario
+        setDifficultyLevel(snapshot.getState().getBoardsize() == 9 ? 1 : 2);
+        setNumMines(snapshot.getNumMines());
+        setMaxTime(snapshot.getMaxTime());
+        setHasSupermine(snapshot.getState().getSuperMine() >= 0);
+        scenarioId = null;
+        Loaded = true;
+        Playing = true;
+
+        int boardsize = snapshot.getState().getBoardsize();
+        if(board == null || board.length != boardsize) {
+            createBoard(boardsize);
+        }
+        if(gameLogic == null || gameLogic.getBoard() != board) {
+            gameLogic = new GameLogic(board, numMines, maxTime);
+            gameLogic.setOnTimeUp(this::refresh);
+        }
+        gameLogic.setJournal(null);
+        gameLogic.setScenarioId(null);
+        gameLogic.restoreSnapshot(snapshot);
+        recordMines = false;
+        showGame();
+    }
 
-        Timer timer2 = new Timer();
-        TimerTask task2 = new TimerTask() {
-            @Override
-            public void run() {
-                Platform.runLater(() -> {
-                    TotalMinesLabel.setText("Total mines: " + numMines);
-                    MarkedTilesLabel.setText("Marked tiles: " + gameLogic.getMarkedTiles());
-                    timeLeftLabel.setText("Remaining time: " + gameLogic.getTimeLeft() + " secs");
-                });
-            }       
-        };
+    /**
+     * This method creates the board of tiles of a board size and the panes that display it, and it allows the user to
+     * interact with the game by left-clicking to reveal tiles, right-clicking to flag tiles and middle-clicking on a
+     * revealed number to reveal its neighbours (chording). The mouse handlers use the current game, so the tiles and
+     * the panes are created once and reused by every following game with the same board size.
+     * @param boardsize the size of the board
+     */
+    private void createBoard(int boardsize) {
 
-        // Schedule the TimerTask to run every second.
-        timer2.scheduleAtFixedRate(task2, 0, 1000);
+        if(gameBox == null) {
+            createGamePanes();
+        }
+        // Remove the board of the previous size from the pane that displays it
+        if(gameBoard != null) {
+            gameBox.getChildren().remove(gameBoard);
+            gameOverBox.getChildren().remove(gameBoard);
+        }
 
-        VBox centerBox = new VBox();
-        centerBox.getChildren().addAll(infoBox, gameBoard);
-        this.setCenter(centerBox);
+        board = new Tile[boardsize][boardsize];
+        gameBoard = new GridPane();
+        gameBoard.setAlignment(Pos.CENTER);
+        gameBoard.setPadding(new Insets(10));
+        gameBoard.setHgap(5);
+        gameBoard.setVgap(5);
 
         for(int row = 0; row < boardsize; row++) {
             for (int col = 0; col < boardsize; col++) {
                 int x = row;
                 int y = col;
-                gameLogic.getBoard()[row][col].setOnMouseClicked(event -> {
+                board[row][col] = new Tile(row, col, 0);
+                gameBoard.add(board[row][col], col, row);
+                board[row][col].setOnMouseClicked(event -> {
                     // Case -> Left Click
                     if (event.getButton() == MouseButton.PRIMARY) {
                         // If the first attempt is a mine or a supermine, change the board until it isn't.
                         while(gameLogic.getAttempts() == 0 && (board[x][y].getValue() == MINE || board[x][y].getValue() == SUPER_MINE)) {
                             play();
                         }
-                        if(gameLogic.getAttempts() == 0) {
+                        if(gameLogic.getAttempts() == 0 && recordMines) {
                             boardGenerator.MineRecorder();
                         }
                         gameLogic.AddRevealClick(x, y);
@@ -407,43 +550,169 @@ public class MinesweeperGUI extends BorderPane {
                     else if (event.getButton() == MouseButton.SECONDARY) {
                         gameLogic.flagTile(x, y);
                     }
-                    board = gameLogic.getBoard();
+                    autosave();
                 });
             }
         }
+
+        // Case -> Middle Click (chording). The revealed tiles are disabled and don't receive mouse events,
+        // so the click is handled by the board, which finds the clicked tile from the position of the mouse.
+        gameBoard.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.MIDDLE) {
+                for(int row = 0; row < boardsize; row++) {
+                    for (int col = 0; col < boardsize; col++) {
+                        if(board[row][col].getBoundsInParent().contains(event.getX(), event.getY())) {
+                            gameLogic.chordTile(row, col);
+                            autosave();
+                            return;
+                        }
+                    }
+                }
+            }
+        });
     }
 
     /**
-     * Checks if the game is won or lost and displays the proper message
-     * @param gameBoard the game board grid pane
+     * This method creates the panes that display a game (the counters above the board) and a finished game
+     * (the result above the board), and the timer that refreshes them. The board is moved between them.
+     * They are created with the first game, so they don't delay the first frame.
      */
-     private void GameOverAction(GridPane gameBoard) {
-        
-        VBox centerBox = new VBox();
-        centerBox.setAlignment(Pos.CENTER);
-        centerBox.setPadding(new Insets(50));
-        centerBox.setSpacing(20);
-        centerBox.setBackground(new Background(new BackgroundFill(Color.BLACK, CornerRadii.EMPTY, Insets.EMPTY)));    
+    private void createGamePanes() {
 
-        Label label = new Label();
+        TotalMinesLabel = new Label();
+        MarkedTilesLabel = new Label();
+        timeLeftLabel = new Label();
+
+        VBox infoBox = new VBox();
+        infoBox.getChildren().addAll(TotalMinesLabel, MarkedTilesLabel, timeLeftLabel);
+        infoBox.setAlignment(Pos.CENTER);
+        infoBox.setPadding(new Insets(50));
+
+        gameBox = new VBox();
+        gameBox.getChildren().add(infoBox);
+
+        gameOverLabel = new Label();
+        gameOverLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 24px;");
+
+        gameOverBox = new VBox();
+        gameOverBox.setAlignment(Pos.CENTER);
+        gameOverBox.setPadding(new Insets(50));
+        gameOverBox.setSpacing(20);
+        gameOverBox.setBackground(new Background(new BackgroundFill(Color.BLACK, CornerRadii.EMPTY, Insets.EMPTY)));
+        gameOverBox.getChildren().add(gameOverLabel);
+
+        Runnable refresh = this::refresh;
+        refreshTimer = new Timer("Refresh timer", true);
+        refreshTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                Platform.runLater(refresh);
+            }
+        }, 0, 1000);
+    }
+
+    /**
+     * This method displays the board of the current game with its counters.
+     */
+    private void showGame() {
+
+        if(hintedTile != null) {
+            hintedTile.unhighlight();
+            hintedTile = null;
+        }
+        if(gameBoard.getParent() != gameBox) {
+            gameBox.getChildren().add(gameBoard);
+        }
+        GameOverShown = false;
+        refresh();
+        this.setCenter(gameBox);
+    }
+
+    /**
+     * Updates the counters of the current game and, when the game is over, displays its result.
+     * It runs on the JavaFX thread every second (see refreshTimer) and as soon as the time of the game runs out.
+     */
+    private void refresh() {
+        if(gameLogic == null || gameBox == null) {
+            return;
+        }
+        TotalMinesLabel.setText("Total mines: " + numMines);
+        MarkedTilesLabel.setText("Marked tiles: " + gameLogic.getMarkedTiles());
+        timeLeftLabel.setText("Remaining time: " + gameLogic.getTimeLeft() + " secs" + (gameLogic.getPaused() ? " (paused)" : ""));
+
+        // Check the gameOver flag
+        if(gameLogic.getGameOver() && !GameOverShown) {
+            GameOverAction();
+        }
+    }
+
+    /**
+     * Saves the game in progress to SAVE_PATH, so it can be resumed after a crash.
+     * When the game is over, the saved game is deleted.
+     */
+    private void autosave() {
+        try {
+            if(gameLogic.getGameOver()) {
+                Files.deleteIfExists(SAVE_PATH);
+            }
+            else {
+                gameLogic.saveSnapshot().writeTo(SAVE_PATH);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks if the game is won or lost and displays the proper message above the game board
+     */
+     private void GameOverAction() {
 
         if(gameLogic.getGameLost()) {
-            label = new Label("You lost!");
-            label.setTextFill(Color.RED);
+            gameOverLabel.setText("You lost!");
+            gameOverLabel.setTextFill(Color.RED);
         }
         else {
-            label = new Label("You won!");
-            label.setTextFill(Color.GREEN);
+            gameOverLabel.setText("You won!");
+            gameOverLabel.setTextFill(Color.GREEN);
         }
-        label.setStyle("-fx-font-weight: bold; -fx-font-size: 24px;");
-        
-        // Add the components to the BorderPane
-        centerBox.getChildren().addAll(label, gameBoard);
-        this.setCenter(centerBox);
 
+        // Move the board below the message
+        gameOverBox.getChildren().add(gameBoard);
+        this.setCenter(gameOverBox);
+
+        GameOverShown = true;
         Playing = false;
+        autosave();
     } 
 
+    /**
+     * Releases the files of the application when it exits: the exporter of the mine layouts (see
+     * BoardGenerator.MineRecorder) is closed.
+     */
+    public void close() {
+        if(boardGenerator != null) {
+            boardGenerator.closeExporter();
+        }
+    }
+
+    /**
+     * Pauses the timer of the game in progress, e.g. while the window is not focused, or resumes it.
+     * @param paused true to pause the timer, false to resume it
+     */
+    public void setPaused(boolean paused) {
+        if(gameLogic == null) {
+            return;
+        }
+        if(paused) {
+            gameLogic.pause();
+        }
+        else {
+            gameLogic.resume();
+        }
+        refresh();
+    }
+
     // setters
 
     /**
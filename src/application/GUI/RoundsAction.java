@@ -1,60 +1,67 @@
 package application.GUI;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 
+import application.GameObjects.FileManager;
+import application.GameObjects.RoundHistory;
+import application.Leaderboard.Leaderboard;
+import application.Leaderboard.RoundResult;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 /**
  * This class implements the "Rounds" option functionality.
- * It retrieves information about the previous rounds and displays it in a pop-up window.
+ * It displays every previous round (see RoundsTable) in a pop-up window, next to the leaderboards (the fastest and
+ * the most efficient wins) of the current scenario and of every difficulty level. If there is no round history yet
+ * (the rounds were played by an older version), the last five rounds are read from their files instead.
  */
 public class RoundsAction {
 
-    // The prefix and extension for the round files.
-    private static final String FILE_PREFIX = "round-";
-    private static final String FILE_EXTENSION = ".txt";
-    
     /**
-     * Retrieves information about the previous rounds and displays it in a pop-up window.
+     * Retrieves information about the previous rounds and displays it in a pop-up window, with the leaderboards.
+     * @param scenario the key of the current scenario (see RoundResult.scenarioKey) or null if there isn't one
      */
-    public static void handleRoundOption() {
+    public static void handleRoundOption(String scenario) {
 
         // Get the path to the rounds folder
         Path roundsDirPath = Paths.get("rounds");
         if (!Files.exists(roundsDirPath)) {
             // If the directory doesn't exist, then no related data exist too, 
             // so display a pop up error window.
-            Alert alert = new Alert(AlertType.ERROR);
-            alert.setHeaderText("No Data Found");
-            alert.setContentText("There are no previous rounds.");
-            alert.showAndWait();
+            showNoData();
+        } else if (Files.exists(RoundHistory.DEFAULT_PATH)) {
+            // Display every round, read a page at a time
+            RoundsTable roundsTable = new RoundsTable(RoundHistory.DEFAULT_PATH);
+            Stage stage = createStage(roundsTable.getPane(), scenario, "Rounds - Info");
+            stage.setOnHidden(e -> roundsTable.close());
+            stage.show();
         } else {
         
-            // Obtain each file under folder "rounds" and sort them according to the last modified timestamp
-            File[] roundFiles = roundsDirPath.toFile().listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXTENSION));
-            List<File> sortedFiles = Arrays.asList(roundFiles);
-            sortedFiles.sort(Comparator.comparing(File::lastModified));
+            // Obtain the files of the last rounds, from the oldest to the latest
+            List<Path> roundFiles = new ArrayList<>();
+            try {
+                roundFiles = FileManager.getRoundFiles();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
 
-            if (roundFiles == null || roundFiles.length == 0) {
+            if (roundFiles.isEmpty()) {
                 // If there are no files then display a pop up error window.
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setHeaderText("No Data Found");
-                alert.setContentText("There are no previous rounds.");
-                alert.showAndWait();   
+                showNoData();
             }
             else {
                 // Display a pop up window with information about the last 5 rounds
@@ -64,9 +71,9 @@ public class RoundsAction {
 
                 List<String> fileContents = new ArrayList<>();
 
-                for (File file : roundFiles) {
+                for (Path file : roundFiles) {
                     try {
-                        byte[] bytes = Files.readAllBytes(Paths.get(file.getPath()));
+                        byte[] bytes = Files.readAllBytes(file);
                         String content = new String(bytes);;
                         fileContents.add(content);
                     } catch (IOException e) {
@@ -81,12 +88,77 @@ public class RoundsAction {
                     vBox.getChildren().add(label);
                 }                
 
-                Scene scene = new Scene(vBox, 650, 550);
-                Stage stage = new Stage();
-                stage.setScene(scene);
-                stage.setTitle("Last 5 rounds - Info");
-                stage.show();
+                createStage(vBox, scenario, "Last 5 rounds - Info").show();
             }
         }
     }
+
+    private static void showNoData() {
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setHeaderText("No Data Found");
+        alert.setContentText("There are no previous rounds.");
+        alert.showAndWait();
+    }
+
+    /**
+     * Creates the pop-up window of the rounds, with the leaderboards next to them.
+     * @param rounds the pane of the rounds
+     * @param scenario the key of the current scenario or null
+     * @param title the title of the window
+     * @return the window
+     */
+    private static Stage createStage(Region rounds, String scenario, String title) {
+        ScrollPane leaderboardPane = new ScrollPane(createLeaderboardBox(scenario));
+        HBox hBox = new HBox(rounds, leaderboardPane);
+
+        Scene scene = new Scene(hBox, 1000, 550);
+        Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.setTitle(title);
+        return stage;
+    }
+
+    /**
+     * Creates the leaderboards of a scenario (if there is one) and of the two difficulty levels.
+     * Every ranking is read in O(K), so this doesn't depend on the number of rounds that have been played.
+     * @param scenario the key of the current scenario or null
+     * @return the box with the leaderboards
+     */
+    private static VBox createLeaderboardBox(String scenario) {
+        VBox vBox = new VBox();
+        vBox.setPadding(new Insets(10));
+        vBox.setSpacing(10);
+
+        Leaderboard leaderboard = Leaderboard.getDefault();
+        List<String> keys = new ArrayList<>();
+        if (scenario != null) {
+            keys.add(scenario);
+        }
+        keys.add(RoundResult.difficultyKey(1));
+        keys.add(RoundResult.difficultyKey(2));
+
+        for (String key : keys) {
+            StringBuilder content = new StringBuilder("Leaderboard - " + key + ":\nFastest wins:\n");
+            appendResults(content, leaderboard.getFastest(key));
+            content.append("Best efficiency (3BV / attempts):\n");
+            appendResults(content, leaderboard.getMostEfficient(key));
+            vBox.getChildren().add(new Label(content.toString()));
+        }
+        return vBox;
+    }
+
+    /**
+     * Appends the lines of a ranking, e.g. "1. 12.345 secs, 85% (Level 1, 10 mines, 120 secs)".
+     */
+    private static void appendResults(StringBuilder content, List<RoundResult> results) {
+        if (results.isEmpty()) {
+            content.append("No wins yet.\n");
+        }
+        for (int i = 0; i < results.size(); i++) {
+            RoundResult result = results.get(i);
+            long millis = result.getTimeMillis();
+            content.append(String.format(Locale.ROOT, "%d. %d.%03d secs, %d%% (%s)\n", i + 1, millis / 1000, millis % 1000,
+                                         result.getEfficiency(), result.getScenario()));
+        }
+    }
 }
@@ -0,0 +1,294 @@
+package application.GUI;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import application.GameObjects.HistoryQuery;
+import application.GameObjects.RoundRecord;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+/**
+ * This class implements the table of the "Rounds" window: every round of the round history, the latest first.
+ * The table is virtualized (only the visible rows have cells) and its rows are read a page at a time on a background
+ * thread when they are scrolled into view, so a history of a million rounds opens at once and at most CACHED_PAGES
+ * pages are kept in memory. Sorting (by clicking a column) and filtering run a new HistoryQuery on the background
+ * thread, so they are done by the history instead of the table.
+ */
+public class RoundsTable {
+
+    private static final int CACHED_PAGES = 16;
+    private static final String ALL = "All";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                                                                          .withZone(ZoneId.systemDefault());
+
+    // The thread that runs the queries and reads the pages, one at a time
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "Rounds loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * history          -> The path of the round history
+     * table            -> The table of the rounds
+     * winnerBox        -> The winner filter ("All", "Player" or "PC")
+     * scenarioField    -> The scenario filter (the rounds whose scenario ID contains it)
+     * status           -> The number of rounds of the query, or its progress
+     * pane             -> The filters, the status and the table
+     * query            -> The query of the table (null while a new query runs)
+     * column           -> The column the rounds are sorted by (see HistoryQuery)
+     * descending       -> true if the rounds are sorted from the largest key
+     * generation       -> Increased by every new query, so the result of an older one is dropped
+     */
+
+    private final Path history;
+    private final TableView<RoundRecord> table = new TableView<>();
+    private final ComboBox<String> winnerBox = new ComboBox<>();
+    private final TextField scenarioField = new TextField();
+    private final Label status = new Label();
+    private final VBox pane;
+    private HistoryQuery query;
+    private int column = HistoryQuery.COLUMN_DATE;
+    private boolean descending = true;
+    private int generation;
+
+    /**
+     * Constructs the table of a round history and runs its first query (every round, the latest first).
+     * It must be called on the JavaFX application thread.
+     * @param history the path of the round history
+     */
+    public RoundsTable(Path history) {
+        this.history = history;
+
+        addColumn("Date", HistoryQuery.COLUMN_DATE, round -> DATE_FORMAT.format(Instant.ofEpochMilli(round.getDate())));
+        addColumn("Mines", HistoryQuery.COLUMN_MINES, round -> Integer.toString(round.getNumMines()));
+        addColumn("Attempts", HistoryQuery.COLUMN_ATTEMPTS, round -> Integer.toString(round.getAttempts()));
+        addColumn("3BV", HistoryQuery.COLUMN_THREE_BV, round -> Integer.toString(round.getThreeBV()));
+        addColumn("Time (secs)", HistoryQuery.COLUMN_TIME, round -> String.format(Locale.ROOT, "%d.%03d",
+                                       round.getTotalGameTime() / 1000, round.getTotalGameTime() % 1000));
+        addColumn("Winner", HistoryQuery.COLUMN_WINNER, RoundRecord::getWinner);
+        addColumn("Scenario", -1, round -> round.getScenarioId() != null ? round.getScenarioId() : "");
+
+        // Sorting runs a new query instead of sorting the rows
+        table.setSortPolicy(t -> {
+            int sortColumn = HistoryQuery.COLUMN_DATE;
+            boolean sortDescending = true;
+            if(!t.getSortOrder().isEmpty()) {
+                TableColumn<RoundRecord, ?> first = t.getSortOrder().get(0);
+                sortColumn = (Integer) first.getUserData();
+                sortDescending = first.getSortType() == TableColumn.SortType.DESCENDING;
+            }
+            if(sortColumn != column || sortDescending != descending) {
+                column = sortColumn;
+                descending = sortDescending;
+                // The items are replaced after the table has finished sorting
+                Platform.runLater(this::runQuery);
+            }
+            return true;
+        });
+
+        winnerBox.getItems().addAll(ALL, "Player", "PC");
+        winnerBox.setValue(ALL);
+        winnerBox.setOnAction(e -> runQuery());
+        scenarioField.setPromptText("Scenario contains...");
+        scenarioField.setOnAction(e -> runQuery());
+
+        HBox filters = new HBox(new Label("Winner:"), winnerBox, new Label("Scenario:"), scenarioField, status);
+        filters.setAlignment(Pos.CENTER_LEFT);
+        filters.setSpacing(10);
+        pane = new VBox(filters, table);
+        pane.setPadding(new Insets(10));
+        pane.setSpacing(10);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        HBox.setHgrow(pane, Priority.ALWAYS);
+
+        runQuery();
+    }
+
+    /**
+     * Adds a column to the table.
+     * @param name the name of the column
+     * @param sortColumn the HistoryQuery column it is sorted by (-1 if it can't be sorted)
+     * @param value the text of a round in the column
+     */
+    private void addColumn(String name, int sortColumn, Function<RoundRecord, String> value) {
+        TableColumn<RoundRecord, String> tableColumn = new TableColumn<>(name);
+        // The rows of pages that are not read yet are null
+        tableColumn.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue() != null ? value.apply(c.getValue()) : ""));
+        tableColumn.setUserData(sortColumn);
+        tableColumn.setSortable(sortColumn >= 0);
+        table.getColumns().add(tableColumn);
+    }
+
+    /**
+     * Runs the query of the current filters and sort order on the background thread, and shows its rounds
+     * when it is done. The previous query is closed.
+     */
+    private void runQuery() {
+        int current = ++generation;
+        HistoryQuery previous = query;
+        query = null;
+        table.setItems(FXCollections.observableArrayList());
+        table.setPlaceholder(new Label("Loading rounds..."));
+        status.setText("Loading rounds...");
+
+        Predicate<RoundRecord> filter = createFilter();
+        int queryColumn = column;
+        boolean queryDescending = descending;
+        LOADER.execute(() -> {
+            close(previous);
+            try {
+                HistoryQuery result = HistoryQuery.run(history, filter, queryColumn, queryDescending);
+                Platform.runLater(() -> {
+                    if(current != generation) {
+                        LOADER.execute(() -> close(result));
+                        return;
+                    }
+                    query = result;
+                    status.setText(result.size() + (result.size() == 1 ? " round" : " rounds"));
+                    table.setPlaceholder(new Label("No rounds match the filters."));
+                    table.setItems(new PagedRounds(result));
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+                Platform.runLater(() -> {
+                    if(current == generation) {
+                        status.setText("The rounds could not be read.");
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Creates the filter of the query from the winner and scenario filters.
+     * @return the filter or null if every round matches
+     */
+    private Predicate<RoundRecord> createFilter() {
+        String winner = winnerBox.getValue();
+        String scenario = scenarioField.getText().trim().toLowerCase(Locale.ROOT);
+        if(ALL.equals(winner) && scenario.isEmpty()) {
+            return null;
+        }
+        return round -> (ALL.equals(winner) || round.getWinner().equals(winner))
+                        && (scenario.isEmpty() || (round.getScenarioId() != null
+                                                   && round.getScenarioId().toLowerCase(Locale.ROOT).contains(scenario)));
+    }
+
+    private static void close(HistoryQuery query) {
+        if(query == null) {
+            return;
+        }
+        try {
+            query.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the query of the table (and deletes its temporary file). It is called when the window is closed.
+     */
+    public void close() {
+        generation++;
+        HistoryQuery previous = query;
+        query = null;
+        LOADER.execute(() -> close(previous));
+    }
+
+    /**
+     * Returns the pane of the table, with its filters.
+     * @return the pane
+     */
+    public VBox getPane() {
+        return pane;
+    }
+
+    /**
+     * The rows of the table: the rounds of a query, read a page at a time when a row of the page is shown.
+     * The rows of a page that is not read yet are null until it is read.
+     */
+    private class PagedRounds extends ObservableListBase<RoundRecord> {
+
+        private final HistoryQuery rounds;
+        private final Set<Integer> loading = new HashSet<>();
+        private final Map<Integer, List<RoundRecord>> pages = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<RoundRecord>> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+
+        PagedRounds(HistoryQuery rounds) {
+            this.rounds = rounds;
+        }
+
+        @Override
+        public RoundRecord get(int index) {
+            if(index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int page = index / HistoryQuery.PAGE_SIZE;
+            List<RoundRecord> pageRounds = pages.get(page);
+            if(pageRounds != null) {
+                return pageRounds.get(index % HistoryQuery.PAGE_SIZE);
+            }
+            // Read the page, unless it is being read or the query was replaced (and is being closed)
+            if(rounds == query && loading.add(page)) {
+                LOADER.execute(() -> {
+                    try {
+                        List<RoundRecord> read = rounds.readPage(page);
+                        Platform.runLater(() -> {
+                            loading.remove(page);
+                            if(rounds == query) {
+                                pages.put(page, read);
+                                table.refresh();
+                            }
+                        });
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        // The page is read again the next time one of its rows is shown
+                        Platform.runLater(() -> {
+                            loading.remove(page);
+                            if(rounds == query) {
+                                status.setText("The rounds could not be read.");
+                            }
+                        });
+                    }
+                });
+            }
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(rounds.size(), Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package application.GUI;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import application.GameObjects.FileManager;
+import application.GameObjects.ScenarioReader;
+import application.Leaderboard.Leaderboard;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+
+/**
+ * This class implements the startup-optimized launch of the application:
+ *      -> it measures the time from the start of the JVM to the first frame and prints it
+ *      -> it preloads the scenarios, the leaderboard and the images of the tiles and recovers the rounds log on a
+ *         background thread while the welcome page is shown, so the first Load, the first Rounds and the first
+ *         revealed tiles don't wait for the disk or the image decoder
+ *      -> in a training run (-Dminesweeper.cds.training=true) it exits after the first frame and the preloading,
+ *         so the JVM can write a class-data-sharing archive of every class that the startup loads (see README)
+ */
+public final class Startup {
+
+    public static final boolean TRAINING = Boolean.getBoolean("minesweeper.cds.training");
+
+    // The images that the tiles use
+    private static final String[] IMAGES = {"0.png", "1.png", "2.png", "3.png", "4.png", "5.png", "6.png", "7.png",
+                                            "8.png", "flag.png", "mine.png", "supermine.png"};
+
+    private static Thread preloader;
+    private static boolean firstFrame;
+
+    private Startup() {
+    }
+
+    /**
+     * Starts preloading the scenarios, the leaderboard and the images of the tiles on a background thread.
+     * It must be called after the JavaFX toolkit has started.
+     */
+    public static void preload() {
+        preloader = new Thread(() -> {
+            ScenarioReader.preload();
+            Leaderboard.getDefault();
+            try {
+                FileManager.recover();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            for(String image : IMAGES) {
+                new Image("file:assets/images/" + image);
+            }
+        }, "Preloader");
+        preloader.setDaemon(true);
+        preloader.setPriority(Thread.MIN_PRIORITY);
+        preloader.start();
+    }
+
+    /**
+     * Prints the time to the first frame of a scene (from the start of the JVM, or -1 if it is unknown) when the
+     * scene is laid out for the first time. A training run exits after it. The listener removes itself after its
+     * first run (after the pulse, since the listeners of the scene are being run), so the next pulses don't call it.
+     * @param scene the scene of the primary stage, before the stage is shown
+     */
+    public static void reportFirstFrame(Scene scene) {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                if(firstFrame) {
+                    return;
+                }
+                firstFrame = true;
+                Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+                long millis = ProcessHandle.current().info().startInstant()
+                                           .map(start -> Duration.between(start, Instant.now()).toMillis()).orElse(-1L);
+                System.out.println("Time to first frame: " + millis + " ms");
+                if(TRAINING) {
+                    Platform.runLater(Startup::exitTraining);
+                }
+            }
+        };
+        scene.addPostLayoutPulseListener(listener);
+    }
+
+    /**
+     * Ends a training run once the preloading has finished, so its classes are in the archive too.
+     */
+    private static void exitTraining() {
+        try {
+            if(preloader != null) {
+                preloader.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Platform.exit();
+    }
+}
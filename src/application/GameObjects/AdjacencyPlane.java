@@ -0,0 +1,148 @@
+package application.GameObjects;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * This class computes the numbers plane of a board: for every tile, the number of mines among its 8 neighbours
+ * (a mine does not count itself, so callers check the mines separately). It is the setup step of the very large
+ * boards of the stress scenarios, whose layouts come from BoardGenerator.GenerateLayout.
+ *
+ * The mines bitset is expanded to a plane of bytes (0 or 1) with a border of empty tiles, so the 8 neighbours of
+ * every tile are the same tile of 8 shifted planes and the numbers are their lane-wise sum:
+ *      -> with the Vector API (the jdk.incubator.vector module, see VectorAdjacency), many tiles per instruction
+ *      -> otherwise with a scalar loop that gives identical results
+ *
+ * VectorAdjacency is in the src-vector source folder, which is compiled separately with the incubator module,
+ * so the game builds without it. It is loaded by reflection, and used only if it was compiled and the module is
+ * loaded (java --add-modules jdk.incubator.vector ...).
+ */
+public final class AdjacencyPlane {
+
+    private static final PlaneSum VECTOR_SUM = loadVectorSum();
+    public static final boolean VECTORIZED = VECTOR_SUM != null;
+
+    // SPREAD[b] holds the 8 bits of b as 8 bytes (0 or 1), the first bit in the lowest byte
+    private static final long[] SPREAD = new long[256];
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    static {
+        for(int b = 0; b < 256; b++) {
+            for(int i = 0; i < 8; i++) {
+                SPREAD[b] |= (long) ((b >>> i) & 1) << (8 * i);
+            }
+        }
+    }
+
+    private AdjacencyPlane() {
+    }
+
+    /**
+     * The sum of the 8 shifted planes (see sum), implemented by VectorAdjacency.
+     */
+    interface PlaneSum {
+        void sum(byte[] plane, int boardsize, byte[] numbers);
+    }
+
+    /**
+     * Loads VectorAdjacency, if the incubator module is loaded and the class was compiled (see src-vector).
+     * @return the vectorized sum or null if it is not available
+     */
+    private static PlaneSum loadVectorSum() {
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (PlaneSum) Class.forName("application.GameObjects.VectorAdjacency").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the numbers plane of a board, with the Vector API if it is available.
+     * @param state the board
+     * @return the number of adjacent mines of every tile (index row * boardsize + col)
+     */
+    public static byte[] compute(BoardState state) {
+        if(VECTORIZED) {
+            int boardsize = state.getBoardsize();
+            byte[] numbers = new byte[state.getNumCells()];
+            VECTOR_SUM.sum(expand(state), boardsize, numbers);
+            return numbers;
+        }
+        return computeScalar(state);
+    }
+
+    /**
+     * Computes the numbers plane of a board without the Vector API.
+     * @param state the board
+     * @return the number of adjacent mines of every tile (index row * boardsize + col)
+     */
+    public static byte[] computeScalar(BoardState state) {
+        int boardsize = state.getBoardsize();
+        byte[] numbers = new byte[state.getNumCells()];
+        sum(expand(state), boardsize, numbers, 0, 0);
+        return numbers;
+    }
+
+    /**
+     * Sums the 8 shifted planes of the tiles from column first to the end of every row.
+     * @param plane the expanded mines (see expand)
+     * @param boardsize the size of the board
+     * @param numbers the numbers plane
+     * @param row the first row
+     * @param first the first column
+     */
+    static void sum(byte[] plane, int boardsize, byte[] numbers, int row, int first) {
+        int width = boardsize + 2;
+        for(int up = row * width, out = row * boardsize; row < boardsize; row++, up += width, out += boardsize) {
+            int middle = up + width;
+            int down = middle + width;
+            for(int col = first; col < boardsize; col++) {
+                numbers[out + col] = (byte) (plane[up + col] + plane[up + col + 1] + plane[up + col + 2]
+                                           + plane[middle + col] + plane[middle + col + 2]
+                                           + plane[down + col] + plane[down + col + 1] + plane[down + col + 2]);
+            }
+        }
+    }
+
+    /**
+     * Expands the mines bitset to one byte per tile, with a border of empty tiles around the board.
+     * Row r of the board is row r + 1 of the plane, which is boardsize + 2 bytes wide.
+     * @param state the board
+     * @return the plane (with 64 extra bytes at the end, so every row can be written 64 tiles at a time)
+     */
+    static byte[] expand(BoardState state) {
+        int boardsize = state.getBoardsize();
+        int width = boardsize + 2;
+        long[] mines = state.getMines();
+        byte[] plane = new byte[width * width + 64];
+        for(int row = 0; row < boardsize; row++) {
+            int start = row * boardsize;
+            int offset = (row + 1) * width + 1;
+            for(int col = 0; col < boardsize; col += 64) {
+                // The bytes after the end of the row are zeros, so they don't change the border or the next row
+                long chunk = bits(mines, start + col, Math.min(64, boardsize - col));
+                for(int i = 0; i < 64 && chunk != 0; i += 8, chunk >>>= 8) {
+                    LONGS.set(plane, offset + col + i, SPREAD[(int) chunk & 0xFF]);
+                }
+            }
+        }
+        return plane;
+    }
+
+    /**
+     * Returns count (at most 64) bits of a bitset, starting from bit start.
+     */
+    private static long bits(long[] set, int start, int count) {
+        int w = start >>> 6;
+        int offset = start & 63;
+        long value = set[w] >>> offset;
+        if(offset != 0 && offset + count > 64) {
+            value |= set[w + 1] << (64 - offset);
+        }
+        return count == 64 ? value : value & ((1L << count) - 1);
+    }
+}
@@ -0,0 +1,407 @@
+package application.GameObjects;
+
+/**
+ * This class implements the rules of GameLogic with bitboards, for headless games on small boards: the mines,
+ * revealed and flagged tiles of a board with at most MAX_CELLS tiles (a 16x16 board) fit in 4 long words each.
+ * Tile (row, col) is bit row * boardsize + col, as in BoardState.
+ *
+ *      -> The neighbours of a set of tiles are found by shifting the whole set (dilation): by 1 for the left and
+ *         right neighbours (masking the columns that would wrap to another row) and by boardsize for the rows
+ *         above and below.
+ *      -> The number of mines next to a tile is the popcount of the mines in its 3x3 square (as in BoardState,
+ *         a mine counts itself).
+ *      -> A left click floods the region of the clicked tile by dilating the opened tiles without adjacent mines
+ *         until nothing new is opened, many tiles per operation instead of one tile per recursive call.
+ *      -> The win check is a comparison of the number of revealed tiles (a popcount) with the safe tiles.
+ *
+ * A BitboardGame has no timer, journal or undo: it is meant for simulations and bots (see GameEngine).
+ * Its rules are the same as GameLogic's, including the supermine rule and chording.
+ */
+public class BitboardGame implements GameEngine {
+
+    public static final int MAX_CELLS = 256;
+
+    private static final int MAX_BOARDSIZE = 16;
+    private static final int WORDS = MAX_CELLS / 64;
+
+    // Masks of every board size: the tiles of the board, all the tiles but the first column, all the tiles but the last column
+    private static final long[][] BOARD_MASKS = new long[MAX_BOARDSIZE + 1][];
+    private static final long[][] NOT_FIRST_COL = new long[MAX_BOARDSIZE + 1][];
+    private static final long[][] NOT_LAST_COL = new long[MAX_BOARDSIZE + 1][];
+
+    static {
+        for(int size = 1; size <= MAX_BOARDSIZE; size++) {
+            BOARD_MASKS[size] = new long[WORDS];
+            NOT_FIRST_COL[size] = new long[WORDS];
+            NOT_LAST_COL[size] = new long[WORDS];
+            for(int cell = 0; cell < size * size; cell++) {
+                BOARD_MASKS[size][cell >>> 6] |= 1L << cell;
+                if(cell % size != 0) {
+                    NOT_FIRST_COL[size][cell >>> 6] |= 1L << cell;
+                }
+                if(cell % size != size - 1) {
+                    NOT_LAST_COL[size][cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * boardsize    -> The size of the board
+ * words        -> The number of words used by the board (2 for a 9x9 board, 4 for a 16x16 board)
+     * numMines     -> Total number of mines
+     * superMine    -> The index of the supermine (-1 if there isn't one)
+     * mines        -> The tiles with a mine or the supermine
+     * zeros        -> The safe tiles without adjacent mines
+     * revealed     -> The revealed tiles (including the revealed mines)
+     * flagged      -> The flagged tiles
+     * MarkedTiles, numRevealed, attempts, gameOver, gameWon, gameLost, flagSuperMine -> As in GameLogic
+     * region, front, horizontal, temp1, temp2 -> Reusable bitboards for the flood fill
+     */
+    private final int boardsize;
+    private final int words;
+    private final int numMines;
+    private final int superMine;
+    private final long[] mines = new long[WORDS];
+    private final long[] zeros = new long[WORDS];
+    private final long[] revealed = new long[WORDS];
+    private final long[] flagged = new long[WORDS];
+    private int MarkedTiles;
+    private int numRevealed;
+    private int attempts;
+    private boolean gameOver;
+    private boolean gameWon;
+    private boolean gameLost;
+    private boolean flagSuperMine;
+    private final long[] region = new long[WORDS];
+    private final long[] front = new long[WORDS];
+    private final long[] horizontal = new long[WORDS];
+    private final long[] temp1 = new long[WORDS];
+    private final long[] temp2 = new long[WORDS];
+
+    /**
+     * Constructs a new game on a board. Only the mines of the board are copied, so the game starts with
+     * nothing revealed or flagged.
+     * @param layout the board (at most MAX_CELLS tiles)
+     * @param numMines the number of mines
+     */
+    public BitboardGame(BoardState layout, int numMines) {
+        if(layout.getNumCells() > MAX_CELLS) {
+            throw new IllegalArgumentException("A bitboard game supports boards of at most " + MAX_CELLS + " tiles");
+        }
+        this.boardsize = layout.getBoardsize();
+        this.words = (layout.getNumCells() + 63) >>> 6;
+        this.numMines = numMines;
+        this.superMine = layout.getSuperMine();
+        long[] layoutMines = layout.getMines();
+        System.arraycopy(layoutMines, 0, mines, 0, layoutMines.length);
+
+        // The safe tiles that are not next to a mine
+        dilate(mines, temp1);
+        long[] board = BOARD_MASKS[boardsize];
+        for(int w = 0; w < words; w++) {
+            zeros[w] = board[w] & ~temp1[w];
+        }
+    }
+
+    @Override
+    public void AddRevealClick(int row, int col) {
+        attempts++;
+        int cell = row * boardsize + col;
+        if(gameOver || isSet(revealed, cell)) {
+            return;
+        }
+        if(isSet(mines, cell)) {
+            lose();
+            return;
+        }
+        // A tile with adjacent mines opens only itself
+        if(!isSet(zeros, cell)) {
+            if(isSet(flagged, cell)) {
+                flagged[cell >>> 6] &= ~(1L << cell);
+                MarkedTiles--;
+            }
+            revealed[cell >>> 6] |= 1L << cell;
+            numRevealed++;
+            checkIfGameWon();
+            return;
+        }
+        clear(region);
+        region[cell >>> 6] |= 1L << cell;
+        flood(region);
+        checkIfGameWon();
+    }
+
+    @Override
+    public void chordTile(int row, int col) {
+        int cell = row * boardsize + col;
+        if(gameOver || !isSet(revealed, cell) || isSet(mines, cell)) {
+            return;
+        }
+
+        // The hidden tiles around the tile (temp2) and the flags around it
+        clear(temp1);
+        temp1[cell >>> 6] |= 1L << cell;
+        dilate(temp1, temp2);
+        int flags = 0;
+        boolean hidden = false;
+        for(int w = 0; w < words; w++) {
+            flags += Long.bitCount(temp2[w] & flagged[w]);
+            temp2[w] &= ~revealed[w] & ~flagged[w];
+            hidden |= temp2[w] != 0;
+        }
+        if(!hidden || flags != getNumAdjacentMines(row, col)) {
+            return;
+        }
+
+        attempts++;
+
+        // If a flag is wrong, the game is lost. As in GameLogic, whose worklist opens the tiles in reverse row order,
+        // the hidden tiles after the last mine are opened before the mine is hit.
+        for(int w = words - 1; w >= 0; w--) {
+            long hit = temp2[w] & mines[w];
+            if(hit != 0) {
+                int mine = (w << 6) + 63 - Long.numberOfLeadingZeros(hit);
+                for(int v = 0; v < words; v++) {
+                    region[v] = v < w ? 0 : v > w ? temp2[v] : temp2[v] & ~((2L << (mine & 63)) - 1);
+                }
+                flood(region);
+                lose();
+                return;
+            }
+        }
+        System.arraycopy(temp2, 0, region, 0, words);
+        flood(region);
+        checkIfGameWon();
+    }
+
+    @Override
+    public void flagTile(int row, int col) {
+        int cell = row * boardsize + col;
+
+        // If the game is over or the tile is already revealed then do nothing.
+        if(gameOver || isSet(revealed, cell)) {
+            return;
+        }
+        // If the tile is already flagged, then unflag it.
+        if(isSet(flagged, cell)) {
+            flagged[cell >>> 6] &= ~(1L << cell);
+            MarkedTiles--;
+            return;
+        }
+        // We can't use more flags than mines.
+        if(MarkedTiles == numMines) {
+            return;
+        }
+        flagged[cell >>> 6] |= 1L << cell;
+        MarkedTiles++;
+
+        // The supermine rule: reveal the row and the column of the supermine if it is marked within the first 4 attempts
+        if(cell == superMine && attempts < 4 && !flagSuperMine) {
+            flagSuperMine = true;
+            revealSingle(cell);
+            for(int i = 0; i < boardsize; i++) {
+                revealSingle(i * boardsize + col);
+                revealSingle(row * boardsize + i);
+            }
+            checkIfGameWon();
+        }
+    }
+
+    /**
+     * Reveals one tile without flooding (used by the supermine rule). Mines are revealed too, but they are
+     * not counted as revealed tiles. As in GameLogic, the flags of the revealed tiles are removed with their marks,
+     * and the game is checked for a win once, after the whole row and column are revealed.
+     * @param cell the index of the tile
+     */
+    private void revealSingle(int cell) {
+        if(isSet(revealed, cell)) {
+            return;
+        }
+        if(isSet(flagged, cell)) {
+            flagged[cell >>> 6] &= ~(1L << cell);
+            MarkedTiles--;
+        }
+        revealed[cell >>> 6] |= 1L << cell;
+        if(!isSet(mines, cell)) {
+            numRevealed++;
+        }
+    }
+
+    /**
+     * Opens the given tiles and their region: the tiles without adjacent mines open all their neighbours.
+     * The opened tiles are unflagged and revealed. The tiles must be safe and hidden.
+     * @param seeds the tiles to open (it is overwritten with all the opened tiles)
+     */
+    private void flood(long[] seeds) {
+        System.arraycopy(seeds, 0, front, 0, words);
+        while(true) {
+
+            // Dilate the tiles of the last ring that have no adjacent mines
+            boolean any = false;
+            for(int w = 0; w < words; w++) {
+                temp1[w] = front[w] & zeros[w];
+                any |= temp1[w] != 0;
+            }
+            if(!any) {
+                break;
+            }
+            dilate(temp1, temp2);
+
+            // The new ring is made of the hidden tiles that were not opened yet
+            any = false;
+            for(int w = 0; w < words; w++) {
+                front[w] = temp2[w] & ~revealed[w] & ~seeds[w];
+                seeds[w] |= front[w];
+                any |= front[w] != 0;
+            }
+            if(!any) {
+                break;
+            }
+        }
+
+        for(int w = 0; w < words; w++) {
+            MarkedTiles -= Long.bitCount(seeds[w] & flagged[w]);
+            flagged[w] &= ~seeds[w];
+            revealed[w] |= seeds[w];
+            numRevealed += Long.bitCount(seeds[w]);
+        }
+    }
+
+    /**
+     * Computes the tiles of a set and all their neighbours.
+     * @param src the set of tiles
+     * @param dst the dilated set (must be a different array)
+     */
+    private void dilate(long[] src, long[] dst) {
+        long[] notFirstCol = NOT_FIRST_COL[boardsize];
+        long[] notLastCol = NOT_LAST_COL[boardsize];
+        long[] board = BOARD_MASKS[boardsize];
+
+        // Horizontal: the tiles and their left and right neighbours
+        for(int w = 0; w < words; w++) {
+            long right = (src[w] << 1) | (w > 0 ? src[w - 1] >>> 63 : 0);
+            long left = (src[w] >>> 1) | (w < words - 1 ? src[w + 1] << 63 : 0);
+            horizontal[w] = src[w] | (right & notFirstCol[w]) | (left & notLastCol[w]);
+        }
+
+        // Vertical: the rows above and below
+        int k = boardsize;
+        for(int w = 0; w < words; w++) {
+            long down = (horizontal[w] << k) | (w > 0 ? horizontal[w - 1] >>> (64 - k) : 0);
+            long up = (horizontal[w] >>> k) | (w < words - 1 ? horizontal[w + 1] << (64 - k) : 0);
+            dst[w] = (horizontal[w] | down | up) & board[w];
+        }
+    }
+
+    /**
+     * Ends the game as lost and reveals every mine. As in GameLogic, revealing a mine removes its flag
+     * but MarkedTiles is not updated.
+     */
+    private void lose() {
+        for(int w = 0; w < words; w++) {
+            revealed[w] |= mines[w];
+            flagged[w] &= ~mines[w];
+        }
+        gameLost = true;
+        gameOver = true;
+    }
+
+    private void checkIfGameWon() {
+        if(!gameOver && numRevealed + numMines == boardsize * boardsize) {
+            gameWon = true;
+            gameOver = true;
+        }
+    }
+
+    private static boolean isSet(long[] set, int cell) {
+        return (set[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void clear(long[] set) {
+        for(int w = 0; w < words; w++) {
+            set[w] = 0;
+        }
+    }
+
+    /**
+     * Returns count (at most 3) bits of a set, starting from bit start.
+     */
+    private static long bits(long[] set, int start, int count) {
+        int w = start >>> 6;
+        int offset = start & 63;
+        long value = set[w] >>> offset;
+        if(offset + count > 64 && w + 1 < WORDS) {
+            value |= set[w + 1] << (64 - offset);
+        }
+        return value & ((1L << count) - 1);
+    }
+
+    @Override
+    public int getNumAdjacentMines(int row, int col) {
+        int first = Math.max(col - 1, 0);
+        int count = Math.min(col + 1, boardsize - 1) - first + 1;
+        int mineCount = 0;
+        for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1); i++) {
+            mineCount += Long.bitCount(bits(mines, i * boardsize + first, count));
+        }
+        return mineCount;
+    }
+
+    // Getters
+
+    @Override
+    public boolean isRevealed(int row, int col) {
+        return isSet(revealed, row * boardsize + col);
+    }
+
+    @Override
+    public boolean isFlagged(int row, int col) {
+        return isSet(flagged, row * boardsize + col);
+    }
+
+    @Override
+    public boolean isMine(int row, int col) {
+        return isSet(mines, row * boardsize + col);
+    }
+
+    @Override
+    public int getBoardsize() {
+        return boardsize;
+    }
+
+    @Override
+    public int getNumMines() {
+        return numMines;
+    }
+
+    @Override
+    public int getMarkedTiles() {
+        return MarkedTiles;
+    }
+
+    @Override
+    public int getNumRevealed() {
+        return numRevealed;
+    }
+
+    @Override
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public boolean getGameWon() {
+        return gameWon;
+    }
+
+    @Override
+    public boolean getGameLost() {
+        return gameLost;
+    }
+}
@@ -0,0 +1,355 @@
+package application.GameObjects;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import application.ReadScenario.GameDescription;
+
+/**
+ * This class stores a large number of generated boards in a memory-mapped file, e.g. for the training of solvers.
+ * All the boards of an archive have the same size, so every record has the same length (stride) and the record
+ * of board i starts at HEADER_SIZE + i * stride. This allows random access by index and sequential scans that
+ * read the mapped memory directly (see Cursor), without deserializing anything.
+ *
+ * File header (HEADER_SIZE bytes): int magic, int boardsize, int stride, long count
+ * Record: long seed, int difficultyLevel, int numMines, int maxTime, int hasSupermine, int superMine,
+ *         int difficulty, long[] mines (one bit per tile, as in BoardState)
+ * The difficulty is measured by a solver when the board is generated (see Difficulty.pack); it is 0 if the board
+ * was not scored, which is also the value of the unused padding of older archives.
+ *
+ * The file is mapped in segments of 64 MB (a single mapping can't exceed 2 GB) and it grows one segment at a time.
+ * An archive is not thread safe for appends, but each thread can scan it with its own Cursor.
+ */
+public class BoardArchive implements Closeable {
+
+    public static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x4D534241; // "MSBA"
+    private static final int RECORD_HEADER_SIZE = 32;
+    private static final int SEGMENT_BYTES = 1 << 26;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int boardsize;
+    private final int words;
+    private final int stride;
+    private final int recordsPerSegment;
+    private final List<MappedByteBuffer> segments;
+    private final MappedByteBuffer header;
+    private long count;
+
+    /**
+     * Opens an archive. A new archive is created if the file doesn't exist (only when writable is true).
+     * @param path the path of the archive's file
+     * @param boardsize the size of the boards (it must match the size of an existing archive)
+     * @param writable true to append boards, false to only read them
+     * @throws IOException if an I/O error occurs or the file is not a valid archive
+     */
+    public BoardArchive(Path path, int boardsize, boolean writable) throws IOException {
+        this.writable = writable;
+        this.channel = writable
+            ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : FileChannel.open(path, StandardOpenOption.READ);
+        this.boardsize = boardsize;
+        this.words = (boardsize * boardsize + 63) >>> 6;
+        this.stride = RECORD_HEADER_SIZE + 8 * words;
+        this.recordsPerSegment = SEGMENT_BYTES / stride;
+        this.segments = new ArrayList<>();
+
+        boolean isNew = channel.size() == 0;
+        if(isNew && !writable) {
+            throw new IOException("Empty board archive");
+        }
+        this.header = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if(isNew) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, boardsize);
+            header.putInt(8, stride);
+            header.putLong(12, 0);
+        }
+        else if(header.getInt(0) != MAGIC || header.getInt(4) != boardsize || header.getInt(8) != stride) {
+            throw new IOException("Invalid board archive or different board size");
+        }
+        this.count = header.getLong(12);
+    }
+
+    /**
+     * Returns the mapped segment that contains a record, mapping it (and growing the file) if needed.
+     * @param index the index of the record
+     * @return the segment of the record
+     * @throws IOException if an I/O error occurs
+     */
+    private synchronized MappedByteBuffer segmentOf(long index) throws IOException {
+        int segment = (int) (index / recordsPerSegment);
+        while(segments.size() <= segment) {
+            long start = HEADER_SIZE + (long) segments.size() * recordsPerSegment * stride;
+            long length = (long) recordsPerSegment * stride;
+            if(!writable) {
+                length = Math.min(length, channel.size() - start);
+            }
+            segments.add(channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, start, length));
+        }
+        return segments.get(segment);
+    }
+
+    /**
+     * Returns the position of a record inside its segment.
+     * @param index the index of the record
+     * @return the offset of the record in its segment
+     */
+    private int offsetOf(long index) {
+        return (int) (index % recordsPerSegment) * stride;
+    }
+
+    /**
+     * Appends a board that was not scored to the archive.
+     * @param state the board (only its mines are stored)
+     * @param seed the seed of the board
+     * @param description the scenario of the board
+     * @return the index of the board in the archive
+     * @throws IOException if an I/O error occurs
+     */
+    public long append(BoardState state, long seed, GameDescription description) throws IOException {
+        return append(state, seed, description, 0);
+    }
+
+    /**
+     * Appends a board to the archive with its difficulty.
+     * @param state the board (only its mines are stored)
+     * @param seed the seed of the board
+     * @param description the scenario of the board
+     * @param difficulty the packed difficulty of the board (see Difficulty.pack), 0 if it was not scored
+     * @return the index of the board in the archive
+     * @throws IOException if an I/O error occurs
+     */
+    public long append(BoardState state, long seed, GameDescription description, int difficulty) throws IOException {
+        if(state.getBoardsize() != boardsize) {
+            throw new IllegalArgumentException("The archive stores boards of size " + boardsize);
+        }
+        long index = count;
+        ByteBuffer segment = segmentOf(index);
+        int offset = offsetOf(index);
+        segment.putLong(offset, seed);
+        segment.putInt(offset + 8, description.getDifficultyLevel());
+        segment.putInt(offset + 12, description.getNumMines());
+        segment.putInt(offset + 16, description.getMaxTime());
+        segment.putInt(offset + 20, description.getHasSupermine() ? 1 : 0);
+        segment.putInt(offset + 24, state.getSuperMine());
+        segment.putInt(offset + 28, difficulty);
+        long[] mines = state.getMines();
+        for(int w = 0; w < words; w++) {
+            segment.putLong(offset + RECORD_HEADER_SIZE + 8 * w, mines[w]);
+        }
+        count++;
+        header.putLong(12, count);
+        return index;
+    }
+
+    /**
+     * Reads the board with the given index.
+     * @param index the index of the board
+     * @return the board, with nothing revealed or flagged
+     * @throws IOException if an I/O error occurs
+     */
+    public BoardState get(long index) throws IOException {
+        Cursor cursor = cursor();
+        cursor.seek(index);
+        return cursor.toBoardState();
+    }
+
+    /**
+     * Returns a new cursor, positioned before the first board.
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Writes the changes of the mapped memory to the disk.
+     */
+    public void force() {
+        header.force();
+        if(writable) {
+            for(MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(writable) {
+            force();
+        }
+        channel.close();
+    }
+
+    // Getters
+
+    /**
+     * Returns the number of boards in the archive.
+     * @return the number of boards
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Returns the size of the boards of the archive.
+     * @return the size of the boards
+     */
+    public int getBoardsize() {
+        return boardsize;
+    }
+
+    /**
+     * A cursor reads the records of the archive directly from the mapped memory. It is a flyweight:
+     * moving it to another record costs O(1) and reading a field reads the mapped memory, so scanning
+     * millions of boards creates no objects.
+     */
+    public class Cursor {
+
+        private long index = -1;
+        private ByteBuffer segment;
+        private int offset;
+
+        /**
+         * Moves the cursor to the next board.
+         * @return true if there is a next board, false at the end of the archive
+         * @throws IOException if an I/O error occurs
+         */
+        public boolean next() throws IOException {
+            if(index + 1 >= count) {
+                return false;
+            }
+            seek(index + 1);
+            return true;
+        }
+
+        /**
+         * Moves the cursor to the board with the given index.
+         * @param index the index of the board
+         * @throws IOException if an I/O error occurs
+         */
+        public void seek(long index) throws IOException {
+            if(index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Board " + index + " is out of range 0-" + (count - 1));
+            }
+            this.index = index;
+            this.segment = segmentOf(index);
+            this.offset = offsetOf(index);
+        }
+
+        /**
+         * Returns the index of the current board.
+         * @return the index of the board
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the seed of the current board.
+         * @return the seed of the board
+         */
+        public long getSeed() {
+            return segment.getLong(offset);
+        }
+
+        /**
+         * Returns the difficulty level of the current board's scenario.
+         * @return the difficulty level
+         */
+        public int getDifficultyLevel() {
+            return segment.getInt(offset + 8);
+        }
+
+        /**
+         * Returns the number of mines of the current board's scenario.
+         * @return the number of mines
+         */
+        public int getNumMines() {
+            return segment.getInt(offset + 12);
+        }
+
+        /**
+         * Returns the maximum time of the current board's scenario.
+         * @return the maximum time
+         */
+        public int getMaxTime() {
+            return segment.getInt(offset + 16);
+        }
+
+        /**
+         * Returns whether the current board's scenario has a supermine.
+         * @return true if the scenario has a supermine
+         */
+        public boolean getHasSupermine() {
+            return segment.getInt(offset + 20) == 1;
+        }
+
+        /**
+         * Returns the index of the supermine of the current board.
+         * @return the index of the supermine or -1 if there isn't one
+         */
+        public int getSuperMine() {
+            return segment.getInt(offset + 24);
+        }
+
+        /**
+         * Returns the difficulty of the current board, as measured when it was generated.
+         * @return the packed difficulty (see Difficulty.pack), 0 if the board was not scored
+         */
+        public int getDifficulty() {
+            return segment.getInt(offset + 28);
+        }
+
+        /**
+         * Returns whether tile (row, col) of the current board contains a mine or the supermine.
+         * @param row the row of the tile
+         * @param col the column of the tile
+         * @return true if the tile contains a mine
+         */
+        public boolean isMine(int row, int col) {
+            int cell = row * boardsize + col;
+            return (getMineWord(cell >>> 6) & (1L << cell)) != 0;
+        }
+
+        /**
+         * Returns a word of the mines bitset of the current board.
+         * @param w the index of the word
+         * @return the 64 bits of the word
+         */
+        public long getMineWord(int w) {
+            return segment.getLong(offset + RECORD_HEADER_SIZE + 8 * w);
+        }
+
+        /**
+         * Returns a read-only view of the mines bitset of the current board, without copying it.
+         * @return the mines bitset
+         */
+        public LongBuffer getMines() {
+            return segment.duplicate().position(offset + RECORD_HEADER_SIZE).limit(offset + stride)
+                          .slice().asLongBuffer().asReadOnlyBuffer();
+        }
+
+        /**
+         * Copies the current board to a new BoardState.
+         * @return the board, with nothing revealed or flagged
+         */
+        public BoardState toBoardState() {
+            long[] mines = new long[words];
+            getMines().get(mines);
+            return new BoardState(boardsize, mines, new long[words], new long[words], getSuperMine());
+        }
+    }
+}
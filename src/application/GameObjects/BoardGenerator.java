@@ -1,14 +1,19 @@
 package application.GameObjects;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Random;
+import java.util.function.ToIntFunction;
+
+import application.Metrics.BoardGenerationEvent;
+import application.Metrics.EngineMetrics;
+import application.ReadScenario.GameDescription;
 
 
 /**
  * The BoardGenerator class is responsible for generating the board of the game randomly,
  * based on the data in the scenario. It also writes the location and type of the mines in
- * the board to a file called mines.txt.
+ * the board to a file called mines.txt and to an archive of the layouts of all games.
 */
 public class BoardGenerator {
 
@@ -18,54 +23,107 @@ public class BoardGenerator {
 
     // Instance variables
     private Tile[][] board;
+    private BoardState state;
     private int boardSize;
     private int numMines;
     private boolean HasSupermine;
+    private long seed;
+    private final Random rand = new Random();
+    private MineExporter exporter;
 
     /**
-     * Constructor for BoardGenerator.
+     * Constructor for BoardGenerator. The seed of the board is picked randomly.
      * 
      * @param difficultyLevel the difficulty level of the game (1 or 2).
      * @param numMines        the number of mines to place on the board.
      * @param hasSupermine    whether or not the board has a supermine.
      */
     public BoardGenerator(int difficultyLevel, int numMines, boolean HasSupermine) {
+        this(difficultyLevel, numMines, HasSupermine, new Random().nextLong());
+    }
+
+    /**
+     * Constructor for BoardGenerator. Generators with the same arguments always generate the same board,
+     * so a game can be reconstructed from its seed (see GameReplay).
+     * 
+     * @param difficultyLevel the difficulty level of the game (1 or 2).
+     * @param numMines        the number of mines to place on the board.
+     * @param hasSupermine    whether or not the board has a supermine.
+     * @param seed            the seed of the random number generator that places the mines.
+     */
+    public BoardGenerator(int difficultyLevel, int numMines, boolean HasSupermine, long seed) {
         
         this.boardSize = ( (difficultyLevel == 1) ? 9 : 16 );
         this.numMines = numMines;
         this.HasSupermine = HasSupermine;
-        this.board = new Tile[boardSize][boardSize]; 
+        this.seed = seed;
+    }
 
-        // Initialize the board with 0's
-        for(int i = 0; i < boardSize; i++) {
-            for(int j = 0; j < boardSize; j++) {
-                this.board[i][j] = new Tile(i, j, 0);
-            }
-        }
+    /**
+     * Changes the scenario and the seed of the generator, so it can be reused for the next game.
+     * 
+     * @param difficultyLevel the difficulty level of the game (1 or 2).
+     * @param numMines        the number of mines to place on the board.
+     * @param hasSupermine    whether or not the board has a supermine.
+     * @param seed            the seed of the random number generator that places the mines.
+     */
+    public void reset(int difficultyLevel, int numMines, boolean HasSupermine, long seed) {
+        this.boardSize = ( (difficultyLevel == 1) ? 9 : 16 );
+        this.numMines = numMines;
+        this.HasSupermine = HasSupermine;
+        this.seed = seed;
     }
 
     /**
-     * Generates the game board based on the scenario's data.
+     * Creates a BoardGenerator for a board of any size (not only the 9x9 and 16x16 boards of the scenarios).
+     * It is used by the headless simulations of very large boards.
      * 
-     * @return the generated board as a 2D array of tiles.
+     * @param boardSize    the number of rows (and columns) of the board.
+     * @param numMines     the number of mines to place on the board.
+     * @param hasSupermine whether or not the board has a supermine.
+     * @param seed         the seed of the random number generator that places the mines.
+     * @return the new BoardGenerator.
      */
-    public Tile[][] GenerateBoard() {
+    public static BoardGenerator ofSize(int boardSize, int numMines, boolean hasSupermine, long seed) {
+        BoardGenerator boardGenerator = new BoardGenerator(1, numMines, hasSupermine, seed);
+        boardGenerator.boardSize = boardSize;
+        return boardGenerator;
+    }
+
+    /**
+     * Generates the layout of the mines based on the scenario's data, without creating any tiles.
+     * It is used by the headless games (simulations, replays).
+     * 
+     * @return the generated board state.
+     */
+    public BoardState GenerateLayout() {
+        state = new BoardState(boardSize);
+        placeMines();
+        return state;
+    }
+
+    /**
+     * Places the mines of the scenario on the (empty) board state.
+     */
+    private void placeMines() {
 
         /*
-         *  Board is a 2D array of tiles where:
-         *      board[x][y].getValue() = 0  => not mine
-         *      board[x][y].getValue() = -1 => mine
-         *      board[x][y].getValue() = -2 => supermine 
+         *  The board state holds the value of each tile where:
+         *      state.getValue(x, y) = 0  => not mine
+         *      state.getValue(x, y) = -1 => mine
+         *      state.getValue(x, y) = -2 => supermine 
          */
 
-        Random rand = new Random();
+        BoardGenerationEvent event = EngineMetrics.ENABLED ? EngineMetrics.beginGeneration() : null;
+        long startTime = EngineMetrics.ENABLED ? System.nanoTime() : 0;
+        rand.setSeed(seed);
         int numPlacedMines = 0;
 
         // If superMine exists, then pick a random location to place the superMine
         if(HasSupermine) {
             int x = rand.nextInt(boardSize);
             int y = rand.nextInt(boardSize);
-            board[x][y].setValue(SUPER_MINE);
+            state.setValue(x, y, SUPER_MINE);
             numPlacedMines++;
         }
 
@@ -74,22 +132,128 @@ public class BoardGenerator {
             int x = rand.nextInt(boardSize);
             int y = rand.nextInt(boardSize);
 
-            // check if there is not mine or superMine in board[x][y] (i.e check if board[x][y].getValue() == 0)
-            if(board[x][y].getValue() == 0) {
-                board[x][y].setValue(MINE);
+            // check if there is not mine or superMine in (x, y) (i.e check if state.getValue(x, y) == 0)
+            if(state.getValue(x, y) == 0) {
+                state.setValue(x, y, MINE);
                 numPlacedMines++;
             }
         }
+
+        if(EngineMetrics.ENABLED) {
+            EngineMetrics.recordGeneration(event, boardSize, numMines, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Computes the numbers of the generated layout: the number of adjacent mines of every tile (see AdjacencyPlane).
+     * It is the setup of the very large boards of the stress scenarios, which have no tiles.
+     * 
+     * @return the numbers plane (index row * boardSize + col).
+     */
+    public byte[] GenerateNumbers() {
+        if(state == null) {
+            GenerateLayout();
+        }
+        return AdjacencyPlane.compute(state);
+    }
+
+    /**
+     * Generates the game board based on the scenario's data.
+     * 
+     * @return the generated board as a 2D array of tiles.
+     */
+    public Tile[][] GenerateBoard() {
+        board = BuildBoard(GenerateLayout());
+        return board;
+    }
+
+    /**
+     * Generates the game board in an existing board of tiles: its tiles are reset with the new mines instead of
+     * creating new ones, and the generator reuses its board state. A new board is created only if the existing
+     * one is missing or has a different size.
+     * 
+     * @param tiles the board of the previous game (or null).
+     * @return the generated board as a 2D array of tiles.
+     */
+    public Tile[][] GenerateBoard(Tile[][] tiles) {
+        if(tiles == null || tiles.length != boardSize) {
+            return GenerateBoard();
+        }
+        if(state == null || state.getBoardsize() != boardSize) {
+            state = new BoardState(boardSize);
+        }
+        else {
+            state.clear();
+        }
+        placeMines();
+        for(int i = 0; i < boardSize; i++) {
+            for(int j = 0; j < boardSize; j++) {
+                tiles[i][j].reset(state.getValue(i, j));
+            }
+        }
+        board = tiles;
         return board;
     }
 
+    /**
+     * Creates a board of tiles from a board state. It is used to display a game that was restored from a snapshot.
+     * 
+     * @param state the state of the board.
+     * @return the board as a 2D array of tiles.
+     */
+    public static Tile[][] BuildBoard(BoardState state) {
+        int size = state.getBoardsize();
+        Tile[][] tiles = new Tile[size][size];
+        for(int i = 0; i < size; i++) {
+            for(int j = 0; j < size; j++) {
+                tiles[i][j] = new Tile(i, j, state.getValue(i, j));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Generates many boards of the same scenario and appends them to an archive (e.g. for the training of solvers).
+     * The boards get the consecutive seeds firstSeed, firstSeed + 1, ..., so each of them can also be regenerated.
+     * 
+     * @param description the scenario of the boards.
+     * @param firstSeed   the seed of the first board.
+     * @param count       the number of boards to generate.
+     * @param archive     the archive where the boards are stored.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void GenerateArchive(GameDescription description, long firstSeed, int count, BoardArchive archive) throws IOException {
+        GenerateArchive(description, firstSeed, count, archive, null);
+    }
+
+    /**
+     * Generates many boards of the same scenario, scores each of them as it is generated and appends them to an
+     * archive with their score, so the boards can be selected by their difficulty (see DifficultyEstimator).
+     * 
+     * @param description the scenario of the boards.
+     * @param firstSeed   the seed of the first board.
+     * @param count       the number of boards to generate.
+     * @param archive     the archive where the boards are stored.
+     * @param scorer      returns the packed difficulty of a board (see Difficulty.pack), or null to not score them.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void GenerateArchive(GameDescription description, long firstSeed, int count, BoardArchive archive,
+                                       ToIntFunction<BoardState> scorer) throws IOException {
+        for(int i = 0; i < count; i++) {
+            BoardGenerator boardGenerator = new BoardGenerator(description.getDifficultyLevel(), description.getNumMines(),
+                                                               description.getHasSupermine(), firstSeed + i);
+            BoardState layout = boardGenerator.GenerateLayout();
+            archive.append(layout, firstSeed + i, description, scorer != null ? scorer.applyAsInt(layout) : 0);
+        }
+    }
+
     /**
      * Method to display the current state of the game board. This method is primarily used for testing purposes.
      */
     public void BoardPrinter() {
         for(int i = 0; i < boardSize; i++) {
             for(int j = 0; j < boardSize; j++) {
-                System.out.print(board[i][j].getValue() + " ");
+                System.out.print(state.getValue(i, j) + " ");
             }
             System.out.println();
         }
@@ -97,22 +261,44 @@ public class BoardGenerator {
 
     /**
      * Function that writes the positions of mines (and the supermine, if it exists) to a file called "mines.txt" 
-     * located in the "./mines" directory. 
+     * located in the "./mines" directory. The layout is also appended to the archive of all the games' layouts
+     * in the same directory (see MineExporter). The exporter is opened by the first call and reused for the
+     * layouts of the next games, until closeExporter is called.
      */
     public void MineRecorder() {
         try {
-            FileWriter fw = new FileWriter("./mines/mines.txt");
-            for(int i = 0; i < boardSize; i++) {
-                for(int j = 0; j < boardSize; j++) {
-                    if(board[i][j].getValue() != 0) {
-                        int isSupermine = (board[i][j].getValue() == SUPER_MINE) ? 1 : 0;
-                        fw.write(i + "," + j + "," + isSupermine + "\n");
-                    }
-                }
+            if(exporter == null) {
+                exporter = new MineExporter(Paths.get("mines"));
             }
-            fw.close();
+            exporter.writeText(state, Paths.get("mines", "mines.txt"));
+            exporter.append(state, seed, MineExporter.BINARY);
+            // The archive is complete after every game, even if the application doesn't exit normally
+            exporter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the exporter of MineRecorder, if it was opened. A later call to MineRecorder opens it again.
+     */
+    public void closeExporter() {
+        if(exporter == null) {
+            return;
+        }
+        try {
+            exporter.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        exporter = null;
+    }
+
+    /**
+     * Returns the seed of the generated board.
+     * @return the seed of the board
+     */
+    public long getSeed() {
+        return seed;
     }
 }
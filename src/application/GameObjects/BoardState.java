@@ -0,0 +1,366 @@
+package application.GameObjects;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the state of a game board in a compact form, without any JavaFX objects.
+ * The mines, the revealed tiles and the flagged tiles are stored as bitsets (one bit per tile),
+ * where tile (row, col) corresponds to the bit with index row * boardsize + col.
+ * The supermine (if it exists) is part of the mines bitset and its index is stored separately.
+ * The indices of the mines are also listed in a mine index (see getMineIndex), so that the mines can be visited
+ * in O(number of mines) instead of O(number of tiles).
+ *
+ * A BoardState can be forked in O(1): the fork shares the bitsets with the original one and
+ * each of them copies an array only the first time it modifies it (copy-on-write).
+ * This way a solver can create thousands of hypothetical states without copying whole boards.
+ */
+public class BoardState {
+
+    public static final int MINE = -1;
+    public static final int SUPER_MINE = -2;
+
+    /**
+     * boardsize        -> The size of the board (number of rows and columns)
+     * numCells         -> The total number of tiles (boardsize * boardsize)
+     * mines            -> Bitset of the tiles that contain a mine or the supermine
+     * revealed         -> Bitset of the revealed tiles
+     * flagged          -> Bitset of the flagged tiles
+     * superMine        -> Index of the supermine or -1 if there isn't one
+     * sharedMines      -> True if the mines array is shared with another BoardState (copy-on-write)
+     * sharedRevealed   -> True if the revealed array is shared with another BoardState (copy-on-write)
+     * sharedFlagged    -> True if the flagged array is shared with another BoardState (copy-on-write)
+     * mineIndex        -> The indices of the mines in increasing order (null until getMineIndex computes it)
+     */
+
+    private final int boardsize;
+    private final int numCells;
+    private long[] mines;
+    private long[] revealed;
+    private long[] flagged;
+    private int superMine;
+    private boolean sharedMines;
+    private boolean sharedRevealed;
+    private boolean sharedFlagged;
+    private int[] mineIndex;
+
+    /**
+     * Constructs an empty board (no mines, nothing revealed or flagged).
+     * @param boardsize the number of rows (and columns) of the board
+     */
+    public BoardState(int boardsize) {
+        this.boardsize = boardsize;
+        this.numCells = boardsize * boardsize;
+        int words = (numCells + 63) >>> 6;
+        this.mines = new long[words];
+        this.revealed = new long[words];
+        this.flagged = new long[words];
+        this.superMine = -1;
+    }
+
+    /**
+     * Constructs a board from already existing bitsets. The arrays are used as they are (not copied).
+     * @param boardsize the number of rows (and columns) of the board
+     * @param mines the mines bitset
+     * @param revealed the revealed tiles bitset
+     * @param flagged the flagged tiles bitset
+     * @param superMine the index of the supermine or -1
+     */
+    BoardState(int boardsize, long[] mines, long[] revealed, long[] flagged, int superMine) {
+        this.boardsize = boardsize;
+        this.numCells = boardsize * boardsize;
+        this.mines = mines;
+        this.revealed = revealed;
+        this.flagged = flagged;
+        this.superMine = superMine;
+    }
+
+    /**
+     * Creates a copy of this board in O(1). Both boards share their bitsets until one of them
+     * modifies an array, in which case only that array is copied.
+     * @return the new BoardState
+     */
+    public BoardState fork() {
+        BoardState copy = new BoardState(boardsize, mines, revealed, flagged, superMine);
+        // The mine index is never modified, so it is shared too
+        copy.mineIndex = mineIndex;
+        copy.sharedMines = copy.sharedRevealed = copy.sharedFlagged = true;
+        this.sharedMines = this.sharedRevealed = this.sharedFlagged = true;
+        return copy;
+    }
+
+    /**
+     * Removes every mine, revealed tile and flag, so the board can be reused for a new game of the same size.
+     * The bitsets are cleared in place, except the ones that are still shared with a fork.
+     */
+    public void clear() {
+        Arrays.fill(writableMines(), 0);
+        Arrays.fill(writableRevealed(), 0);
+        Arrays.fill(writableFlagged(), 0);
+        superMine = -1;
+        mineIndex = null;
+    }
+
+    /**
+     * Returns the index of tile (row, col) in the bitsets.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the index of the tile
+     */
+    public int index(int row, int col) {
+        return row * boardsize + col;
+    }
+
+    // Bit helpers
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index, boolean value) {
+        if(value) {
+            bits[index >>> 6] |= (1L << index);
+        }
+        else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private long[] writableMines() {
+        if(sharedMines) {
+            mines = mines.clone();
+            sharedMines = false;
+        }
+        return mines;
+    }
+
+    private long[] writableRevealed() {
+        if(sharedRevealed) {
+            revealed = revealed.clone();
+            sharedRevealed = false;
+        }
+        return revealed;
+    }
+
+    private long[] writableFlagged() {
+        if(sharedFlagged) {
+            flagged = flagged.clone();
+            sharedFlagged = false;
+        }
+        return flagged;
+    }
+
+    // Tile access
+
+    /**
+     * Returns the value of a tile, using the same encoding as Tile.getValue().
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return -2 for the supermine, -1 for a mine and 0 otherwise
+     */
+    public int getValue(int row, int col) {
+        int index = index(row, col);
+        if(index == superMine) {
+            return SUPER_MINE;
+        }
+        return get(mines, index) ? MINE : 0;
+    }
+
+    /**
+     * Sets the value of a tile (-2 for the supermine, -1 for a mine and 0 otherwise).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param value the new value of the tile
+     */
+    public void setValue(int row, int col, int value) {
+        int index = index(row, col);
+        if(index == superMine) {
+            superMine = -1;
+        }
+        if(value == SUPER_MINE) {
+            superMine = index;
+        }
+        set(writableMines(), index, value == MINE || value == SUPER_MINE);
+        mineIndex = null;
+    }
+
+    /**
+     * Returns whether tile (row, col) contains a mine or the supermine.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return true if the tile contains a mine or the supermine
+     */
+    public boolean isMine(int row, int col) {
+        return get(mines, index(row, col));
+    }
+
+    /**
+     * Returns whether tile (row, col) is revealed.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return true if the tile is revealed
+     */
+    public boolean isRevealed(int row, int col) {
+        return get(revealed, index(row, col));
+    }
+
+    /**
+     * Returns whether tile (row, col) is flagged.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return true if the tile is flagged
+     */
+    public boolean isFlagged(int row, int col) {
+        return get(flagged, index(row, col));
+    }
+
+    /**
+     * Reveals tile (row, col). Like Tile.reveal(), a revealed tile can't be flagged, so its flag is removed.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     */
+    public void reveal(int row, int col) {
+        int index = index(row, col);
+        set(writableRevealed(), index, true);
+        if(get(flagged, index)) {
+            set(writableFlagged(), index, false);
+        }
+    }
+
+    /**
+     * Sets the revealed status of tile (row, col) without touching its flag.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param value true to mark the tile as revealed, false to hide it
+     */
+    public void setRevealed(int row, int col, boolean value) {
+        set(writableRevealed(), index(row, col), value);
+    }
+
+    /**
+     * Sets the flagged status of tile (row, col).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param value true to flag the tile, false to unflag it
+     */
+    public void setFlagged(int row, int col, boolean value) {
+        set(writableFlagged(), index(row, col), value);
+    }
+
+    /**
+     * Returns the number of mines (and supermine) around tile (row, col).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the number of adjacent mines
+     */
+    public int getNumAdjacentMines(int row, int col) {
+        int mineCount = 0;
+        for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1); i++) {
+            for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                if(get(mines, i * boardsize + j)) {
+                    mineCount++;
+                }
+            }
+        }
+        return mineCount;
+    }
+
+    /**
+     * Returns the number of mines (and supermine) of the board.
+     * @return the number of mines
+     */
+    public int countMines() {
+        int count = 0;
+        for(long word : mines) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the indices of the tiles that contain a mine or the supermine, in increasing order. The index is
+     * computed from the mines bitset the first time it is needed (in O(number of tiles / 64 + number of mines))
+     * and kept until a mine changes, so visiting the mines of a game costs O(number of mines).
+     * The array is shared with the forks of the board, so it must not be modified.
+     * @return the indices of the mines
+     */
+    int[] getMineIndex() {
+        if(mineIndex == null) {
+            int[] index = new int[countMines()];
+            int size = 0;
+            for(int w = 0; w < mines.length; w++) {
+                for(long word = mines[w]; word != 0; word &= word - 1) {
+                    index[size++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            mineIndex = index;
+        }
+        return mineIndex;
+    }
+
+    // Getters
+
+    /**
+     * Returns the size of the board.
+     * @return the size of the board
+     */
+    public int getBoardsize() {
+        return boardsize;
+    }
+
+    /**
+     * Returns the total number of tiles.
+     * @return the total number of tiles
+     */
+    public int getNumCells() {
+        return numCells;
+    }
+
+    /**
+     * Returns the index of the supermine.
+     * @return the index of the supermine or -1 if there isn't one
+     */
+    public int getSuperMine() {
+        return superMine;
+    }
+
+    /**
+     * Returns the mines bitset. The array must not be modified.
+     * @return the mines bitset
+     */
+    long[] getMines() {
+        return mines;
+    }
+
+    /**
+     * Returns the revealed tiles bitset. The array must not be modified.
+     * @return the revealed tiles bitset
+     */
+    long[] getRevealed() {
+        return revealed;
+    }
+
+    /**
+     * Returns the flagged tiles bitset. The array must not be modified.
+     * @return the flagged tiles bitset
+     */
+    long[] getFlagged() {
+        return flagged;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof BoardState)) {
+            return false;
+        }
+        BoardState other = (BoardState) obj;
+        return boardsize == other.boardsize && superMine == other.superMine
+            && Arrays.equals(mines, other.mines)
+            && Arrays.equals(revealed, other.revealed)
+            && Arrays.equals(flagged, other.flagged);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(mines) + Arrays.hashCode(revealed) + 17 * Arrays.hashCode(flagged);
+    }
+}
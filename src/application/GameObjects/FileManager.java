@@ -1,83 +1,126 @@
 package application.GameObjects;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+
+import application.Metrics.EngineMetrics;
+import application.Metrics.PersistenceEvent;
 
 /**
  * This class handles file management for the game's rounds data.
  * It creates and writes data to text files in the "rounds" directory.
- * Each round's data includes the total number of mines, number of attempts, maximum time available, and winner.
- * If there are less than five files, it creates a new one and writes the data to it. If there are five files,
- * it finds the oldest file based on the last modified timestamp and overwrites it with the latest round's data.
+ * Each round's data includes the total number of mines, number of attempts, the 3BV of the board (minimum number of
+ * left clicks), maximum time available, and winner. The efficiency of a won round (3BV / attempts) is also reported.
+ * Every round gets the next number of a sequence and the last five rounds are kept in five files, so the sixth round
+ * overwrites the file of the first one. The rounds are stored crash-safely through a write-ahead log, which is
+ * recovered when it is first used (see RoundLog).
 */
 public class FileManager {
 
-    private static final int MAX_ROUNDS = 5;
-    private static final String FILE_PREFIX = "round-";
-    private static final String FILE_EXTENSION = ".txt";
+    private static final Path ROUNDS_DIR = Paths.get("rounds");
+
+    private static RoundLog log;    // Opened (and recovered) when it is first used
 
     /**
-     * Creates the "rounds" directory if it does not exist.
-     * If there are less than five files, it creates a new one and writes the current round's data to it.
-     * If there are five files, it finds the oldest file based on the last modified timestamp and overwrites it
-     * with the latest round's data.
+     * Writes the current round's data to the file of the oldest of the last five rounds (or to a new file, if there
+     * are less than five) in the "rounds" directory, which is created if it does not exist.
+     * The moves of the round are stored next to it, in a file with the same name and the extension ".journal".
+     * The round is also appended to the round history, which keeps every round (see RoundHistory).
+     * When this method returns, the round is durable, even if the application crashes right after it.
      *
      * @param numMines      the total number of mines in the current round
      * @param attempts      the number of attempts (left clicks) in the current round
-     * @param totalGameTime the total game time in seconds for the current round
+     * @param threeBV       the 3BV (minimum number of left clicks) of the current round's board
+     * @param totalGameTime the total game time in milliseconds for the current round
      * @param winner        the winner of the current round
+     * @param journal       the moves of the current round (null if they were not recorded)
+     * @param scenarioId    the ID of the current round's scenario (null if it is unknown)
      * @throws IOException if an I/O error occurs
      */
-    public static void writeCurrentRound(int numMines, int attempts, long totalGameTime, String winner) throws IOException {
+    public static synchronized void writeCurrentRound(int numMines, int attempts, int threeBV, long totalGameTime, String winner, MoveJournal journal,
+                                                      String scenarioId) throws IOException {
+
+        PersistenceEvent event = EngineMetrics.ENABLED ? EngineMetrics.beginPersistence() : null;
+        long startTime = EngineMetrics.ENABLED ? System.nanoTime() : 0;
 
-        // Create a directory named "rounds" (in case it doesn't exist)
-        Path roundsDirPath = Paths.get("rounds");
-        if (!Files.exists(roundsDirPath)) {
-            Files.createDirectory(roundsDirPath);
+        // The record of the round in the history (the seed of the board is known only if the moves were recorded)
+        RoundRecord record = new RoundRecord(System.currentTimeMillis(), numMines, attempts, threeBV, totalGameTime, winner,
+                                             scenarioId, journal != null, journal != null ? journal.getSeed() : 0);
+        byte[] round = formatRound(numMines, attempts, threeBV, totalGameTime, winner).getBytes(StandardCharsets.UTF_8);
+        log().append(round, journal != null ? journal.toBytes() : null, record);
+
+        if (EngineMetrics.ENABLED) {
+            EngineMetrics.recordPersistence(event, winner, System.nanoTime() - startTime);
         }
+    }
 
-        // Obtain each file under folder "rounds" and sort them according to the last modified timestamp
-        File[] roundFiles = roundsDirPath.toFile().listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXTENSION));
-        List<File> sortedFiles = Arrays.asList(roundFiles);
-        sortedFiles.sort(Comparator.comparing(File::lastModified));
+    /**
+     * Opens and recovers the rounds log, if it is not open yet. It is called on a background thread when the
+     * application starts, so the first round doesn't wait for it.
+     * @throws IOException if an I/O error occurs
+     */
+    public static synchronized void recover() throws IOException {
+        log();
+    }
 
-        // If there are less than 5 files, then create a new one.
-        if (sortedFiles.size() < MAX_ROUNDS) {
-            int newFileId = sortedFiles.size() + 1;
-            String newFileName = FILE_PREFIX + newFileId + FILE_EXTENSION;
-            Path newFilePath = roundsDirPath.resolve(newFileName);
-            writeRoundFile(newFilePath, numMines, attempts, totalGameTime, winner);
-        } else {
-            // Otherwise, find the oldest one and overwrite it.
-            File oldestFile = sortedFiles.get(0);
-            writeRoundFile(oldestFile.toPath(), numMines, attempts, totalGameTime, winner);
+    /**
+     * Returns the files of the last five rounds, from the oldest to the latest.
+     * @return the paths of the round files
+     * @throws IOException if an I/O error occurs
+     */
+    public static synchronized List<Path> getRoundFiles() throws IOException {
+        if (!Files.exists(ROUNDS_DIR)) {
+            return Collections.emptyList();
         }
+        return log().getRoundFiles();
+    }
+
+    private static RoundLog log() throws IOException {
+        if (log == null) {
+            log = new RoundLog(ROUNDS_DIR);
+        }
+        return log;
+    }
+
+    /**
+     * Returns the path of the journal (the recorded moves) of a round.
+     *
+     * @param roundFilePath the path of the round's file
+     * @return the path of the round's journal
+     */
+    public static Path getJournalPath(Path roundFilePath) {
+        String fileName = roundFilePath.getFileName().toString();
+        String baseName = fileName.substring(0, fileName.length() - RoundLog.FILE_EXTENSION.length());
+        return roundFilePath.resolveSibling(baseName + RoundLog.JOURNAL_EXTENSION);
     }
 
     /**
-     * Overwrites the file at the given path with the current round's data.
+     * Formats the current round's data as it is written to its file.
      *
-     * @param FilePath      the path of the file to write the data to
      * @param numMines      the total number of mines in the current round
      * @param attempts      the number of attempts (left clicks) in the current round
-     * @param totalGameTime the total game time in seconds for the current round
+     * @param threeBV       the 3BV (minimum number of left clicks) of the current round's board
+     * @param totalGameTime the total game time in milliseconds for the current round
      * @param winner        the winner of the current round
-     * @throws IOException if an I/O error occurs
+     * @return the contents of the round's file
      */
-    private static void writeRoundFile(Path FilePath, int numMines, int attempts, long totalGameTime, String winner) throws IOException {
-        try (FileWriter writer = new FileWriter(FilePath.toFile())) {
-            writer.write("Total number of mines: " + numMines + ".\n");
-            writer.write("Total number of attempts (left clicks): " + attempts + ".\n");
-            writer.write("Total game time: " + totalGameTime + " secs.\n");
-            writer.write("Winner: " + winner + ".\n");
+    private static String formatRound(int numMines, int attempts, int threeBV, long totalGameTime, String winner) {
+        StringBuilder round = new StringBuilder();
+        round.append("Total number of mines: " + numMines + ".\n");
+        round.append("Total number of attempts (left clicks): " + attempts + ".\n");
+        round.append("3BV (minimum left clicks): " + threeBV + ".\n");
+        if (attempts > 0 && winner.equals("Player")) {
+            round.append("Efficiency (3BV / attempts): " + (100 * threeBV / attempts) + "%.\n");
         }
+        round.append(String.format(Locale.ROOT, "Total game time: %d.%03d secs.\n", totalGameTime / 1000, totalGameTime % 1000));
+        round.append("Winner: " + winner + ".\n");
+        return round.toString();
     }
 
 }
@@ -0,0 +1,225 @@
+package application.GameObjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class computes, in parallel, the tiles that are opened when the player left-clicks on a tile of a very
+ * large board. It finds exactly the same tiles as the recursive GameLogic.revealTile: the clicked tile and, for
+ * every opened tile without adjacent mines, all its neighbours.
+ *
+ * The board is split into square blocks of BLOCK_SIZE x BLOCK_SIZE tiles. The fill runs in rounds: in each round
+ * every block that has pending seeds is flooded by its own task on a ForkJoinPool. A task only opens tiles of its
+ * block and returns the neighbours that lie in other blocks (its frontier), which become the seeds of the next round.
+ * The tasks only read the board state, so it is not modified until the caller applies the result.
+ */
+public class FloodFill {
+
+    public static final int BLOCK_SIZE = 128;
+
+    private final BoardState state;
+    private final ForkJoinPool pool;
+    private final int boardsize;
+    private final int blocksPerRow;
+    private final long[] reached;   // Bitset of the tiles opened in the previous rounds
+
+    /**
+     * The tiles opened by a fill (in no particular order) and their numbers of adjacent mines.
+     */
+    public static class Result {
+        public int[] cells = new int[16];
+        public int[] mineCounts = new int[16];
+        public int size = 0;
+
+        void add(int cell, int mineCount) {
+            if(size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+                mineCounts = Arrays.copyOf(mineCounts, size * 2);
+            }
+            cells[size] = cell;
+            mineCounts[size] = mineCount;
+            size++;
+        }
+    }
+
+    /**
+     * Constructs a new flood fill for the given board state.
+     * @param state the board state (it is not modified)
+     * @param pool the pool that runs the tasks of the blocks
+     */
+    public FloodFill(BoardState state, ForkJoinPool pool) {
+        this.state = state;
+        this.pool = pool;
+        this.boardsize = state.getBoardsize();
+        this.blocksPerRow = (boardsize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.reached = new long[(state.getNumCells() + 63) >>> 6];
+    }
+
+    /**
+     * Finds the tiles that are opened by a left click on tile (row, col). The tile must not be a mine
+     * and must not be revealed.
+     * @param row the row of the clicked tile
+     * @param col the column of the clicked tile
+     * @return the opened tiles
+     */
+    public Result fill(int row, int col) {
+        Result result = new Result();
+
+        int numBlocks = blocksPerRow * blocksPerRow;
+        int[][] seeds = new int[numBlocks][];
+        int[] numSeeds = new int[numBlocks];
+        addSeed(seeds, numSeeds, state.index(row, col));
+
+        List<BlockFill> tasks = new ArrayList<>();
+        while(true) {
+
+            // Create a task for every block with pending seeds
+            tasks.clear();
+            for(int b = 0; b < numBlocks; b++) {
+                if(numSeeds[b] > 0) {
+                    tasks.add(new BlockFill(b, seeds[b], numSeeds[b]));
+                    seeds[b] = null;
+                    numSeeds[b] = 0;
+                }
+            }
+            if(tasks.isEmpty()) {
+                break;
+            }
+
+            // Flood the blocks in parallel (a single block runs in the current thread)
+            if(tasks.size() == 1) {
+                tasks.get(0).compute();
+            }
+            else {
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            }
+
+            // Stitch the blocks: collect the opened tiles and pass the frontiers to the neighbouring blocks
+            for(BlockFill task : tasks) {
+                for(int i = 0; i < task.opened.size; i++) {
+                    int cell = task.opened.cells[i];
+                    reached[cell >>> 6] |= 1L << cell;
+                    result.add(cell, task.opened.mineCounts[i]);
+                }
+            }
+            for(BlockFill task : tasks) {
+                for(int i = 0; i < task.numFrontier; i++) {
+                    int cell = task.frontier[i];
+                    if((reached[cell >>> 6] & (1L << cell)) == 0) {
+                        addSeed(seeds, numSeeds, cell);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the block of a tile.
+     * @param cell the index of the tile
+     * @return the index of the block
+     */
+    private int blockOf(int cell) {
+        return (cell / boardsize / BLOCK_SIZE) * blocksPerRow + (cell % boardsize) / BLOCK_SIZE;
+    }
+
+    private void addSeed(int[][] seeds, int[] numSeeds, int cell) {
+        int b = blockOf(cell);
+        if(seeds[b] == null) {
+            seeds[b] = new int[16];
+        }
+        else if(numSeeds[b] == seeds[b].length) {
+            seeds[b] = Arrays.copyOf(seeds[b], numSeeds[b] * 2);
+        }
+        seeds[b][numSeeds[b]++] = cell;
+    }
+
+    /**
+     * The task that floods one block, starting from its seeds.
+     */
+    private class BlockFill extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int rowStart;
+        private final int colStart;
+        private final int rowEnd;
+        private final int colEnd;
+        private int[] stack;
+        private int stackSize;
+        private final long[] visited;   // Bitset of the tiles of the block, in block coordinates
+        final Result opened;
+        int[] frontier;
+        int numFrontier;
+
+        BlockFill(int block, int[] seeds, int numSeeds) {
+            this.rowStart = (block / blocksPerRow) * BLOCK_SIZE;
+            this.colStart = (block % blocksPerRow) * BLOCK_SIZE;
+            this.rowEnd = Math.min(rowStart + BLOCK_SIZE, boardsize);
+            this.colEnd = Math.min(colStart + BLOCK_SIZE, boardsize);
+            this.stack = seeds;
+            this.stackSize = numSeeds;
+            this.visited = new long[(BLOCK_SIZE * BLOCK_SIZE) >>> 6];
+            this.opened = new Result();
+            this.frontier = new int[16];
+            this.numFrontier = 0;
+        }
+
+        @Override
+        protected void compute() {
+            while(stackSize > 0) {
+                int cell = stack[--stackSize];
+                int row = cell / boardsize;
+                int col = cell % boardsize;
+
+                // Skip tiles that are already open
+                int local = (row - rowStart) * BLOCK_SIZE + (col - colStart);
+                if((visited[local >>> 6] & (1L << local)) != 0 || (reached[cell >>> 6] & (1L << cell)) != 0
+                   || state.isRevealed(row, col)) {
+                    continue;
+                }
+                visited[local >>> 6] |= 1L << local;
+
+                int mineCount = state.getNumAdjacentMines(row, col);
+                opened.add(cell, mineCount);
+
+                // If there are no adjacent mines, then open the adjacent tiles
+                if(mineCount == 0) {
+                    for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1); i++) {
+                        for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                            int neighbour = i * boardsize + j;
+                            if(i >= rowStart && i < rowEnd && j >= colStart && j < colEnd) {
+                                push(neighbour);
+                            }
+                            else {
+                                addFrontier(neighbour);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void push(int cell) {
+            if(stackSize == stack.length) {
+                stack = Arrays.copyOf(stack, stackSize * 2);
+            }
+            stack[stackSize++] = cell;
+        }
+
+        private void addFrontier(int cell) {
+            if(numFrontier == frontier.length) {
+                frontier = Arrays.copyOf(frontier, numFrontier * 2);
+            }
+            frontier[numFrontier++] = cell;
+        }
+    }
+}
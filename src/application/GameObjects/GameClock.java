@@ -0,0 +1,158 @@
+package application.GameObjects;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps the time of a game. The elapsed time is measured with the monotonic clock (System.nanoTime),
+ * so it has nanosecond resolution and doesn't drift when the machine is busy or the wall clock is changed.
+ * The clock can be paused and resumed (e.g. while the window is not focused) without losing any time.
+ *
+ * There is no ticking: while the clock runs, a single task is scheduled for the moment the time runs out
+ * (the deadline). Pausing cancels it and resuming schedules it again for the remaining time. When it fires,
+ * the clock stops at exactly the time limit and runs the action given to the constructor.
+ */
+public class GameClock {
+
+    /**
+     * onExpired        -> The action that runs (on the deadlines thread) when the time runs out
+     * limitNanos       -> The time limit of the game in nanoseconds
+     * elapsedNanos     -> The time counted before the clock was last started
+     * runningSince     -> The System.nanoTime() when the clock was last started
+     * running          -> Indicates if the clock is running
+     * deadline         -> The task that expires the clock (null if the clock is not running)
+     */
+
+    private final Runnable onExpired;
+    private long limitNanos;
+    private long elapsedNanos;
+    private long runningSince;
+    private boolean running;
+    private ScheduledFuture<?> deadline;
+
+    /**
+     * Constructs a stopped clock with no elapsed time.
+     * @param maxTime the time limit in seconds
+     * @param onExpired the action that runs when the time runs out
+     */
+    public GameClock(int maxTime, Runnable onExpired) {
+        this.onExpired = onExpired;
+        this.limitNanos = TimeUnit.SECONDS.toNanos(maxTime);
+    }
+
+    /**
+     * Starts the clock, or resumes it from the time it was paused at.
+     * @return true if the clock was started, false if it was already running or the time has run out
+     */
+    public synchronized boolean start() {
+        if(running || elapsedNanos >= limitNanos) {
+            return false;
+        }
+        running = true;
+        runningSince = System.nanoTime();
+        deadline = Deadlines.EXECUTOR.schedule(this::expire, limitNanos - elapsedNanos, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    /**
+     * Pauses the clock. The elapsed time is kept, so start() continues from it.
+     * @return true if the clock was paused, false if it was not running
+     */
+    public synchronized boolean pause() {
+        if(!running) {
+            return false;
+        }
+        elapsedNanos = Math.min(elapsedNanos + System.nanoTime() - runningSince, limitNanos);
+        running = false;
+        deadline.cancel(false);
+        deadline = null;
+        return true;
+    }
+
+    /**
+     * Stops the clock and sets its time limit and elapsed time, e.g. for a new game or a restored one.
+     * @param maxTime the time limit in seconds
+     * @param elapsedNanos the elapsed time in nanoseconds
+     */
+    public synchronized void reset(int maxTime, long elapsedNanos) {
+        pause();
+        this.limitNanos = TimeUnit.SECONDS.toNanos(maxTime);
+        this.elapsedNanos = Math.min(Math.max(elapsedNanos, 0), limitNanos);
+    }
+
+    /**
+     * Runs at the deadline. If the clock was paused and resumed in the meantime, the deadline has moved,
+     * so the clock is only expired when no time is left.
+     */
+    private void expire() {
+        synchronized(this) {
+            if(!running) {
+                return;
+            }
+            long remaining = getRemainingNanos();
+            if(remaining > 0) {
+                deadline = Deadlines.EXECUTOR.schedule(this::expire, remaining, TimeUnit.NANOSECONDS);
+                return;
+            }
+            elapsedNanos = limitNanos;
+            running = false;
+            deadline = null;
+        }
+        onExpired.run();
+    }
+
+    /**
+     * Returns the elapsed time, which never exceeds the time limit.
+     * @return the elapsed time in nanoseconds
+     */
+    public synchronized long getElapsedNanos() {
+        if(!running) {
+            return elapsedNanos;
+        }
+        return Math.min(elapsedNanos + System.nanoTime() - runningSince, limitNanos);
+    }
+
+    /**
+     * Returns the elapsed time in milliseconds.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
+    }
+
+    /**
+     * Returns the time left before the time limit.
+     * @return the remaining time in nanoseconds (0 when the time has run out)
+     */
+    public synchronized long getRemainingNanos() {
+        return limitNanos - getElapsedNanos();
+    }
+
+    /**
+     * Returns whether the clock is running.
+     * @return true if the clock is running
+     */
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The thread of the deadlines of all the clocks. It is created with the first clock that starts and it is
+     * a daemon, so the application can exit while a game is running. Cancelled deadlines are removed at once,
+     * so pausing and resuming often doesn't fill its queue.
+     */
+    private static class Deadlines {
+        static final ScheduledThreadPoolExecutor EXECUTOR = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "Game timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package application.GameObjects;
+
+/**
+ * This interface holds the rules of a game that runs headless, e.g. in a simulation or a bot.
+ * It is implemented by GameLogic and, for small boards, by the much faster BitboardGame.
+ */
+public interface GameEngine {
+
+    /**
+     * Creates the fastest headless engine for a board: a BitboardGame if the board has at most
+     * BitboardGame.MAX_CELLS tiles, otherwise a headless GameLogic.
+     * @param layout the board (it is copied by the BitboardGame and used as is by the GameLogic)
+     * @param numMines the number of mines
+     * @param maxTime the maximum time of the game
+     * @return the engine
+     */
+    static GameEngine headless(BoardState layout, int numMines, int maxTime) {
+        if(layout.getNumCells() <= BitboardGame.MAX_CELLS) {
+            return new BitboardGame(layout, numMines);
+        }
+        return new GameLogic(layout, numMines, maxTime);
+    }
+
+    /**
+     * Reveals a tile (left click).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     */
+    void AddRevealClick(int row, int col);
+
+    /**
+     * Marks or unmarks a tile as mine (right click).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     */
+    void flagTile(int row, int col);
+
+    /**
+     * Reveals the unflagged neighbours of a revealed number whose flags match it (middle click).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     */
+    void chordTile(int row, int col);
+
+    /**
+     * Returns whether a tile is revealed.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return true if the tile is revealed
+     */
+    boolean isRevealed(int row, int col);
+
+    /**
+     * Returns whether a tile is flagged.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return true if the tile is flagged
+     */
+    boolean isFlagged(int row, int col);
+
+    /**
+     * Returns whether a tile contains a mine or the supermine.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return true if the tile contains a mine
+     */
+    boolean isMine(int row, int col);
+
+    /**
+     * Returns the number of mines adjacent to a tile.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the number of adjacent mines
+     */
+    int getNumAdjacentMines(int row, int col);
+
+    /**
+     * Returns the size of the board.
+     * @return the size of the board
+     */
+    int getBoardsize();
+
+    /**
+     * Returns the number of mines.
+     * @return the number of mines
+     */
+    int getNumMines();
+
+    /**
+     * Returns the number of tiles marked as mines.
+     * @return the number of marked tiles
+     */
+    int getMarkedTiles();
+
+    /**
+     * Returns the number of revealed tiles (without the revealed mines).
+     * @return the number of revealed tiles
+     */
+    int getNumRevealed();
+
+    /**
+     * Returns the number of attempts (left and middle clicks).
+     * @return the number of attempts
+     */
+    int getAttempts();
+
+    /**
+     * Returns whether the game is over.
+     * @return true if the game is over
+     */
+    boolean getGameOver();
+
+    /**
+     * Returns whether the player won.
+     * @return true if the player won
+     */
+    boolean getGameWon();
+
+    /**
+     * Returns whether the player lost.
+     * @return true if the player lost
+     */
+    boolean getGameLost();
+}
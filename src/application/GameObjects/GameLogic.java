@@ -1,51 +1,89 @@
 package application.GameObjects;
 
 import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
+import application.Leaderboard.Leaderboard;
+import application.Metrics.EngineMetrics;
+import application.Metrics.RevealEvent;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 
 /**
  * This class implements the game's logic.
  * The main methods of this class will be called each time the player interacts with the game (right or left click etc).
+ * The counters of the game (marked tiles, revealed tiles and mines) are only updated by showTile and toggleFlag,
+ * which are the only methods that change a tile, so they are always exact and never need a scan of the board.
+ * The game is checked for a win once per move, after all the tiles of the move are revealed.
 */
 
-public class GameLogic {
+public class GameLogic implements GameEngine {
     
     public static final int MINE = -1;
     public static final int SUPER_MINE = -2;
+
+    // Boards with at least this many tiles use the parallel reveal (if it is enabled)
+    public static final int PARALLEL_THRESHOLD = 256 * 256;
     
     /**
-     * board            -> The game board
+     * board            -> The game board (null when the game runs headless, e.g. in a simulation)
+     * state            -> The state of the board (mines, revealed and flagged tiles) in compact form
+     * headless         -> Indicates that the game has no board of tiles, no timer thread and doesn't store rounds
      * boardsize        -> The size of the board (9 for level 1 and 16 for level 2)
      * numMines         -> Total number of mines
      * MarkedTiles      -> Number of tiles marked as mines
-     * numRevealed      -> The number of revealed tiles
+     * numRevealed      -> The number of revealed tiles (without the revealed mines)
+     * minesRevealed    -> The number of revealed mines (the supermine rule and the end of a lost game reveal them)
      * maxTime          -> Maximum available time the player has 
-     * timeLeft         -> Time left for player before they exceed the maximum allowed time (maxTime)
+     * clock            -> Measures the elapsed time of the game and ends it when maxTime runs out
      * gameOver         -> Indicates if the game is over
      * gameWon          -> Indicates if the player won
      * gameLost         -> Indicates if the player lost
-     * attempts         -> Number of player's clicks. Used in flagTile for the flagging of the supermine
+     * attempts         -> Number of player's clicks, undone ones included. Used in flagTile for the flagging of the supermine
      * StartedTimer     -> This flag is used to check if the timer has started
+     * onTimeUp         -> Runs (on the FX thread) after the game is lost because the time ran out (may be null)
+     * scenarioId       -> The ID of the scenario of the game, which is stored with its round (null if it is unknown)
+     * journal          -> Records every move of the player (null if the moves are not recorded)
+     * undoEnabled      -> Indicates a practice game: the changes of each move are recorded, so that the move can be
+     *                     undone, and the round is not ranked
+     * currentDelta     -> The changes of the move in progress (null if they are not recorded)
+     * undoHistory      -> The moves that can be undone (the last move first)
+     * redoHistory      -> The moves that can be redone (the last undone move first)
+     * changes          -> The tiles changed since the last clearChanges (null if they are not tracked)
+     * parallelPool     -> The pool used to reveal large regions in parallel (null if the parallel reveal is disabled)
+     * threeBV          -> The minimum number of left clicks that solve the board (-1 until it is computed)
+     * worklist         -> The tiles that are waiting to be revealed (reused by every move)
      */
 
     private Tile[][] board;
+    private BoardState state;
+    private boolean headless;
     private int boardsize;
     private int numMines;
     private int MarkedTiles;
     private int numRevealed;
+    private int minesRevealed;
     private int maxTime;
-    private long timeLeft;
+    private final GameClock clock;
     private boolean gameOver;
     private boolean gameWon;
     private boolean gameLost;
     private int attempts;
     private boolean flagSuperMine;
-    private Timer timer;
     private boolean StartedTimer;
+    private Runnable onTimeUp;
+    private String scenarioId;
+    private MoveJournal journal;
+    private boolean undoEnabled;
+    private MoveDelta currentDelta;
+    private MoveDelta.Node undoHistory;
+    private MoveDelta.Node redoHistory;
+    private MoveDelta changes;
+    private ForkJoinPool parallelPool;
+    private int threeBV;
+    private int[] worklist = new int[64];
 
     
     /**
@@ -55,75 +93,172 @@ public class GameLogic {
      * @param maxTime The maximum amount of time the player has to complete the game.
      */
     public GameLogic(Tile[][] board, int numMines, int maxTime) {
+        this(new BoardState(board.length), numMines, maxTime);
         this.board = board;
-        this.boardsize = board.length;
+        this.headless = false;
+        copyMines();
+        state.getMineIndex();
+    }
+
+    /**
+     * Constructs a new headless instance of the GameLogic class. A headless game has no board of tiles,
+     * doesn't start its clock (the whole maxTime stays available) and doesn't store its round when it ends.
+     * It is used by the simulations and the solvers.
+     * @param state The state of the game board.
+     * @param numMines The total number of mines in the game.
+     * @param maxTime The maximum amount of time the player has to complete the game.
+     */
+    public GameLogic(BoardState state, int numMines, int maxTime) {
+        this.board = null;
+        this.state = state;
+        this.headless = true;
+        this.boardsize = state.getBoardsize();
         this.numMines = numMines;
         this.maxTime = maxTime;
         this.MarkedTiles = 0;
         this.numRevealed = 0;
-        this.timeLeft = maxTime;
+        this.minesRevealed = 0;
+        this.clock = new GameClock(maxTime, () -> {
+            if(EngineMetrics.ENABLED) {
+                EngineMetrics.timerStopped();
+            }
+            // The game is changed by the moves on the FX thread, so it ends there too
+            try {
+                Platform.runLater(this::TimeExpired);
+            } catch (IllegalStateException e) {
+                // The FX toolkit is not running, so no move can run on the FX thread
+                TimeExpired();
+            }
+        });
         this.gameOver = false;
         this.gameWon = false;
         this.gameLost = false;
         this.flagSuperMine = false;
         this.attempts = 0;
         this.StartedTimer = false;
+        this.threeBV = -1;
+        // Index the mines now, so that revealing them when the game is lost costs O(numMines)
+        state.getMineIndex();
     }
 
     /**
-     * Recursive function that reveals a tile when the player left-clicks on it. This method is called
-     * from the AddRevealClick method and is used to reveal the tile and update game variables based on
-     * the game rules.
-     * @param row The row of the tile to reveal.
-     * @param col The column of the tile to reveal.
-     * @param recursion A boolean flag that controls the recursive revealing of adjacent tiles.
+     * Starts a new game on the same board of tiles, which must already hold the mines of the new game
+     * (see BoardGenerator.GenerateBoard(Tile[][])). The board state and the worklist are reused, so starting
+     * a game doesn't create new objects. A running timer is stopped and the undo history is cleared.
+     * @param numMines The total number of mines in the game.
+     * @param maxTime The maximum amount of time the player has to complete the game.
      */
-    private void revealTile(int row, int col, boolean recursion) {
-        
-        // If tile is already revealed or if the game is already finished, then do nothing
-        if(board[row][col].getIsRevealed() || gameOver) {
-            return;
+    public void reset(int numMines, int maxTime) {
+        if(board == null || board.length != boardsize) {
+            throw new IllegalStateException("Only a game with a board of tiles of the same size can be reset");
         }
+        stopTimer();
+        this.numMines = numMines;
+        this.maxTime = maxTime;
+        this.MarkedTiles = 0;
+        this.numRevealed = 0;
+        this.minesRevealed = 0;
+        this.clock.reset(maxTime, 0);
+        this.gameOver = false;
+        this.gameWon = false;
+        this.gameLost = false;
+        this.flagSuperMine = false;
+        this.attempts = 0;
+        this.StartedTimer = false;
+        this.threeBV = -1;
+        this.currentDelta = null;
+        this.undoHistory = null;
+        this.redoHistory = null;
+        state.clear();
+        copyMines();
+        state.getMineIndex();
+    }
 
-        // If the tile is a mine, then the game ends and we reveal every mine
-        if(board[row][col].getValue() == MINE || board[row][col].getValue() == SUPER_MINE) {
-            RevealMines();
-            gameLost = true;
-            EndGame();
-            return;
+    /**
+     * Copies the mines of the board of tiles to the board state.
+     */
+    private void copyMines() {
+        for(int i = 0; i < boardsize; i++) {
+            for(int j = 0; j < boardsize; j++) {
+                state.setValue(i, j, board[i][j].getValue());
+            }
         }
+    }
 
-        // Check if the tile is flagged and if it is, then decrease the number of marked tiles
-        if(board[row][col].getIsFlagged()) {
-            MarkedTiles--;
-        }
+    /**
+     * Reveals a tile when the player left-clicks on it. This method is called from the AddRevealClick
+     * method and is used to reveal the tile and update game variables based on the game rules.
+     * @param row The row of the tile to reveal.
+     * @param col The column of the tile to reveal.
+     * @param recursion A boolean flag that controls the revealing of adjacent tiles.
+     */
+    private void revealTile(int row, int col, boolean recursion) {
+        worklist[0] = state.index(row, col);
+        revealTiles(1, recursion);
+    }
 
-        // Count the number of adjacent mines
-        int mineCount = getNumAdjacentMines(row, col);
+    /**
+     * Reveals the tiles of the worklist. If recursion is true and a revealed tile has no adjacent mines, then
+     * its adjacent tiles are added to the worklist, so a whole region is opened without recursive calls.
+     * The game is checked for a win at the end of the move (see endMove).
+     * @param size The number of tiles in the worklist.
+     * @param recursion A boolean flag that controls the revealing of adjacent tiles.
+     */
+    private void revealTiles(int size, boolean recursion) {
+        while(size > 0) {
+            int cell = worklist[--size];
+            int row = cell / boardsize;
+            int col = cell % boardsize;
+
+            // If tile is already revealed or if the game is already finished, then do nothing
+            if(state.isRevealed(row, col) || gameOver) {
+                continue;
+            }
 
-        // Update the related field
-        board[row][col].setAdjacentMines(mineCount);
+            // If the tile is a mine, then the game ends and we reveal every mine
+            if(state.isMine(row, col)) {
+                RevealMines();
+                gameLost = true;
+                EndGame();
+                return;
+            }
 
-        // Reveal the tile and update the counter of the revealed tiles;
-        board[row][col].reveal();
-        numRevealed++;
+            // Count the number of adjacent mines
+            int mineCount = getNumAdjacentMines(row, col);
 
-        // Check if GameWon and GameOver flags need update
-        CheckIfGameWon();
+            // Reveal the tile (which updates the counters)
+            showTile(row, col, mineCount);
 
-        // If there are no adjacent mines, then recursively reveal adjacent tiles
-        if(mineCount == 0) {
-            if(recursion) { 
-                for(int i = row - 1; i <= row + 1; i++) {
-                    for(int j = col - 1; j <= col + 1; j++) {
-                        if(i >= 0 && i < boardsize && j >= 0 && j < boardsize) {
-                            revealTile(i,j, true);
+            // If there are no adjacent mines, then reveal the adjacent tiles too
+            if(mineCount == 0 && recursion) {
+                if(size + 8 > worklist.length) {
+                    worklist = Arrays.copyOf(worklist, worklist.length * 2);
+                }
+                for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1); i++) {
+                    for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                        if(!state.isRevealed(i, j)) {
+                            worklist[size++] = i * boardsize + j;
                         }
                     }
                 }
             }
         }
-        return;
+    }
+
+    /**
+     * Parallel version of revealTile for very large boards. The tiles to open are found with a FloodFill
+     * on parallelPool and then they are revealed, so the result is identical to revealTile(row, col, true).
+     * @param row The row of the clicked tile (it must not be a mine or revealed).
+     * @param col The column of the clicked tile.
+     */
+    private void revealRegion(int row, int col) {
+        FloodFill.Result result = new FloodFill(state, parallelPool).fill(row, col);
+
+        for(int i = 0; i < result.size; i++) {
+            int r = result.cells[i] / boardsize;
+            int c = result.cells[i] % boardsize;
+            showTile(r, c, result.mineCounts[i]);
+        }
     }
 
     /**
@@ -138,8 +273,25 @@ public class GameLogic {
             startTimer();
             StartedTimer = true;
         }
+        if(journal != null) {
+            journal.record(MoveJournal.REVEAL, row, col, getElapsedSeconds());
+        }
+        RevealEvent revealEvent = EngineMetrics.ENABLED ? EngineMetrics.beginReveal() : null;
+        long startTime = EngineMetrics.ENABLED ? System.nanoTime() : 0;
+        int revealedBefore = numRevealed;
+        beginMove();
         attempts++;
-        revealTile(row, col, true);
+        if(parallelPool != null && state.getNumCells() >= PARALLEL_THRESHOLD && !gameOver
+           && !state.isRevealed(row, col) && !state.isMine(row, col)) {
+            revealRegion(row, col);
+        }
+        else {
+            revealTile(row, col, true);
+        }
+        endMove();
+        if(EngineMetrics.ENABLED) {
+            EngineMetrics.recordReveal(revealEvent, row, col, System.nanoTime() - startTime, numRevealed - revealedBefore);
+        }
     } 
 
     /**
@@ -151,62 +303,115 @@ public class GameLogic {
     @param col The column index of the tile
      */
     public void flagTile(int row, int col) {
+        if(journal != null) {
+            journal.record(MoveJournal.FLAG, row, col, getElapsedSeconds());
+        }
+        beginMove();
+        markTile(row, col);
+        endMove();
+    }
+
+    /**
+     * This method is called when the player middle-clicks on a revealed tile (chording). If the number of
+     * flagged adjacent tiles equals the tile's number of adjacent mines, then all the other adjacent tiles are
+     * revealed at once: they share one worklist (so the regions they open are flooded together) and the game
+     * is checked for a win once. If a flag is wrong, a mine is revealed and the game is lost.
+     * A chord counts as one attempt.
+     * @param row The row index of the tile
+     * @param col The column index of the tile
+     */
+    public void chordTile(int row, int col) {
+        if(gameOver || !state.isRevealed(row, col) || state.isMine(row, col)) {
+            return;
+        }
+
+        // Count the flags and collect the hidden tiles around the tile
+        int flags = 0;
+        int size = 0;
+        for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1); i++) {
+            for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                if(state.isFlagged(i, j)) {
+                    flags++;
+                }
+                else if(!state.isRevealed(i, j)) {
+                    worklist[size++] = i * boardsize + j;
+                }
+            }
+        }
+        if(size == 0 || flags != getNumAdjacentMines(row, col)) {
+            return;
+        }
+
+        if(journal != null) {
+            journal.record(MoveJournal.CHORD, row, col, getElapsedSeconds());
+        }
+        beginMove();
+        attempts++;
+        revealTiles(size, true);
+        endMove();
+    }
+
+    /**
+     * Marks (or unmarks) a tile as mine and applies the supermine rule. It implements flagTile, but it
+     * is also called internally to unflag tiles, so these calls are not recorded in the journal.
+    @param row The row index of the tile
+    @param col The column index of the tile
+     */
+    private void markTile(int row, int col) {
 
         // If the timer has not started yet and current tile is supermine, then start the timer.
-        if(!StartedTimer && board[row][col].getValue() == SUPER_MINE) {
+        if(!StartedTimer && state.getValue(row, col) == SUPER_MINE) {
             startTimer();
             StartedTimer = true;
         }
 
         // If the game is over or the tile is already revealed then do nothing.
-        if(gameOver || board[row][col].getIsRevealed()) {
+        if(gameOver || state.isRevealed(row, col)) {
             return;
         }
         // If the maximum number of flags has been reached, then if the tile is not flagged, return because we can't use extra flags.
-        if(MarkedTiles == numMines && !board[row][col].getIsFlagged()) {
+        if(MarkedTiles == numMines && !state.isFlagged(row, col)) {
             return;
         }
 
-        // If the tile is already flagged, then unflag it and decrease the related counter.
-        if(board[row][col].getIsFlagged()) {
-            board[row][col].toggleFlag();
-            MarkedTiles--;
+        // If the tile is already flagged, then unflag it (toggleFlag updates the counter).
+        if(state.isFlagged(row, col)) {
+            toggleFlag(row, col);
             return;
         }
 
-        // Otherwise, flag it and increase the related counter
-        board[row][col].toggleFlag();
-        MarkedTiles++;
+        // Otherwise, flag it
+        toggleFlag(row, col);
 
         /* If the player marks the tile corresponding to the supermine within the first 4 attempts, 
         *  then the application should automatically reveal the content of all the tiles that 
         *  are in the same row and column as the super-mine.
         */
-        if(board[row][col].getValue() == SUPER_MINE && attempts < 4 && !flagSuperMine) {
+        if(state.getValue(row, col) == SUPER_MINE && attempts < 4 && !flagSuperMine) {
 
             // this flag is used to allow only 1 access in this part of the code
             flagSuperMine = true;
 
-            // Check if it is flagged and if it is, call flagTile to unflag it.
-            if(board[row][col].getIsFlagged()) {
-                flagTile(row, col);
+            // Check if it is flagged and if it is, call markTile to unflag it.
+            if(state.isFlagged(row, col)) {
+                markTile(row, col);
             }
 
             // Reveal supermine
-            board[row][col].reveal();
+            showTile(row, col, 0);
 
             // Reveal each tile in the same row or column
             for(int i = 0; i < boardsize; i++) {
 
                 if(i != row) {
                     // If tile is a mine, then reveal it without calling revealTile
-                    if(board[i][col].getValue() == MINE ) {
+                    if(state.getValue(i, col) == MINE ) {
 
-                        // Check if it is flagged and if it is, call flagTile to unflag it.
-                        if(board[i][col].getIsFlagged()) {
-                            flagTile(i, col);
+                        // Check if it is flagged and if it is, call markTile to unflag it.
+                        if(state.isFlagged(i, col)) {
+                            markTile(i, col);
                         }
-                        board[i][col].reveal();
+                        showTile(i, col, 0);
                     }
                     else {
                         // flag recursion is false, because we don't want to recursively reveal adjacent tiles
@@ -216,13 +421,13 @@ public class GameLogic {
 
                 if(i != col) {
                     // If tile is a mine, then reveal it without calling revealTile
-                    if(board[row][i].getValue() == MINE && (i != col) ) {
+                    if(state.getValue(row, i) == MINE && (i != col) ) {
 
-                        // Check if it is flagged and if it is, call flagTile to unflag it.
-                        if(board[row][i].getIsFlagged()) {
-                            flagTile(row, i);
+                        // Check if it is flagged and if it is, call markTile to unflag it.
+                        if(state.isFlagged(row, i)) {
+                            markTile(row, i);
                         }
-                        board[row][i].reveal();
+                        showTile(row, i, 0);
                     }
                     else {
                         // flag recursion is false, because we don't want to recursively reveal adjacent tiles
@@ -234,30 +439,277 @@ public class GameLogic {
     }
 
     /**
-     * Reveals all the mines on the game board.
+     * Reveals all the mines on the game board. The mines are visited through the mine index of the board state,
+     * so it costs O(numMines) instead of a scan of the board.
      */
     private void RevealMines() {
-        for(int i = 0; i < boardsize; i++) {
-            for(int j = 0; j < boardsize; j++) {
-                if(board[i][j].getValue() == MINE || board[i][j].getValue() == SUPER_MINE) {
-                    board[i][j].reveal();
-                } 
+        for(int mine : state.getMineIndex()) {
+            int row = mine / boardsize;
+            int col = mine % boardsize;
+            if(!state.isRevealed(row, col)) {
+                showTile(row, col, 0);
             }
         }
     }
     
     /**
-     * Ends the game by setting the gameOver flag to true, stopping the timer, and storing the round's data.
+     * Reveals tile (row, col) in the board state and, if the game is not headless, in the board of tiles, and
+     * updates the counters: a revealed mine counts in minesRevealed and any other tile in numRevealed.
+     * Revealing a tile removes its flag, which also removes its mark, except for a mine: the mines revealed
+     * when the game is lost keep the marks of the player (the supermine rule unmarks its mines first).
+     * @param row the row index of the tile
+     * @param col the column index of the tile
+     * @param mineCount the number of adjacent mines of the tile
+     */
+    private void showTile(int row, int col, int mineCount) {
+        if(currentDelta != null && !state.isRevealed(row, col)) {
+            // Revealing a tile also removes its flag
+            if(state.isFlagged(row, col)) {
+                currentDelta.add(MoveDelta.FLAG_TOGGLED, state.index(row, col));
+            }
+            currentDelta.add(MoveDelta.REVEALED, state.index(row, col));
+        }
+        if(!state.isRevealed(row, col)) {
+            if(changes != null) {
+                changes.add(MoveDelta.REVEALED, state.index(row, col));
+            }
+            if(state.isMine(row, col)) {
+                minesRevealed++;
+            }
+            else {
+                numRevealed++;
+                if(state.isFlagged(row, col)) {
+                    MarkedTiles--;
+                }
+            }
+        }
+        state.reveal(row, col);
+        if(board != null) {
+            board[row][col].setAdjacentMines(mineCount);
+            board[row][col].reveal();
+        }
+    }
+
+    /**
+     * Toggles the flag of tile (row, col) in the board state and, if the game is not headless, in the board of tiles,
+     * and updates the number of marked tiles.
+     * @param row the row index of the tile
+     * @param col the column index of the tile
+     */
+    private void toggleFlag(int row, int col) {
+        if(currentDelta != null) {
+            currentDelta.add(MoveDelta.FLAG_TOGGLED, state.index(row, col));
+        }
+        if(changes != null) {
+            changes.add(MoveDelta.FLAG_TOGGLED, state.index(row, col));
+        }
+        boolean flagged = !state.isFlagged(row, col);
+        state.setFlagged(row, col, flagged);
+        MarkedTiles += flagged ? 1 : -1;
+        if(board != null) {
+            board[row][col].toggleFlag();
+        }
+    }
+
+    /**
+     * Updates tile (row, col) of the board of tiles so that it matches the board state.
+     * @param row the row index of the tile
+     * @param col the column index of the tile
+     */
+    private void syncTile(int row, int col) {
+        Tile tile = board[row][col];
+        tile.hide();
+        if(state.isRevealed(row, col)) {
+            tile.setAdjacentMines(state.isMine(row, col) ? 0 : getNumAdjacentMines(row, col));
+            tile.reveal();
+        }
+        else if(state.isFlagged(row, col)) {
+            tile.toggleFlag();
+        }
+    }
+
+    /**
+     * Returns the values of the counters of the game that a move can change.
+     * The attempts are not restored by undo (see setCounters), so every click of the player counts.
+     * @return {MarkedTiles, numRevealed, attempts, flagSuperMine, gameOver, gameWon, gameLost, minesRevealed}
+     */
+    private int[] getCounters() {
+        return new int[] {MarkedTiles, numRevealed, attempts, flagSuperMine ? 1 : 0,
+                          gameOver ? 1 : 0, gameWon ? 1 : 0, gameLost ? 1 : 0, minesRevealed};
+    }
+
+    /**
+     * Sets the counters of the game to the given values (see getCounters), except the attempts: an undone click
+     * still counts, so undoing can't lower the attempts of the round or give the supermine rule back.
+     * @param counters the values of the counters
+     */
+    private void setCounters(int[] counters) {
+        MarkedTiles = counters[0];
+        numRevealed = counters[1];
+        flagSuperMine = counters[3] == 1;
+        gameOver = counters[4] == 1;
+        gameWon = counters[5] == 1;
+        gameLost = counters[6] == 1;
+        minesRevealed = counters[7];
+    }
+
+    /**
+     * Starts recording the changes of a move, if undo is enabled.
+     */
+    private void beginMove() {
+        if(undoEnabled) {
+            currentDelta = new MoveDelta();
+            currentDelta.before = getCounters();
+        }
+    }
+
+    /**
+     * Ends a move: checks the game for a win (once, after all the tiles of the move are revealed), stops recording
+     * the changes of the move and adds the move to the undo history. A new move can't be redone after it, so the
+     * redo history is cleared.
+     */
+    private void endMove() {
+        CheckIfGameWon();
+        if(currentDelta != null) {
+            currentDelta.after = getCounters();
+            if(!currentDelta.isEmpty()) {
+                undoHistory = new MoveDelta.Node(currentDelta, undoHistory);
+                redoHistory = null;
+            }
+            currentDelta = null;
+        }
+    }
+
+    /**
+     * Starts (or stops) tracking the tiles changed by the moves, undos and redos of the game, so that only
+     * these tiles have to be sent to a remote player (see application.Remote.GameServer). Unlike the undo history,
+     * only the tiles changed since the last clearChanges are kept, in one reused array.
+     * @param trackChanges true to track the changed tiles
+     */
+    public void setTrackChanges(boolean trackChanges) {
+        changes = trackChanges ? new MoveDelta() : null;
+    }
+
+    /**
+     * Forgets the changed tiles, e.g. before a new move (see setTrackChanges).
+     */
+    public void clearChanges() {
+        if(changes != null) {
+            changes.clear();
+        }
+    }
+
+    /**
+     * Returns the number of tile changes since the last clearChanges. A tile can change more than once,
+     * e.g. a flag removed by the supermine rule before the tile is revealed.
+     * @return the number of changes (0 if they are not tracked)
+     */
+    public int getNumChanges() {
+        return changes != null ? changes.size() : 0;
+    }
+
+    /**
+     * Returns the tile of a change since the last clearChanges.
+     * @param i the number of the change (from 0 to getNumChanges() - 1)
+     * @return the index of the tile (row * boardsize + col)
+     */
+    public int getChangedTile(int i) {
+        return changes.getIndex(i);
+    }
+
+    /**
+     * Applies (forward) or reverts (backward) the changes of a move to the board state and the board of tiles.
+     * @param delta the changes of the move
+     * @param forward true to apply the changes, false to revert them
+     */
+    private void applyDelta(MoveDelta delta, boolean forward) {
+        int size = delta.size();
+        for(int k = 0; k < size; k++) {
+            // The changes are reverted in the reverse order
+            int i = forward ? k : size - 1 - k;
+            int index = delta.getIndex(i);
+            int row = index / boardsize;
+            int col = index % boardsize;
+            if(changes != null) {
+                changes.add(delta.getType(i), index);
+            }
+            if(delta.getType(i) == MoveDelta.REVEALED) {
+                state.setRevealed(row, col, forward);
+            }
+            else {
+                state.setFlagged(row, col, !state.isFlagged(row, col));
+            }
+            if(board != null) {
+                syncTile(row, col);
+            }
+        }
+        setCounters(forward ? delta.after : delta.before);
+    }
+
+    /**
+     * Undoes the last move of the player. It costs O(number of tiles changed by the move).
+     * A game that is over can't be undone: its round has already been stored (and ranked), so it must not continue.
+     * @return true if a move was undone, false if there is nothing to undo or the game is over
+     */
+    public boolean undo() {
+        if(undoHistory == null || gameOver) {
+            return false;
+        }
+        if(journal != null) {
+            journal.record(MoveJournal.UNDO, 0, 0, getElapsedSeconds());
+        }
+        MoveDelta delta = undoHistory.delta;
+        undoHistory = undoHistory.next;
+        redoHistory = new MoveDelta.Node(delta, redoHistory);
+
+        applyDelta(delta, false);
+        return true;
+    }
+
+    /**
+     * Redoes the last undone move of the player. It costs O(number of tiles changed by the move).
+     * Since a game that is over can't be undone, a redone move never ends the game.
+     * @return true if a move was redone, false if there is nothing to redo or the game is over
+     */
+    public boolean redo() {
+        if(redoHistory == null || gameOver) {
+            return false;
+        }
+        if(journal != null) {
+            journal.record(MoveJournal.REDO, 0, 0, getElapsedSeconds());
+        }
+        MoveDelta delta = redoHistory.delta;
+        redoHistory = redoHistory.next;
+        undoHistory = new MoveDelta.Node(delta, undoHistory);
+
+        applyDelta(delta, true);
+        return true;
+    }
+
+    /**
+     * Ends the game by setting the gameOver flag to true, stopping the timer, and storing the round's data
+     * (and ranking it in the leaderboard, if it was won and it is not a practice game).
      */
     private void EndGame() {
         gameOver = true;
         stopTimer();
 
+        // Headless games (simulations) don't store their rounds
+        if(headless) {
+            return;
+        }
+
         String winner = (gameWon) ? "Player" : "PC";
 
         try {
-            // Store this round's data
-            FileManager.writeCurrentRound(numMines, attempts, maxTime - timeLeft, winner);
+            // Store this round's data and its moves
+            FileManager.writeCurrentRound(numMines, attempts, getThreeBV(), clock.getElapsedMillis(), winner, journal, scenarioId);
+
+            // Rank the won rounds in the leaderboards of their scenario and difficulty level, unless they could be undone
+            if(gameWon && !undoEnabled) {
+                Leaderboard.getDefault().record(boardsize == 9 ? 1 : 2, numMines, maxTime, state.getSuperMine() >= 0,
+                                                clock.getElapsedMillis(), attempts, getThreeBV());
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -270,49 +722,82 @@ public class GameLogic {
      * @param col the column index of the tile
      * @return the number of adjacent mines
      */
-    private int getNumAdjacentMines(int row, int col) {
-        int mineCount = 0;
-        for(int i = row - 1; i <= row + 1; i++) {
-            for(int j = col -1; j <= col + 1; j++) {
-                // This if statement takes into account the corner and side tiles of the board
-                if (i >= 0 && i < boardsize && j >= 0 && j < boardsize && (board[i][j].getValue() == MINE || board[i][j].getValue() == SUPER_MINE) ) {
-                    mineCount++;
-                }
-            }
-        }
-        return mineCount;
+    public int getNumAdjacentMines(int row, int col) {
+        return state.getNumAdjacentMines(row, col);
     }
 
     /**
-     * Checks if the game is won by the player when all squares without mines are revealed and timeLeft is not zero.
-     * If the game is won, sets gameWon flag to true and ends the game.
+     * Checks if the game is won by the player when all squares without mines are revealed and the time has not run out.
+     * If the game is won, sets gameWon flag to true and ends the game. It costs O(1) (see getSafeRemaining).
      */
     private void CheckIfGameWon() {
-        if(numRevealed + numMines == boardsize * boardsize && timeLeft > 0) {
+        if(!gameOver && getSafeRemaining() == 0 && clock.getRemainingNanos() > 0) {
             gameWon = true;
             EndGame();
         }
     }
 
     /**
-     * Starts the timer and decreases timeLeft by 1 every second until timeLeft is zero.
-     * If timeLeft == 0, sets gameLost flag to true and ends the game.
+     * Starts the timer, or resumes it from the elapsed time of the game (see GameClock).
+     * When the time runs out, TimeUp ends the game. If there is no time left, it ends at once.
      */
     public void startTimer() {
-        TimerTask task = new TimerTask() {
-            public void run() {
-                if(timeLeft > 0) {
-                    timeLeft--;
-                }
-                // If timeLeft == 0, then the player lose.
-                else {
-                    gameLost = true;
-                    EndGame();
-                }
+        // Headless games don't use a timer thread
+        if(headless) {
+            return;
+        }
+        if(clock.start()) {
+            if(EngineMetrics.ENABLED) {
+                EngineMetrics.timerStarted();
             }
-        };
-        timer = new Timer();
-        timer.schedule(task, 0, 1000);
+        }
+        else if(clock.getRemainingNanos() == 0) {
+            TimeUp();
+        }
+    }
+
+    /**
+     * Called on the FX thread after the clock ran out. The game may have been reset or restored since then,
+     * so it only ends if its clock still has no time left.
+     */
+    private void TimeExpired() {
+        if(clock.getRemainingNanos() == 0) {
+            TimeUp();
+        }
+    }
+
+    /**
+     * Called when the time runs out. Sets gameLost flag to true and ends the game.
+     */
+    private void TimeUp() {
+        if(gameOver) {
+            return;
+        }
+        gameLost = true;
+        EndGame();
+        if(onTimeUp != null) {
+            onTimeUp.run();
+        }
+    }
+
+    /**
+     * Pauses the timer of a game in progress, e.g. while the window is not focused.
+     * The elapsed time is kept and resume() continues from it.
+     */
+    public void pause() {
+        if(StartedTimer && !gameOver) {
+            stopTimer();
+        }
+    }
+
+    /**
+     * Resumes the timer of a game in progress that was paused. A game whose timer has not started yet
+     * still starts it with the player's first click.
+     */
+    public void resume() {
+        if(StartedTimer && !gameOver) {
+            startTimer();
+        }
     }
 
     /**
@@ -339,7 +824,72 @@ public class GameLogic {
      * Stops the timer. 
      */ 
     private void stopTimer() {
-        timer.cancel();
+        if(clock.pause() && EngineMetrics.ENABLED) {
+            EngineMetrics.timerStopped();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the complete state of the game. It costs O(1), because the board state
+     * is forked (copy-on-write) instead of copied.
+     * @return the snapshot of the game
+     */
+    public GameSnapshot saveSnapshot() {
+        return new GameSnapshot(state.fork(), numMines, maxTime, MarkedTiles, numRevealed, clock.getElapsedNanos(),
+                                attempts, flagSuperMine, gameOver, gameWon, gameLost, undoEnabled, undoHistory, redoHistory);
+    }
+
+    /**
+     * Counts the revealed mines through the mine index of the board state, in O(numMines).
+     * @return the number of revealed mines
+     */
+    private int countRevealedMines() {
+        int count = 0;
+        for(int mine : state.getMineIndex()) {
+            if(state.isRevealed(mine / boardsize, mine % boardsize)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Restores the game to the given snapshot. The board state is restored in O(1) and the revealed mines
+     * are counted in O(numMines). If the game is not headless,
+     * the board of tiles is also updated, so it must have the same size as the snapshot's board.
+     * A running timer is stopped and restarts with the player's next click.
+     * @param snapshot the snapshot to restore
+     */
+    public void restoreSnapshot(GameSnapshot snapshot) {
+        stopTimer();
+        StartedTimer = false;
+
+        state = snapshot.getState().fork();
+        threeBV = -1;
+        boardsize = state.getBoardsize();
+        numMines = snapshot.getNumMines();
+        maxTime = snapshot.getMaxTime();
+        MarkedTiles = snapshot.getMarkedTiles();
+        numRevealed = snapshot.getNumRevealed();
+        minesRevealed = countRevealedMines();
+        clock.reset(maxTime, snapshot.getElapsedNanos());
+        attempts = snapshot.getAttempts();
+        flagSuperMine = snapshot.getFlagSuperMine();
+        gameOver = snapshot.getGameOver();
+        gameWon = snapshot.getGameWon();
+        gameLost = snapshot.getGameLost();
+        undoEnabled = snapshot.getPractice();
+        undoHistory = snapshot.undoHistory;
+        redoHistory = snapshot.redoHistory;
+
+        if(board != null) {
+            for(int i = 0; i < boardsize; i++) {
+                for(int j = 0; j < boardsize; j++) {
+                    board[i][j].setValue(state.getValue(i, j));
+                    syncTile(i, j);
+                }
+            }
+        }
     }
     
     // Getters
@@ -352,6 +902,84 @@ public class GameLogic {
         return board;
     }
 
+    /**
+     * Enables or disables the recording of the changes of each move, which is needed by undo and redo.
+     * A game with undo enabled is a practice game: its round is stored but never ranked (see EndGame).
+     * Disabling it clears the undo/redo history.
+     * @param undoEnabled true to enable undo/redo, false to disable it
+     */
+    public void setUndoEnabled(boolean undoEnabled) {
+        this.undoEnabled = undoEnabled;
+        if(!undoEnabled) {
+            undoHistory = null;
+            redoHistory = null;
+        }
+    }
+
+    /**
+     * Returns whether the game is a practice game, whose moves can be undone.
+     * @return true if undo is enabled
+     */
+    public boolean getUndoEnabled() {
+        return undoEnabled;
+    }
+
+    /**
+     * Enables or disables the parallel reveal, which is used on boards with at least PARALLEL_THRESHOLD tiles.
+     * @param parallelPool the pool that runs the parallel reveal or null to disable it
+     */
+    public void setParallelReveal(ForkJoinPool parallelPool) {
+        this.parallelPool = parallelPool;
+    }
+
+    /**
+     * Returns whether there is a move to undo.
+     * @return true if undo is possible, false otherwise
+     */
+    public boolean getCanUndo() {
+        return undoHistory != null && !gameOver;
+    }
+
+    /**
+     * Returns whether there is a move to redo.
+     * @return true if redo is possible, false otherwise
+     */
+    public boolean getCanRedo() {
+        return redoHistory != null && !gameOver;
+    }
+
+    /**
+     * Sets the journal where the moves of the player are recorded.
+     * @param journal the journal of the game or null to stop recording
+     */
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the journal where the moves of the player are recorded.
+     * @return the journal of the game or null if the moves are not recorded
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the state of the game board.
+     * @return the state of the game board
+     */
+    public BoardState getState() {
+        return state;
+    }
+
+    /**
+     * Returns whether the game runs headless (without a board of tiles).
+     * @return true if the game is headless, false otherwise
+     */
+    public boolean getHeadless() {
+        return headless;
+    }
+
     /**
      * Returns the size of the board.
      * @return the size of the board
@@ -384,6 +1012,22 @@ public class GameLogic {
         return numRevealed;
     }
 
+    /**
+     * Returns the number of revealed mines (by the supermine rule or at the end of a lost game).
+     * @return the number of revealed mines
+     */
+    public int getMinesRevealed() {
+        return minesRevealed;
+    }
+
+    /**
+     * Returns the number of tiles without mines that are not revealed yet. The game is won when it is 0.
+     * @return the number of safe tiles left
+     */
+    public int getSafeRemaining() {
+        return boardsize * boardsize - numMines - numRevealed;
+    }
+
     /**
      * Returns the maximum time allowed for the game.
      * @return the maximum time allowed for the game
@@ -393,11 +1037,43 @@ public class GameLogic {
     }
 
     /**
-     * Returns the time left for the game.
-     * @return the time left for the game
+     * Returns the time left for the game, rounded up to whole seconds (so it is 0 only when the time has run out).
+     * @return the time left for the game in seconds
      */
     public long getTimeLeft() {
-        return timeLeft;
+        return (clock.getRemainingNanos() + 999_999_999L) / 1_000_000_000L;
+    }
+
+    /**
+     * Returns the elapsed time of the game in whole seconds, as it is stored in the journal.
+     * @return the elapsed time of the game in seconds
+     */
+    private long getElapsedSeconds() {
+        return clock.getElapsedNanos() / 1_000_000_000L;
+    }
+
+    /**
+     * Returns the elapsed time of the game, with the precision of the monotonic clock.
+     * @return the elapsed time of the game in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return clock.getElapsedNanos();
+    }
+
+    /**
+     * Returns the elapsed time of the game in milliseconds.
+     * @return the elapsed time of the game in milliseconds
+     */
+    public long getElapsedMillis() {
+        return clock.getElapsedMillis();
+    }
+
+    /**
+     * Returns whether the timer of a game in progress is paused (see pause()).
+     * @return true if the timer has started and is paused
+     */
+    public boolean getPaused() {
+        return StartedTimer && !gameOver && !clock.isRunning();
     }
 
     /**
@@ -424,6 +1100,48 @@ public class GameLogic {
         return gameLost;
     }
 
+    /**
+     * Returns whether a tile is revealed.
+     * @param row the row index of the tile
+     * @param col the column index of the tile
+     * @return true if the tile is revealed
+     */
+    public boolean isRevealed(int row, int col) {
+        return state.isRevealed(row, col);
+    }
+
+    /**
+     * Returns whether a tile is flagged.
+     * @param row the row index of the tile
+     * @param col the column index of the tile
+     * @return true if the tile is flagged
+     */
+    public boolean isFlagged(int row, int col) {
+        return state.isFlagged(row, col);
+    }
+
+    /**
+     * Returns whether a tile contains a mine or the supermine.
+     * @param row the row index of the tile
+     * @param col the column index of the tile
+     * @return true if the tile contains a mine
+     */
+    public boolean isMine(int row, int col) {
+        return state.isMine(row, col);
+    }
+
+    /**
+     * Returns the 3BV of the board, i.e. the minimum number of left clicks that solve it (see ThreeBV).
+     * It is computed once per board.
+     * @return the 3BV of the board
+     */
+    public int getThreeBV() {
+        if(threeBV < 0) {
+            threeBV = ThreeBV.compute(state);
+        }
+        return threeBV;
+    }
+
     /**
     * Returns the number of attempts the player has made to win the game.
     * @return the number of attempts the player has made to win the game
@@ -433,10 +1151,27 @@ public class GameLogic {
     }
 
     /**
-     * Returns the timer used to keep track of time in the game.
-     * @return the timer used to keep track of time in the game
+     * Returns the clock used to keep track of time in the game.
+     * @return the clock used to keep track of time in the game
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the action that runs when the game is lost because the time ran out. It runs on the FX thread,
+     * right after the game has ended.
+     * @param onTimeUp the action (or null)
+     */
+    public void setOnTimeUp(Runnable onTimeUp) {
+        this.onTimeUp = onTimeUp;
+    }
+
+    /**
+     * Sets the ID of the scenario of the game, which is stored with its round.
+     * @param scenarioId the ID of the scenario (or null if it is unknown)
      */
-    public Timer getTimer() {
-        return timer;
+    public void setScenarioId(String scenarioId) {
+        this.scenarioId = scenarioId;
     }
 }
\ No newline at end of file
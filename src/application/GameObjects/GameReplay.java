@@ -0,0 +1,107 @@
+package application.GameObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reconstructs a game from its MoveJournal. The board is regenerated from the journal's seed and
+ * the moves are applied to a headless GameLogic. To seek to any move without replaying from move 0, a snapshot
+ * of the game (checkpoint) is kept every CHECKPOINT_INTERVAL moves. Checkpoints are cheap, because snapshots
+ * share the board state with copy-on-write.
+ */
+public class GameReplay {
+
+    public static final int CHECKPOINT_INTERVAL = 32;
+
+    private final MoveJournal journal;
+    private final GameLogic gameLogic;
+    private final List<GameSnapshot> checkpoints;   // checkpoints.get(k) is the game after k * CHECKPOINT_INTERVAL moves
+    private int position;                           // number of moves applied to gameLogic
+
+    /**
+     * Constructs a replay of the given journal, positioned before the first move.
+     * @param journal the journal of the game
+     */
+    public GameReplay(MoveJournal journal) {
+        this.journal = journal;
+        BoardGenerator boardGenerator = new BoardGenerator(journal.getDifficultyLevel(), journal.getNumMines(),
+                                                           journal.getHasSupermine(), journal.getSeed());
+        this.gameLogic = new GameLogic(boardGenerator.GenerateLayout(), journal.getNumMines(), journal.getMaxTime());
+        this.gameLogic.setUndoEnabled(true);
+        this.checkpoints = new ArrayList<>();
+        this.checkpoints.add(gameLogic.saveSnapshot());
+        this.position = 0;
+    }
+
+    /**
+     * Moves the replay to the state of the game after the first n moves.
+     * The game is restored from the nearest checkpoint at or before n and the remaining moves are applied.
+     * Moving forward from the current position only applies the missing moves.
+     * @param n the number of moves to apply (0 to journal.size())
+     * @return the game after n moves
+     */
+    public GameLogic seek(int n) {
+        if(n < 0 || n > journal.size()) {
+            throw new IndexOutOfBoundsException("Move " + n + " is out of range 0-" + journal.size());
+        }
+
+        // Restore the nearest checkpoint, unless the current position is closer
+        int checkpoint = Math.min(n / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+        if(position > n || position < checkpoint * CHECKPOINT_INTERVAL) {
+            gameLogic.restoreSnapshot(checkpoints.get(checkpoint));
+            position = checkpoint * CHECKPOINT_INTERVAL;
+        }
+
+        // Apply the remaining moves and keep a checkpoint every CHECKPOINT_INTERVAL moves
+        while(position < n) {
+            journal.apply(gameLogic, position);
+            position++;
+            if(position % CHECKPOINT_INTERVAL == 0 && position / CHECKPOINT_INTERVAL == checkpoints.size()) {
+                checkpoints.add(gameLogic.saveSnapshot());
+            }
+        }
+        return gameLogic;
+    }
+
+    /**
+     * Applies the next move.
+     * @return the game after the move
+     */
+    public GameLogic next() {
+        return seek(Math.min(position + 1, journal.size()));
+    }
+
+    /**
+     * Goes back one move.
+     * @return the game before the current move
+     */
+    public GameLogic previous() {
+        return seek(Math.max(position - 1, 0));
+    }
+
+    // Getters
+
+    /**
+     * Returns the number of moves applied so far.
+     * @return the current position of the replay
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the journal of the replay.
+     * @return the journal
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the replayed game.
+     * @return the game
+     */
+    public GameLogic getGameLogic() {
+        return gameLogic;
+    }
+}
@@ -0,0 +1,286 @@
+package application.GameObjects;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is an immutable snapshot of the complete state of a game: the mines, the revealed and flagged
+ * tiles, the counters (marked tiles, revealed tiles, attempts), the elapsed time, the supermine flag and whether
+ * it is a practice game (see GameLogic.setUndoEnabled).
+ * Taking a snapshot and restoring it costs O(1), because the board is shared with copy-on-write (see BoardState.fork).
+ * A snapshot can also be encoded to a compact binary form, which is used to save a game in progress.
+ * The undo/redo history of the game is kept in memory only, it is not part of the binary form.
+ *
+ * Binary format (big endian):
+ *      int magic, byte version, int boardsize, int numMines, int maxTime, int markedTiles, int numRevealed,
+ *      long elapsedNanos, int attempts, byte flags, int superMine, long[] mines, long[] revealed, long[] flagged
+ * The flags are the supermine rule, game over, won, lost and practice bits.
+ * Version 1 stored the time left in whole seconds instead of the elapsed nanoseconds; it can still be read.
+ */
+public class GameSnapshot {
+
+    private static final int MAGIC = 0x4D534750; // "MSGP"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_SECONDS = 1;
+    private static final int HEADER_SIZE = 42;
+
+    // Bits of the flags byte
+    private static final int FLAG_SUPERMINE = 1;
+    private static final int FLAG_GAME_OVER = 2;
+    private static final int FLAG_GAME_WON = 4;
+    private static final int FLAG_GAME_LOST = 8;
+    private static final int FLAG_PRACTICE = 16;
+
+    private final BoardState state;
+    private final int numMines;
+    private final int maxTime;
+    private final int markedTiles;
+    private final int numRevealed;
+    private final long elapsedNanos;
+    private final int attempts;
+    private final boolean flagSuperMine;
+    private final boolean gameOver;
+    private final boolean gameWon;
+    private final boolean gameLost;
+    private final boolean practice;
+    final MoveDelta.Node undoHistory;
+    final MoveDelta.Node redoHistory;
+
+    /**
+     * Constructs a new snapshot. The given state must not be modified afterwards (pass a fork).
+     * @param state the board state
+     * @param numMines the total number of mines
+     * @param maxTime the maximum time of the game
+     * @param markedTiles the number of tiles marked as mines
+     * @param numRevealed the number of revealed tiles
+     * @param elapsedNanos the elapsed time in nanoseconds
+     * @param attempts the number of player's left clicks
+     * @param flagSuperMine true if the supermine rule has already been used
+     * @param gameOver true if the game is over
+     * @param gameWon true if the player won
+     * @param gameLost true if the player lost
+     */
+    public GameSnapshot(BoardState state, int numMines, int maxTime, int markedTiles, int numRevealed, long elapsedNanos,
+                        int attempts, boolean flagSuperMine, boolean gameOver, boolean gameWon, boolean gameLost) {
+        this(state, numMines, maxTime, markedTiles, numRevealed, elapsedNanos, attempts, flagSuperMine,
+             gameOver, gameWon, gameLost, false, null, null);
+    }
+
+    /**
+     * Constructs a new snapshot that also holds whether it is a practice game and its undo/redo history.
+     */
+    GameSnapshot(BoardState state, int numMines, int maxTime, int markedTiles, int numRevealed, long elapsedNanos,
+                 int attempts, boolean flagSuperMine, boolean gameOver, boolean gameWon, boolean gameLost,
+                 boolean practice, MoveDelta.Node undoHistory, MoveDelta.Node redoHistory) {
+        this.undoHistory = undoHistory;
+        this.redoHistory = redoHistory;
+        this.state = state;
+        this.numMines = numMines;
+        this.maxTime = maxTime;
+        this.markedTiles = markedTiles;
+        this.numRevealed = numRevealed;
+        this.elapsedNanos = elapsedNanos;
+        this.attempts = attempts;
+        this.flagSuperMine = flagSuperMine;
+        this.gameOver = gameOver;
+        this.gameWon = gameWon;
+        this.gameLost = gameLost;
+        this.practice = practice;
+    }
+
+    /**
+     * Encodes the snapshot to its binary form.
+     * @return the encoded snapshot
+     */
+    public byte[] toBytes() {
+        int words = state.getMines().length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 3 * 8 * words);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putInt(state.getBoardsize());
+        buffer.putInt(numMines);
+        buffer.putInt(maxTime);
+        buffer.putInt(markedTiles);
+        buffer.putInt(numRevealed);
+        buffer.putLong(elapsedNanos);
+        buffer.putInt(attempts);
+        int flags = (flagSuperMine ? FLAG_SUPERMINE : 0) | (gameOver ? FLAG_GAME_OVER : 0)
+                  | (gameWon ? FLAG_GAME_WON : 0) | (gameLost ? FLAG_GAME_LOST : 0) | (practice ? FLAG_PRACTICE : 0);
+        buffer.put((byte) flags);
+        buffer.putInt(state.getSuperMine());
+        buffer.asLongBuffer().put(state.getMines()).put(state.getRevealed()).put(state.getFlagged());
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a snapshot from its binary form.
+     * @param bytes the encoded snapshot
+     * @return the decoded snapshot
+     * @throws IOException if the data is not a valid snapshot
+     */
+    public static GameSnapshot fromBytes(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if(bytes.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Invalid game snapshot");
+        }
+        byte version = buffer.get();
+        if(version != VERSION && version != VERSION_SECONDS) {
+            throw new IOException("Invalid game snapshot");
+        }
+        int boardsize = buffer.getInt();
+        int numMines = buffer.getInt();
+        int maxTime = buffer.getInt();
+        int markedTiles = buffer.getInt();
+        int numRevealed = buffer.getInt();
+        long elapsedNanos = buffer.getLong();
+        int attempts = buffer.getInt();
+        int flags = buffer.get();
+        int superMine = buffer.getInt();
+
+        int words = (boardsize * boardsize + 63) >>> 6;
+        if(boardsize <= 0 || buffer.remaining() != 3 * 8 * words) {
+            throw new IOException("Invalid game snapshot");
+        }
+        long[] mines = new long[words];
+        long[] revealed = new long[words];
+        long[] flagged = new long[words];
+        buffer.asLongBuffer().get(mines).get(revealed).get(flagged);
+
+        if(version == VERSION_SECONDS) {
+            elapsedNanos = TimeUnit.SECONDS.toNanos(maxTime - elapsedNanos);
+        }
+
+        BoardState state = new BoardState(boardsize, mines, revealed, flagged, superMine);
+        return new GameSnapshot(state, numMines, maxTime, markedTiles, numRevealed, elapsedNanos, attempts,
+                                (flags & FLAG_SUPERMINE) != 0, (flags & FLAG_GAME_OVER) != 0,
+                                (flags & FLAG_GAME_WON) != 0, (flags & FLAG_GAME_LOST) != 0,
+                                (flags & FLAG_PRACTICE) != 0, null, null);
+    }
+
+    /**
+     * Writes the snapshot to a file. The data is first written to a temporary file which then replaces
+     * the target, so a crash while saving never leaves a half written snapshot behind.
+     * @param path the path of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(Path path) throws IOException {
+        if(path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmpPath, toBytes());
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     * @param path the path of the file
+     * @return the snapshot
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static GameSnapshot readFrom(Path path) throws IOException {
+        return fromBytes(Files.readAllBytes(path));
+    }
+
+    // Getters
+
+    /**
+     * Returns the board state of the snapshot. The returned state must not be modified (fork it first).
+     * @return the board state
+     */
+    public BoardState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the total number of mines.
+     * @return the total number of mines
+     */
+    public int getNumMines() {
+        return numMines;
+    }
+
+    /**
+     * Returns the maximum time of the game.
+     * @return the maximum time of the game
+     */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Returns the number of marked tiles.
+     * @return the number of marked tiles
+     */
+    public int getMarkedTiles() {
+        return markedTiles;
+    }
+
+    /**
+     * Returns the number of revealed tiles.
+     * @return the number of revealed tiles
+     */
+    public int getNumRevealed() {
+        return numRevealed;
+    }
+
+    /**
+     * Returns the elapsed time.
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of attempts.
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns whether the supermine rule has already been used.
+     * @return true if the supermine rule has been used
+     */
+    public boolean getFlagSuperMine() {
+        return flagSuperMine;
+    }
+
+    /**
+     * Returns whether the game is over.
+     * @return true if the game is over
+     */
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Returns whether the player won.
+     * @return true if the player won
+     */
+    public boolean getGameWon() {
+        return gameWon;
+    }
+
+    /**
+     * Returns whether the player lost.
+     * @return true if the player lost
+     */
+    public boolean getGameLost() {
+        return gameLost;
+    }
+
+    /**
+     * Returns whether the snapshot is of a practice game, whose moves can be undone.
+     * @return true if it is a practice game
+     */
+    public boolean getPractice() {
+        return practice;
+    }
+}
@@ -0,0 +1,399 @@
+package application.GameObjects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * This class runs a query on the round history: the rounds that match a filter, sorted by a column. The query is
+ * built with one streaming pass over the history and then read a page at a time, so its memory doesn't depend on
+ * the number of rounds:
+ *      -> sorted by date (the order of the history), it keeps the position of every PAGE_SIZE-th matching round,
+ *         and a page is read from the nearest one;
+ *      -> sorted by another column, the keys and positions of the matching rounds are sorted on disk (in runs of
+ *         RUN_SIZE rounds which are then merged) into a temporary file of positions, and a page reads its positions
+ *         from it and then its rounds.
+ * Rounds of the same key keep the order of the history. Rounds that are appended to the history after the query
+ * was built are not part of it.
+ *
+ * A HistoryQuery is not thread safe. Its temporary file is deleted when it is closed.
+ */
+public class HistoryQuery implements Closeable {
+
+    public static final int PAGE_SIZE = 256;
+
+    // The columns a query can be sorted by
+    public static final int COLUMN_DATE = 0;
+    public static final int COLUMN_MINES = 1;
+    public static final int COLUMN_ATTEMPTS = 2;
+    public static final int COLUMN_THREE_BV = 3;
+    public static final int COLUMN_TIME = 4;
+    public static final int COLUMN_WINNER = 5;
+
+    private static final int RUN_SIZE = 1 << 16;
+    private static final int MERGE_BUFFER = 1 << 14;
+    private static final int SMALL_RECORD = 128;   // Enough for a round with a usual scenario ID
+
+    private static final Comparator<Entry> ENTRY_ORDER = (a, b) -> a.key != b.key ? Long.compare(a.key, b.key)
+                                                                                  : Long.compare(a.position, b.position);
+
+    /**
+     * history          -> The path of the history
+     * filter           -> The rounds of the query (null for every round)
+     * column           -> The column the rounds are sorted by
+     * descending       -> true if the rounds are sorted from the largest key
+     * size             -> The number of rounds of the query
+     * pagePositions    -> Sorted by date: the position of every PAGE_SIZE-th round of the query
+     * sortedPath       -> Sorted by another column: the temporary file with the sorted positions of the rounds
+     * sorted           -> The open sorted positions
+     * historyChannel   -> The open history, for the rounds of the sorted positions
+     * record           -> A buffer for the round that is read
+     */
+
+    private final Path history;
+    private final Predicate<RoundRecord> filter;
+    private final int column;
+    private final boolean descending;
+    private long size;
+    private long[] pagePositions = new long[16];
+    private Path sortedPath;
+    private FileChannel sorted;
+    private FileChannel historyChannel;
+    private final byte[] record = new byte[RoundHistory.MAX_RECORD_SIZE];
+
+    private HistoryQuery(Path history, Predicate<RoundRecord> filter, int column, boolean descending) {
+        this.history = history;
+        this.filter = filter;
+        this.column = column;
+        this.descending = descending;
+    }
+
+    /**
+     * Runs a query on a history file. It reads the whole history once, without keeping its rounds in memory.
+     * @param history the path of the history
+     * @param filter the rounds of the query (null for every round)
+     * @param column the column the rounds are sorted by (COLUMN_DATE, COLUMN_MINES, ...)
+     * @param descending true to sort the rounds from the largest key (e.g. the latest round first)
+     * @return the query
+     * @throws IOException if an I/O error occurs or the file is not a round history
+     */
+    public static HistoryQuery run(Path history, Predicate<RoundRecord> filter, int column, boolean descending) throws IOException {
+        if(column < COLUMN_DATE || column > COLUMN_WINNER) {
+            throw new IllegalArgumentException("Invalid column: " + column);
+        }
+        HistoryQuery query = new HistoryQuery(history, filter, column, descending);
+        try {
+            if(column == COLUMN_DATE) {
+                query.index();
+            }
+            else {
+                query.sort();
+            }
+        } catch (IOException | RuntimeException e) {
+            query.close();
+            throw e;
+        }
+        return query;
+    }
+
+    /**
+     * Keeps the position of every PAGE_SIZE-th round of the query.
+     */
+    private void index() throws IOException {
+        try (RoundHistory.Reader reader = RoundHistory.read(history)) {
+            long position = reader.getPosition();
+            for(RoundRecord round = reader.next(); round != null; position = reader.getPosition(), round = reader.next()) {
+                if(filter != null && !filter.test(round)) {
+                    continue;
+                }
+                if(size % PAGE_SIZE == 0) {
+                    int page = (int) (size / PAGE_SIZE);
+                    if(page == pagePositions.length) {
+                        pagePositions = Arrays.copyOf(pagePositions, 2 * page);
+                    }
+                    pagePositions[page] = position;
+                }
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Sorts the keys and positions of the rounds of the query: every RUN_SIZE rounds are sorted in memory and
+     * written to a temporary file, and the runs are then merged into the file of the sorted positions.
+     */
+    private void sort() throws IOException {
+        sortedPath = Files.createTempFile("rounds", ".sorted");
+        Path runsPath = Files.createTempFile("rounds", ".runs");
+        try {
+            Entry[] run = new Entry[RUN_SIZE];
+            for(int i = 0; i < RUN_SIZE; i++) {
+                run[i] = new Entry();
+            }
+            int runs = 0;
+            int length = 0;
+            try (RoundHistory.Reader reader = RoundHistory.read(history);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(runsPath), 1 << 16))) {
+                long position = reader.getPosition();
+                for(RoundRecord round = reader.next(); round != null; position = reader.getPosition(), round = reader.next()) {
+                    if(filter != null && !filter.test(round)) {
+                        continue;
+                    }
+                    run[length].key = key(round);
+                    run[length].position = position;
+                    length++;
+                    size++;
+                    if(length == RUN_SIZE) {
+                        writeRun(out, run, length);
+                        runs++;
+                        length = 0;
+                    }
+                }
+                if(length > 0) {
+                    writeRun(out, run, length);
+                    runs++;
+                }
+            }
+            merge(runsPath, runs);
+        } finally {
+            Files.deleteIfExists(runsPath);
+        }
+        sorted = FileChannel.open(sortedPath);
+    }
+
+    private static void writeRun(DataOutputStream out, Entry[] run, int length) throws IOException {
+        Arrays.sort(run, 0, length, ENTRY_ORDER);
+        for(int i = 0; i < length; i++) {
+            out.writeLong(run[i].key);
+            out.writeLong(run[i].position);
+        }
+    }
+
+    /**
+     * Merges the sorted runs (every run but the last one has RUN_SIZE entries) into the sorted positions.
+     */
+    private void merge(Path runsPath, int runs) throws IOException {
+        List<Cursor> cursors = new ArrayList<>(runs);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(sortedPath), 1 << 16))) {
+            PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(runs, 1), (a, b) -> ENTRY_ORDER.compare(a.entry, b.entry));
+            for(int i = 0; i < runs; i++) {
+                long entries = Math.min(RUN_SIZE, size - (long) i * RUN_SIZE);
+                Cursor cursor = new Cursor(runsPath, (long) i * RUN_SIZE * 16, entries);
+                cursors.add(cursor);
+                if(cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+            while(!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                out.writeLong(cursor.entry.position);
+                if(cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+        } finally {
+            for(Cursor cursor : cursors) {
+                cursor.in.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the sort key of a round for the column of the query.
+     */
+    private long key(RoundRecord round) {
+        switch(column) {
+            case COLUMN_MINES:
+                return round.getNumMines();
+            case COLUMN_ATTEMPTS:
+                return round.getAttempts();
+            case COLUMN_THREE_BV:
+                return round.getThreeBV();
+            case COLUMN_TIME:
+                return round.getTotalGameTime();
+            case COLUMN_WINNER:
+                return round.getWinner().equals("Player") ? 1 : 0;
+            default:
+                return round.getDate();
+        }
+    }
+
+    /**
+     * Reads a page of the query.
+     * @param page the number of the page (the first one is 0)
+     * @return the rounds of the page (PAGE_SIZE rounds, or less for the last page) in the order of the query
+     * @throws IOException if an I/O error occurs
+     */
+    public List<RoundRecord> readPage(int page) throws IOException {
+        long first = (long) page * PAGE_SIZE;
+        if(page < 0 || first >= size) {
+            return Collections.emptyList();
+        }
+        int length = (int) Math.min(PAGE_SIZE, size - first);
+        long from = descending ? size - first - length : first;
+        List<RoundRecord> rounds = sortedPath == null ? readIndexed(from, length) : readSorted(from, length);
+        if(descending) {
+            Collections.reverse(rounds);
+        }
+        return rounds;
+    }
+
+    /**
+     * Reads rounds of the query in the order of the history, from the nearest kept position.
+     */
+    private List<RoundRecord> readIndexed(long from, int length) throws IOException {
+        List<RoundRecord> rounds = new ArrayList<>(length);
+        long skip = from % PAGE_SIZE;
+        try (RoundHistory.Reader reader = RoundHistory.read(history, pagePositions[(int) (from / PAGE_SIZE)])) {
+            for(RoundRecord round = reader.next(); round != null && rounds.size() < length; round = reader.next()) {
+                if(filter != null && !filter.test(round)) {
+                    continue;
+                }
+                if(skip > 0) {
+                    skip--;
+                }
+                else {
+                    rounds.add(round);
+                }
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * Reads rounds of the query at their sorted positions.
+     */
+    private List<RoundRecord> readSorted(long from, int length) throws IOException {
+        ByteBuffer positions = ByteBuffer.allocate(8 * length);
+        while(positions.hasRemaining()) {
+            if(sorted.read(positions, 8 * from + positions.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        positions.flip();
+        if(historyChannel == null) {
+            historyChannel = FileChannel.open(history);
+        }
+        List<RoundRecord> rounds = new ArrayList<>(length);
+        for(int i = 0; i < length; i++) {
+            rounds.add(readAt(positions.getLong()));
+        }
+        return rounds;
+    }
+
+    /**
+     * Reads the round at a position of the history (the first bytes, and all of them only for a long scenario ID).
+     */
+    private RoundRecord readAt(long position) throws IOException {
+        try {
+            return RoundHistory.decode(new DataInputStream(new ByteArrayInputStream(record, 0, readRecord(position, SMALL_RECORD))));
+        } catch (EOFException e) {
+            return RoundHistory.decode(new DataInputStream(new ByteArrayInputStream(record, 0, readRecord(position, record.length))));
+        }
+    }
+
+    private int readRecord(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+        while(buffer.hasRemaining() && historyChannel.read(buffer, position + buffer.position()) >= 0) {
+            // Read until the buffer is full or the file ends
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Returns the number of rounds of the query.
+     * @return the number of rounds
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of pages of the query.
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        return (int) ((size + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * Returns the column the rounds are sorted by.
+     * @return the column (COLUMN_DATE, COLUMN_MINES, ...)
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns whether the rounds are sorted from the largest key.
+     * @return true if they are sorted in descending order
+     */
+    public boolean getDescending() {
+        return descending;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(sorted != null) {
+            sorted.close();
+        }
+        if(historyChannel != null) {
+            historyChannel.close();
+        }
+        if(sortedPath != null) {
+            Files.deleteIfExists(sortedPath);
+        }
+    }
+
+    /**
+     * The sort key and the position of a round.
+     */
+    private static class Entry {
+        long key;
+        long position;
+    }
+
+    /**
+     * Reads the entries of a sorted run, in order.
+     */
+    private static class Cursor {
+
+        final DataInputStream in;
+        final Entry entry = new Entry();
+        long remaining;
+
+        Cursor(Path runsPath, long position, long entries) throws IOException {
+            FileChannel channel = FileChannel.open(runsPath);
+            channel.position(position);
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), MERGE_BUFFER));
+            this.remaining = entries;
+        }
+
+        boolean next() throws IOException {
+            if(remaining == 0) {
+                return false;
+            }
+            entry.key = in.readLong();
+            entry.position = in.readLong();
+            remaining--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package application.GameObjects;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class exports the mine layouts of the generated boards. A layout can be written:
+ *      -> as text, in the format of mines.txt (one line "row,col,isSupermine" per mine)
+ *      -> to an archive that keeps the layout of every game, instead of one file that is overwritten.
+ *
+ * The archive consists of two files: mines.archive holds the records and mines.index holds the offset
+ * (a long) of each record, so the layout of any game can be read by its index.
+ * Each record is: byte format, long seed, int boardsize, int superMine, int length, and then length bytes
+ * with the mines, either as a bitset (BINARY) or as text lines (TEXT).
+ *
+ * All the data is encoded in reusable buffers and written with FileChannels, without creating Strings.
+ * The archive's records are buffered, so an exporter should be kept open while many boards are exported
+ * and closed (or flushed) at the end.
+ */
+public class MineExporter implements Closeable {
+
+    // Formats of the layouts
+    public static final byte BINARY = 0;
+    public static final byte TEXT = 1;
+
+    public static final String ARCHIVE_FILE = "mines.archive";
+    public static final String INDEX_FILE = "mines.index";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int RECORD_HEADER_SIZE = 21;
+
+    private final FileChannel archiveChannel;
+    private final FileChannel indexChannel;
+    private ByteBuffer buffer;              // Reusable buffer for the records (and the text files)
+    private final ByteBuffer indexBuffer;  // Reusable buffer for the offsets of the records
+    private long archiveSize;              // Size of the archive, including the buffered records
+
+    /**
+     * Opens (or creates) the archive in the given directory.
+     * @param directory the directory of the archive
+     * @throws IOException if an I/O error occurs
+     */
+    public MineExporter(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.archiveChannel = FileChannel.open(directory.resolve(ARCHIVE_FILE), StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                                             StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.archiveSize = archiveChannel.size();
+    }
+
+    /**
+     * Writes the layout of a board as text to a file, in the format of mines.txt.
+     * The archive's buffered records are flushed first, because the same buffer is used.
+     * @param state the board
+     * @param path the path of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeText(BoardState state, Path path) throws IOException {
+        flush();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            encodeText(state, channel);
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Appends the layout of a board to the archive.
+     * @param state the board
+     * @param seed the seed of the board
+     * @param format BINARY or TEXT
+     * @return the index of the layout in the archive
+     * @throws IOException if an I/O error occurs
+     */
+    public long append(BoardState state, long seed, byte format) throws IOException {
+        long[] mines = state.getMines();
+        int recordSize = RECORD_HEADER_SIZE + 8 * mines.length;
+        if(buffer.remaining() < recordSize) {
+            flushRecords();
+            if(buffer.capacity() < recordSize) {
+                buffer = ByteBuffer.allocateDirect(recordSize);
+            }
+        }
+        if(indexBuffer.remaining() < 8) {
+            flushIndex();
+        }
+
+        long offset = archiveSize;
+        int start = buffer.position();
+        buffer.put(format);
+        buffer.putLong(seed);
+        buffer.putInt(state.getBoardsize());
+        buffer.putInt(state.getSuperMine());
+        buffer.putInt(0); // The length is set after the payload is written
+        if(format == BINARY) {
+            for(long word : mines) {
+                buffer.putLong(word);
+            }
+        }
+        else {
+            encodeText(state, archiveChannel);
+        }
+        int length = buffer.position() - start - RECORD_HEADER_SIZE;
+        buffer.putInt(start + RECORD_HEADER_SIZE - 4, length);
+        archiveSize += RECORD_HEADER_SIZE + length;
+
+        indexBuffer.putLong(offset);
+        return (indexChannel.size() + indexBuffer.position()) / 8 - 1;
+    }
+
+    /**
+     * Reads the layout with the given index from the archive.
+     * @param index the index of the layout
+     * @return the board, with nothing revealed or flagged
+     * @throws IOException if an I/O error occurs or the index does not exist
+     */
+    public BoardState read(long index) throws IOException {
+        flush();
+        if(index < 0 || index >= indexChannel.size() / 8) {
+            throw new IOException("There is no layout with index " + index);
+        }
+        ByteBuffer offsetBuffer = ByteBuffer.allocate(8);
+        readFully(indexChannel, offsetBuffer, index * 8);
+        long offset = offsetBuffer.getLong(0);
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        readFully(archiveChannel, header, offset);
+        byte format = header.get(0);
+        int boardsize = header.getInt(9);
+        int superMine = header.getInt(13);
+        int length = header.getInt(17);
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(archiveChannel, payload, offset + RECORD_HEADER_SIZE);
+        payload.flip();
+
+        BoardState state = new BoardState(boardsize);
+        if(format == BINARY) {
+            payload.asLongBuffer().get(state.getMines());
+        }
+        else {
+            // Parse the "row,col,isSupermine" lines
+            int[] numbers = new int[3];
+            int count = 0;
+            int value = 0;
+            while(payload.hasRemaining()) {
+                byte b = payload.get();
+                if(b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                }
+                else {
+                    numbers[count++] = value;
+                    value = 0;
+                    if(b == '\n') {
+                        state.setValue(numbers[0], numbers[1], numbers[2] == 1 ? BoardState.SUPER_MINE : BoardState.MINE);
+                        count = 0;
+                    }
+                }
+            }
+        }
+        if(format == BINARY && superMine >= 0) {
+            state.setValue(superMine / boardsize, superMine % boardsize, BoardState.SUPER_MINE);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the number of layouts in the archive.
+     * @return the number of layouts
+     * @throws IOException if an I/O error occurs
+     */
+    public long size() throws IOException {
+        return (indexChannel.size() + indexBuffer.position()) / 8;
+    }
+
+    /**
+     * Writes the buffered records and offsets to the archive.
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        flushRecords();
+        flushIndex();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            archiveChannel.close();
+            indexChannel.close();
+        }
+    }
+
+    /**
+     * Encodes the mines of a board as text lines ("row,col,isSupermine") in the buffer. If the buffer
+     * gets full, it is flushed to the given channel (or grown, if the channel is the archive, because
+     * a record must stay in the buffer until its length is known).
+     * @param state the board
+     * @param channel the channel the text is written to
+     * @throws IOException if an I/O error occurs
+     */
+    private void encodeText(BoardState state, FileChannel channel) throws IOException {
+        int boardsize = state.getBoardsize();
+        long[] mines = state.getMines();
+        for(int w = 0; w < mines.length; w++) {
+            long word = mines[w];
+            while(word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                // A line has at most 2 * 10 digits + 4 characters
+                if(buffer.remaining() < 24) {
+                    if(channel == archiveChannel) {
+                        ByteBuffer bigger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                        buffer.flip();
+                        bigger.put(buffer);
+                        buffer = bigger;
+                    }
+                    else {
+                        buffer.flip();
+                        writeFully(channel, buffer);
+                        buffer.clear();
+                    }
+                }
+                putDigits(index / boardsize);
+                buffer.put((byte) ',');
+                putDigits(index % boardsize);
+                buffer.put((byte) ',');
+                buffer.put((byte) (index == state.getSuperMine() ? '1' : '0'));
+                buffer.put((byte) '\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative number to the buffer.
+     * @param value the number
+     */
+    private void putDigits(int value) {
+        if(value >= 10) {
+            putDigits(value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private void flushRecords() throws IOException {
+        buffer.flip();
+        archiveChannel.position(archiveChannel.size());
+        writeFully(archiveChannel, buffer);
+        buffer.clear();
+    }
+
+    private void flushIndex() throws IOException {
+        indexBuffer.flip();
+        indexChannel.position(indexChannel.size());
+        writeFully(indexChannel, indexBuffer);
+        indexBuffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        while(data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+        while(data.hasRemaining()) {
+            if(channel.read(data, position + data.position()) < 0) {
+                throw new IOException("Unexpected end of the mines archive");
+            }
+        }
+    }
+}
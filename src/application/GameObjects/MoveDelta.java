@@ -0,0 +1,85 @@
+package application.GameObjects;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the changes caused by one move of the player, so that the move can be undone and redone.
+ * Only the tiles that changed are stored (the tiles opened by a flood reveal and the flag toggles), together with
+ * the values of the game's counters before and after the move. This way undoing a move costs O(changed tiles).
+ *
+ * Each change is packed in one int: index * 2 + type, where type is REVEALED or FLAG_TOGGLED.
+ */
+class MoveDelta {
+
+    // Types of changes
+    static final int REVEALED = 0;
+    static final int FLAG_TOGGLED = 1;
+
+    private int[] changes;
+    private int size;
+
+    /**
+     * Values of the counters before and after the move. Each array holds
+     * {MarkedTiles, numRevealed, attempts, flagSuperMine, gameOver, gameWon, gameLost, minesRevealed}
+     */
+    int[] before;
+    int[] after;
+
+    MoveDelta() {
+        this.changes = new int[8];
+        this.size = 0;
+    }
+
+    /**
+     * Records a change of the board.
+     * @param type REVEALED or FLAG_TOGGLED
+     * @param index the index of the tile
+     */
+    void add(int type, int index) {
+        if(size == changes.length) {
+            changes = Arrays.copyOf(changes, size * 2);
+        }
+        changes[size++] = (index << 1) | type;
+    }
+
+    /**
+     * Returns whether the move changed nothing.
+     * @return true if the move changed neither the board nor the counters
+     */
+    boolean isEmpty() {
+        return size == 0 && Arrays.equals(before, after);
+    }
+
+    /**
+     * Removes every change, so the delta can be reused.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getType(int i) {
+        return changes[i] & 1;
+    }
+
+    int getIndex(int i) {
+        return changes[i] >>> 1;
+    }
+
+    /**
+     * Immutable node of a stack of moves (undo or redo history). Since the nodes are never modified,
+     * a snapshot of the game can share the history with the game in O(1).
+     */
+    static final class Node {
+        final MoveDelta delta;
+        final Node next;
+
+        Node(MoveDelta delta, Node next) {
+            this.delta = delta;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package application.GameObjects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * This class records every move of a game (left, right and middle clicks) together with the data needed to
+ * regenerate its board (the seed and the scenario's data). A game can be reconstructed from its journal
+ * using the GameReplay class.
+ *
+ * Each move is packed in one int: the 3 high bits hold the type of the move, the next 14 bits the row
+ * and the low 14 bits the column of the tile. The elapsed game time (in seconds) of each move is also stored.
+ *
+ * Binary format (big endian):
+ *      int magic, long seed, int difficultyLevel, int numMines, int maxTime, boolean hasSupermine,
+ *      int number of moves, then for each move: int move, int elapsed time
+ *
+ * Journals of the first version (magic MAGIC_V1, 2 bits for the type and 15 bits for each coordinate,
+ * without chords) can still be read.
+ */
+public class MoveJournal {
+
+    // Types of moves
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1;
+    public static final int UNDO = 2;
+    public static final int REDO = 3;
+    public static final int CHORD = 4;
+
+    private static final int MAGIC = 0x4D534A32; // "MSJ2"
+    private static final int MAGIC_V1 = 0x4D534A4E; // "MSJN"
+    private static final int COORD_BITS = 14;
+    private static final int COORD_BITS_V1 = 15;
+    private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+
+    private long seed;
+    private int difficultyLevel;
+    private int numMines;
+    private int maxTime;
+    private boolean hasSupermine;
+    private int[] moves;
+    private int[] times;
+    private int size;
+
+    /**
+     * Constructs an empty journal.
+     * @param seed the seed of the board (see BoardGenerator)
+     * @param difficultyLevel the difficulty level of the game (1 or 2)
+     * @param numMines the number of mines
+     * @param maxTime the maximum time of the game
+     * @param hasSupermine whether the board has a supermine
+     */
+    public MoveJournal(long seed, int difficultyLevel, int numMines, int maxTime, boolean hasSupermine) {
+        this.seed = seed;
+        this.difficultyLevel = difficultyLevel;
+        this.numMines = numMines;
+        this.maxTime = maxTime;
+        this.hasSupermine = hasSupermine;
+        this.moves = new int[64];
+        this.times = new int[64];
+        this.size = 0;
+    }
+
+    /**
+     * Empties the journal and sets the data of a new game, so the journal can be reused.
+     * The arrays of the moves are kept.
+     * @param seed the seed of the board (see BoardGenerator)
+     * @param difficultyLevel the difficulty level of the game (1 or 2)
+     * @param numMines the number of mines
+     * @param maxTime the maximum time of the game
+     * @param hasSupermine whether the board has a supermine
+     */
+    public void reset(long seed, int difficultyLevel, int numMines, int maxTime, boolean hasSupermine) {
+        this.seed = seed;
+        this.difficultyLevel = difficultyLevel;
+        this.numMines = numMines;
+        this.maxTime = maxTime;
+        this.hasSupermine = hasSupermine;
+        this.size = 0;
+    }
+
+    /**
+     * Appends a move to the journal.
+     * @param type the type of the move (REVEAL, FLAG, UNDO, REDO or CHORD)
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param elapsedTime the elapsed game time in seconds
+     */
+    public void record(int type, int row, int col, long elapsedTime) {
+        if(row > COORD_MASK || col > COORD_MASK) {
+            throw new IllegalArgumentException("Tile (" + row + ", " + col + ") is too large for a move journal");
+        }
+        if(size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        moves[size] = (type << (2 * COORD_BITS)) | (row << COORD_BITS) | col;
+        times[size] = (int) elapsedTime;
+        size++;
+    }
+
+    /**
+     * Applies the move with the given index to a game.
+     * @param gameLogic the game
+     * @param index the index of the move
+     */
+    public void apply(GameLogic gameLogic, int index) {
+        int row = getRow(index);
+        int col = getCol(index);
+        switch(getType(index)) {
+            case REVEAL:
+                gameLogic.AddRevealClick(row, col);
+                break;
+            case FLAG:
+                gameLogic.flagTile(row, col);
+                break;
+            case UNDO:
+                gameLogic.undo();
+                break;
+            case REDO:
+                gameLogic.redo();
+                break;
+            case CHORD:
+                gameLogic.chordTile(row, col);
+                break;
+        }
+    }
+
+    /**
+     * Writes the journal to a file.
+     * @param path the path of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * Encodes the journal in the format of its file.
+     * @return the encoded journal
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 8 * size);
+        try {
+            writeTo(bytes);
+        } catch (IOException e) {
+            // A ByteArrayOutputStream doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeLong(seed);
+        out.writeInt(difficultyLevel);
+        out.writeInt(numMines);
+        out.writeInt(maxTime);
+        out.writeBoolean(hasSupermine);
+        out.writeInt(size);
+        for(int i = 0; i < size; i++) {
+            out.writeInt(moves[i]);
+            out.writeInt(times[i]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a journal from a file.
+     * @param path the path of the file
+     * @return the journal
+     * @throws IOException if an I/O error occurs or the file is not a valid journal
+     */
+    public static MoveJournal readFrom(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            if(magic != MAGIC && magic != MAGIC_V1) {
+                throw new IOException("Invalid move journal");
+            }
+            int coordBits = magic == MAGIC ? COORD_BITS : COORD_BITS_V1;
+            int coordMask = (1 << coordBits) - 1;
+            MoveJournal journal = new MoveJournal(in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+            int count = in.readInt();
+            for(int i = 0; i < count; i++) {
+                int move = in.readInt();
+                int time = in.readInt();
+                journal.record(move >>> (2 * coordBits), (move >>> coordBits) & coordMask, move & coordMask, time);
+            }
+            return journal;
+        }
+    }
+
+    // Getters
+
+    /**
+     * Returns the number of recorded moves.
+     * @return the number of moves
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a move.
+     * @param index the index of the move
+     * @return REVEAL, FLAG, UNDO, REDO or CHORD
+     */
+    public int getType(int index) {
+        return moves[index] >>> (2 * COORD_BITS);
+    }
+
+    /**
+     * Returns the row of the tile of a move.
+     * @param index the index of the move
+     * @return the row of the tile
+     */
+    public int getRow(int index) {
+        return (moves[index] >>> COORD_BITS) & COORD_MASK;
+    }
+
+    /**
+     * Returns the column of the tile of a move.
+     * @param index the index of the move
+     * @return the column of the tile
+     */
+    public int getCol(int index) {
+        return moves[index] & COORD_MASK;
+    }
+
+    /**
+     * Returns the elapsed game time (in seconds) when a move was made.
+     * @param index the index of the move
+     * @return the elapsed time in seconds
+     */
+    public int getTime(int index) {
+        return times[index];
+    }
+
+    /**
+     * Returns the seed of the board.
+     * @return the seed of the board
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the difficulty level of the game.
+     * @return the difficulty level
+     */
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    /**
+     * Returns the number of mines.
+     * @return the number of mines
+     */
+    public int getNumMines() {
+        return numMines;
+    }
+
+    /**
+     * Returns the maximum time of the game.
+     * @return the maximum time
+     */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Returns whether the board has a supermine.
+     * @return true if the board has a supermine
+     */
+    public boolean getHasSupermine() {
+        return hasSupermine;
+    }
+}
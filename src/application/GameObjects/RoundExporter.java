@@ -0,0 +1,414 @@
+package application.GameObjects;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class exports the round history (see RoundHistory) to a columnar file for analysis. The rounds are
+ * streamed: they are collected in row groups of at most ROWS_PER_GROUP rounds, and every full group is written
+ * column by column, so the memory that is used doesn't depend on the number of rounds.
+ *
+ * Every column of a group is encoded and then compressed on its own (with Deflate):
+ *      -> the numbers are stored as the differences from the previous value (zigzag varints), which are
+ *         small for dates, seeds of consecutive boards and repeating settings
+ *      -> the strings (winner, scenario ID) are stored as a dictionary of the distinct values and a varint
+ *         index per round
+ *      -> a column with missing values (scenario ID, seed) starts with a bitmap of the present ones
+ *
+ * File format (big endian):
+ *      int magic, byte version, the row groups, the footer, int footer length, int magic
+ * Row group: for every column, byte encoding, byte hasNulls, int raw length, int compressed length, compressed data
+ * Footer: int column count, (short length, UTF-8 name, byte type) per column, int group count, (long offset, int rows) per group
+ *
+ * The footer is at the end, so a reader finds the groups without reading them (see readColumn).
+ */
+public class RoundExporter implements Closeable {
+
+    public static final int ROWS_PER_GROUP = 1 << 16;
+    public static final Path DEFAULT_PATH = Paths.get("rounds", "history.columns");
+
+    // Types of the columns
+    public static final byte LONG = 0;
+    public static final byte INT = 1;
+    public static final byte STRING = 2;
+
+    // Encodings of the columns
+    private static final byte DELTA_VARINT = 0;
+    private static final byte DICTIONARY = 1;
+
+    private static final int MAGIC = 0x4D535243; // "MSRC"
+    private static final byte VERSION = 1;
+
+    private static final String[] NAMES = {"date", "numMines", "attempts", "threeBV", "totalGameTime", "winner", "scenarioId", "seed"};
+    private static final byte[] TYPES = {LONG, INT, INT, INT, LONG, STRING, STRING, LONG};
+
+    /**
+     * channel          -> The output file
+     * values           -> The values of every column of the current group (the dictionary index for strings)
+     * present          -> Bitmap of the rows of every column that have a value
+     * dictionaries     -> The distinct strings of every string column of the current group, by index
+     * rows             -> The number of rows of the current group
+     * groupOffsets     -> The offset of every written group
+     * groupRows        -> The number of rows of every written group
+     * raw              -> Reusable buffer for the encoded column
+     * compressed       -> Reusable buffer for the compressed column
+     * deflater         -> Reusable compressor
+     */
+
+    private final FileChannel channel;
+    private final long[][] values = new long[NAMES.length][ROWS_PER_GROUP];
+    private final long[][] present = new long[NAMES.length][ROWS_PER_GROUP / 64];
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    private int rows;
+    private final List<Long> groupOffsets = new ArrayList<>();
+    private final List<Integer> groupRows = new ArrayList<>();
+    private ByteBuffer raw = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer compressed = ByteBuffer.allocate(1 << 16);
+    private final Deflater deflater = new Deflater();
+
+    /**
+     * Creates (or overwrites) a columnar file.
+     * @param path the path of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public RoundExporter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+        for(int c = 0; c < NAMES.length; c++) {
+            dictionaries.add(TYPES[c] == STRING ? new HashMap<>() : null);
+        }
+        ByteBuffer header = ByteBuffer.allocate(5);
+        header.putInt(MAGIC).put(VERSION).flip();
+        writeFully(header);
+    }
+
+    /**
+     * Exports a round history to a columnar file.
+     * @param history the path of the round history
+     * @param output the path of the columnar file
+     * @return the number of exported rounds
+     * @throws IOException if an I/O error occurs
+     */
+    public static long export(Path history, Path output) throws IOException {
+        long count = 0;
+        try (RoundHistory.Reader reader = RoundHistory.read(history); RoundExporter exporter = new RoundExporter(output)) {
+            for(RoundRecord record = reader.next(); record != null; record = reader.next()) {
+                exporter.append(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a round. When the current group is full, it is written to the file.
+     * @param record the round
+     * @throws IOException if an I/O error occurs
+     */
+    public void append(RoundRecord record) throws IOException {
+        set(0, record.getDate());
+        set(1, record.getNumMines());
+        set(2, record.getAttempts());
+        set(3, record.getThreeBV());
+        set(4, record.getTotalGameTime());
+        set(5, index(5, record.getWinner()));
+        if(record.getScenarioId() != null) {
+            set(6, index(6, record.getScenarioId()));
+        }
+        if(record.getHasSeed()) {
+            set(7, record.getSeed());
+        }
+        rows++;
+        if(rows == ROWS_PER_GROUP) {
+            writeGroup();
+        }
+    }
+
+    private void set(int column, long value) {
+        values[column][rows] = value;
+        present[column][rows >>> 6] |= 1L << rows;
+    }
+
+    private int index(int column, String value) {
+        Map<String, Integer> dictionary = dictionaries.get(column);
+        return dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    /**
+     * Writes the current group, one compressed column after the other, and starts a new one.
+     */
+    private void writeGroup() throws IOException {
+        groupOffsets.add(channel.position());
+        groupRows.add(rows);
+        for(int c = 0; c < NAMES.length; c++) {
+            boolean hasNulls = false;
+            for(int row = 0; row < rows && !hasNulls; row++) {
+                hasNulls = (present[c][row >>> 6] & (1L << row)) == 0;
+            }
+
+            // Encode the column
+            raw.clear();
+            if(hasNulls) {
+                ensureRaw((rows + 7) / 8);
+                for(int row = 0; row < rows; row += 8) {
+                    raw.put((byte) (present[c][row >>> 6] >>> (row & 63)));
+                }
+            }
+            if(TYPES[c] == STRING) {
+                String[] strings = new String[dictionaries.get(c).size()];
+                dictionaries.get(c).forEach((string, index) -> strings[index] = string);
+                putVarint(strings.length);
+                for(String string : strings) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    putVarint(bytes.length);
+                    ensureRaw(bytes.length);
+                    raw.put(bytes);
+                }
+                for(int row = 0; row < rows; row++) {
+                    if((present[c][row >>> 6] & (1L << row)) != 0) {
+                        putVarint(values[c][row]);
+                    }
+                }
+            }
+            else {
+                long previous = 0;
+                for(int row = 0; row < rows; row++) {
+                    if((present[c][row >>> 6] & (1L << row)) != 0) {
+                        long delta = values[c][row] - previous;
+                        putVarint((delta << 1) ^ (delta >> 63));
+                        previous = values[c][row];
+                    }
+                }
+            }
+
+            // Compress it
+            deflater.reset();
+            deflater.setInput(raw.array(), 0, raw.position());
+            deflater.finish();
+            compressed.clear();
+            compressed.position(10);
+            while(!deflater.finished()) {
+                if(!compressed.hasRemaining()) {
+                    compressed = ByteBuffer.allocate(compressed.capacity() * 2).put(compressed.flip());
+                }
+                compressed.position(compressed.position() + deflater.deflate(compressed.array(), compressed.position(), compressed.remaining()));
+            }
+            compressed.put(0, TYPES[c] == STRING ? DICTIONARY : DELTA_VARINT);
+            compressed.put(1, (byte) (hasNulls ? 1 : 0));
+            compressed.putInt(2, raw.position());
+            compressed.putInt(6, compressed.position() - 10);
+            compressed.flip();
+            writeFully(compressed);
+
+            Arrays.fill(present[c], 0, (rows + 63) >>> 6, 0);
+            if(dictionaries.get(c) != null) {
+                dictionaries.get(c).clear();
+            }
+        }
+        rows = 0;
+    }
+
+    /**
+     * Writes the last group and the footer, and closes the file.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(rows > 0) {
+                writeGroup();
+            }
+            raw.clear();
+            ensureRaw(4);
+            raw.putInt(NAMES.length);
+            for(int c = 0; c < NAMES.length; c++) {
+                byte[] name = NAMES[c].getBytes(StandardCharsets.UTF_8);
+                ensureRaw(3 + name.length);
+                raw.putShort((short) name.length).put(name).put(TYPES[c]);
+            }
+            ensureRaw(4 + 12 * groupOffsets.size() + 8);
+            raw.putInt(groupOffsets.size());
+            for(int g = 0; g < groupOffsets.size(); g++) {
+                raw.putLong(groupOffsets.get(g)).putInt(groupRows.get(g));
+            }
+            raw.putInt(raw.position()).putInt(MAGIC);
+            raw.flip();
+            writeFully(raw);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads a column of a columnar file, group by group.
+     * @param path the path of the file
+     * @param column the name of the column
+     * @return the values of the column (Long, Integer or String, and null for the missing ones)
+     * @throws IOException if an I/O error occurs or the file is not valid
+     */
+    public static List<Object> readColumn(Path path, String column) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            if(size < 13) {
+                throw new IOException("Invalid columnar file");
+            }
+            ByteBuffer trailer = read(in, size - 8, 8);
+            if(trailer.getInt(4) != MAGIC) {
+                throw new IOException("Invalid columnar file");
+            }
+            int footerLength = trailer.getInt(0);
+            ByteBuffer footer = read(in, size - 8 - footerLength, footerLength);
+
+            int index = -1;
+            byte type = 0;
+            int columns = footer.getInt();
+            for(int c = 0; c < columns; c++) {
+                byte[] name = new byte[footer.getShort()];
+                footer.get(name);
+                byte columnType = footer.get();
+                if(new String(name, StandardCharsets.UTF_8).equals(column)) {
+                    index = c;
+                    type = columnType;
+                }
+            }
+            if(index < 0) {
+                throw new IOException("There is no column " + column);
+            }
+
+            List<Object> result = new ArrayList<>();
+            Inflater inflater = new Inflater();
+            try {
+                int groups = footer.getInt();
+                for(int g = 0; g < groups; g++) {
+                    long offset = footer.getLong();
+                    int groupRows = footer.getInt();
+                    // Skip the columns before the requested one
+                    for(int c = 0; c < index; c++) {
+                        offset += 10 + read(in, offset, 10).getInt(6);
+                    }
+                    ByteBuffer header = read(in, offset, 10);
+                    byte[] data = new byte[header.getInt(2)];
+                    inflater.reset();
+                    inflater.setInput(read(in, offset + 10, header.getInt(6)).array());
+                    if(inflater.inflate(data) != data.length) {
+                        throw new IOException("Invalid columnar file");
+                    }
+                    decode(ByteBuffer.wrap(data), header.get(0), header.get(1) != 0, type, groupRows, result);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Invalid columnar file", e);
+            } finally {
+                inflater.end();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Decodes the values of a column of a group and adds them to the result.
+     */
+    private static void decode(ByteBuffer data, byte encoding, boolean hasNulls, byte type, int rows, List<Object> result) {
+        byte[] bitmap = null;
+        if(hasNulls) {
+            bitmap = new byte[(rows + 7) / 8];
+            data.get(bitmap);
+        }
+        String[] dictionary = null;
+        if(encoding == DICTIONARY) {
+            dictionary = new String[(int) getVarint(data)];
+            for(int i = 0; i < dictionary.length; i++) {
+                byte[] bytes = new byte[(int) getVarint(data)];
+                data.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        long previous = 0;
+        for(int row = 0; row < rows; row++) {
+            if(bitmap != null && (bitmap[row >>> 3] & (1 << (row & 7))) == 0) {
+                result.add(null);
+            }
+            else if(encoding == DICTIONARY) {
+                result.add(dictionary[(int) getVarint(data)]);
+            }
+            else {
+                long zigzag = getVarint(data);
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                result.add(type == INT ? (Object) (int) previous : (Object) previous);
+            }
+        }
+    }
+
+    private void putVarint(long value) {
+        ensureRaw(10);
+        while((value & ~0x7FL) != 0) {
+            raw.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        raw.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer data) {
+        long value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Grows the raw buffer, if it has less than the given number of bytes left.
+     */
+    private void ensureRaw(int bytes) {
+        if(raw.remaining() < bytes) {
+            raw = ByteBuffer.allocate(Math.max(raw.capacity() * 2, raw.position() + bytes)).put(raw.flip());
+        }
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while(data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(length);
+        while(data.hasRemaining()) {
+            if(in.read(data, position + data.position()) < 0) {
+                throw new IOException("Invalid columnar file");
+            }
+        }
+        return data.flip();
+    }
+
+    /**
+     * Exports the round history of the game (rounds/history.bin) to a columnar file.
+     * @param args the path of the columnar file (default rounds/history.columns)
+     */
+    public static void main(String[] args) {
+        Path output = args.length > 0 ? Paths.get(args[0]) : DEFAULT_PATH;
+        try {
+            long rounds = export(RoundHistory.DEFAULT_PATH, output);
+            System.out.println(rounds + " rounds exported to " + output);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
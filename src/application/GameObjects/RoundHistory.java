@@ -0,0 +1,205 @@
+package application.GameObjects;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class keeps the history of every finished round in an append-only file, rounds/history.bin, unlike the
+ * round files which only keep the last five rounds. It is the input of RoundExporter.
+ *
+ * File format (big endian): int magic, byte version, and then one record per round:
+ *      long date, int numMines, int attempts, int threeBV, long totalGameTime, byte flags, long seed,
+ *      and the scenario ID (as written by DataOutput.writeUTF) if it is known
+ * The flags are: 1 if the player won, 2 if the seed is known and 4 if the scenario ID is known.
+ * A record that was cut off by a crash is ignored.
+ */
+public class RoundHistory {
+
+    public static final Path DEFAULT_PATH = Paths.get("rounds", "history.bin");
+
+    // The size of the header and the largest record (the fixed fields, and the longest scenario ID)
+    static final int HEADER_SIZE = 5;
+    static final int MAX_RECORD_SIZE = 37 + 2 + 65535;
+
+    private static final int MAGIC = 0x4D535248; // "MSRH"
+    private static final byte VERSION = 1;
+
+    // Bits of the flags byte
+    private static final int FLAG_PLAYER_WON = 1;
+    private static final int FLAG_SEED = 2;
+    private static final int FLAG_SCENARIO = 4;
+
+    private RoundHistory() {
+    }
+
+    /**
+     * Appends a round to a history file (the header too, if the file is new).
+     * @param path the path of the history
+     * @param record the round
+     * @throws IOException if an I/O error occurs
+     */
+    public static void append(Path path, RoundRecord record) throws IOException {
+        Files.write(path, encode(record, !Files.exists(path)), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Encodes a round as it is appended to a history file.
+     * @param record the round
+     * @param withHeader true to start with the header of the file (for a new file)
+     * @return the encoded round
+     */
+    static byte[] encode(RoundRecord record, boolean withHeader) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if(withHeader) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+            }
+            int flags = (record.getWinner().equals("Player") ? FLAG_PLAYER_WON : 0)
+                      | (record.getHasSeed() ? FLAG_SEED : 0)
+                      | (record.getScenarioId() != null ? FLAG_SCENARIO : 0);
+            out.writeLong(record.getDate());
+            out.writeInt(record.getNumMines());
+            out.writeInt(record.getAttempts());
+            out.writeInt(record.getThreeBV());
+            out.writeLong(record.getTotalGameTime());
+            out.writeByte(flags);
+            out.writeLong(record.getSeed());
+            if(record.getScenarioId() != null) {
+                out.writeUTF(record.getScenarioId());
+            }
+        } catch (IOException e) {
+            // A ByteArrayOutputStream doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Opens a history file for reading, one round at a time.
+     * @param path the path of the history
+     * @return the reader
+     * @throws IOException if an I/O error occurs or the file is not a round history
+     */
+    public static Reader read(Path path) throws IOException {
+        return new Reader(path, HEADER_SIZE);
+    }
+
+    /**
+     * Opens a history file for reading from the record at a position (see Reader.getPosition).
+     * @param path the path of the history
+     * @param position the position of a record in the file
+     * @return the reader
+     * @throws IOException if an I/O error occurs or the file is not a round history
+     */
+    static Reader read(Path path, long position) throws IOException {
+        return new Reader(path, Math.max(position, HEADER_SIZE));
+    }
+
+    /**
+     * Decodes a round, as it is written by encode (without the header).
+     * @param in the encoded round
+     * @return the round
+     * @throws EOFException if the round was cut off
+     * @throws IOException if an I/O error occurs
+     */
+    static RoundRecord decode(DataInput in) throws IOException {
+        long date = in.readLong();
+        int numMines = in.readInt();
+        int attempts = in.readInt();
+        int threeBV = in.readInt();
+        long totalGameTime = in.readLong();
+        int flags = in.readByte();
+        long seed = in.readLong();
+        String scenarioId = (flags & FLAG_SCENARIO) != 0 ? in.readUTF() : null;
+        return new RoundRecord(date, numMines, attempts, threeBV, totalGameTime,
+                               (flags & FLAG_PLAYER_WON) != 0 ? "Player" : "PC",
+                               scenarioId, (flags & FLAG_SEED) != 0, seed);
+    }
+
+    /**
+     * Reads the rounds of a history file in order. Only one round is held in memory at a time.
+     */
+    public static class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final long start;           // The position of the first record that is read
+        private long consumed;              // The bytes that have been read since then
+
+        private Reader(Path path, long position) throws IOException {
+            FileChannel channel = FileChannel.open(path);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while(header.hasRemaining()) {
+                    if(channel.read(header) < 0) {
+                        throw new IOException("Invalid round history");
+                    }
+                }
+                if(header.getInt(0) != MAGIC || header.get(4) != VERSION) {
+                    throw new IOException("Invalid round history");
+                }
+                channel.position(position);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            this.start = position;
+            this.in = new DataInputStream(new FilterInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16)) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    consumed += b >= 0 ? 1 : 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    consumed += Math.max(n, 0);
+                    return n;
+                }
+            });
+        }
+
+        /**
+         * Reads the next round.
+         * @return the round or null if there are no more rounds
+         * @throws IOException if an I/O error occurs
+         */
+        public RoundRecord next() throws IOException {
+            try {
+                return decode(in);
+            } catch (EOFException e) {
+                // The end of the file, or a record that was cut off
+                return null;
+            }
+        }
+
+        /**
+         * Returns the position in the file of the next round, so it can be read again later.
+         * @return the position of the next round
+         */
+        public long getPosition() {
+            return start + consumed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package application.GameObjects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class stores the rounds crash-safely, with a write-ahead log (rounds.wal in the rounds directory).
+ *
+ * Every round gets the next number of a monotonic sequence, which decides its file: round k is stored in
+ * round-(k % MAX_ROUNDS + 1).txt, so the five files always hold the last five rounds and their order is known
+ * without looking at timestamps. Storing a round has two steps:
+ *      -> commit: the round file, the moves and the history record of the round are appended to the log as one
+ *         record with a checksum, and the log is forced to the disk. Once this returns, the round is durable.
+ *      -> apply: the round file and the moves are written to temporary files which then replace the old ones,
+ *         and the history record is written at its offset in the history (truncating anything after it).
+ * Applying a record is idempotent, so when the application starts, every record of the log is applied again in
+ * order, which completes a round that a crash interrupted (a record that was cut off was never committed and
+ * is dropped). Every CHECKPOINT_RECORDS rounds (and after recovery), the applied files are forced to the disk and
+ * the log is reset to its header, which holds the next sequence number.
+ *
+ * Log format (big endian): int magic, byte version, long next sequence number, and then one record per round:
+ *      int length, int CRC-32 of the data, and the data: long sequence, long history offset,
+ *      int length and the round file, int length (-1 if there are no moves) and the moves,
+ *      int length and the history record
+ *
+ * A RoundLog is not thread safe (FileManager synchronizes its use).
+ */
+final class RoundLog {
+
+    static final int MAX_ROUNDS = 5;
+    static final String FILE_PREFIX = "round-";
+    static final String FILE_EXTENSION = ".txt";
+    static final String JOURNAL_EXTENSION = ".journal";
+    static final String LOG_FILE = "rounds.wal";
+
+    private static final int MAGIC = 0x4D53574C; // "MSWL"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 13;
+    private static final int CHECKPOINT_RECORDS = 256;
+
+    /**
+     * directory        -> The rounds directory
+     * logPath          -> The path of the log
+     * historyPath      -> The path of the round history
+     * channel          -> The open log, positioned at its end
+     * nextSequence     -> The sequence number of the next round
+     * historySize      -> The size of the history after the last committed round
+     * records          -> The number of records in the log (since the last checkpoint)
+     */
+
+    private final Path directory;
+    private final Path logPath;
+    private final Path historyPath;
+    private FileChannel channel;
+    private long nextSequence;
+    private long historySize;
+    private int records;
+
+    /**
+     * Opens the log of a rounds directory and recovers it: the committed rounds are applied again and the log
+     * is reset. If there is no log yet, the sequence continues from the round files of an older version,
+     * which were ordered by their last modified timestamps.
+     * @param directory the rounds directory
+     * @throws IOException if an I/O error occurs
+     */
+    RoundLog(Path directory) throws IOException {
+        this.directory = directory;
+        this.logPath = directory.resolve(LOG_FILE);
+        this.historyPath = directory.resolve(RoundHistory.DEFAULT_PATH.getFileName());
+        Files.createDirectories(directory);
+        this.historySize = Files.exists(historyPath) ? Files.size(historyPath) : 0;
+
+        if(!Files.exists(logPath)) {
+            nextSequence = legacySequence();
+        }
+        else {
+            ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(logPath));
+            if(log.remaining() < HEADER_SIZE || log.getInt() != MAGIC || log.get() != VERSION) {
+                throw new IOException("Invalid round log");
+            }
+            nextSequence = log.getLong();
+            CRC32 crc = new CRC32();
+            while(log.remaining() >= 8) {
+                int length = log.getInt();
+                int checksum = log.getInt();
+                if(length < 0 || length > log.remaining()) {
+                    break;
+                }
+                crc.reset();
+                crc.update(log.array(), log.position(), length);
+                if((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer data = log.slice();
+                data.limit(length);
+                log.position(log.position() + length);
+                nextSequence = apply(data) + 1;
+            }
+        }
+        checkpoint();
+    }
+
+    /**
+     * Returns the next sequence number for a rounds directory without a log. The round files of older versions
+     * were created in order (round-1, round-2, ...) and then overwritten from the oldest one, so the oldest file
+     * is the slot of the next round.
+     */
+    private long legacySequence() {
+        File[] roundFiles = directory.toFile().listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXTENSION));
+        if(roundFiles == null || roundFiles.length < MAX_ROUNDS) {
+            return roundFiles == null ? 0 : roundFiles.length;
+        }
+        File oldest = Arrays.stream(roundFiles).min(Comparator.comparing(File::lastModified)).get();
+        String name = oldest.getName();
+        try {
+            int id = Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_EXTENSION.length()));
+            return MAX_ROUNDS + (id - 1) % MAX_ROUNDS;
+        } catch (NumberFormatException e) {
+            return MAX_ROUNDS;
+        }
+    }
+
+    /**
+     * Stores a round: commits it to the log and applies it.
+     * @param round the contents of the round file
+     * @param journal the encoded moves of the round (null if they were not recorded)
+     * @param history the round history record
+     * @return the sequence number of the round
+     * @throws IOException if an I/O error occurs
+     */
+    long append(byte[] round, byte[] journal, RoundRecord history) throws IOException {
+        byte[] historyRecord = RoundHistory.encode(history, historySize == 0);
+        long sequence = nextSequence;
+
+        ByteBuffer record = ByteBuffer.allocate(8 + 8 + 8 + 4 + round.length + 4 + (journal != null ? journal.length : 0)
+                                                + 4 + historyRecord.length);
+        record.position(8);
+        record.putLong(sequence);
+        record.putLong(historySize);
+        record.putInt(round.length).put(round);
+        record.putInt(journal != null ? journal.length : -1);
+        if(journal != null) {
+            record.put(journal);
+        }
+        record.putInt(historyRecord.length).put(historyRecord);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, record.position() - 8);
+        record.putInt(0, record.position() - 8);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+
+        // Commit
+        while(record.hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(false);
+        nextSequence = sequence + 1;
+        records++;
+
+        // Apply
+        record.position(8);
+        apply(record.slice());
+        if(records >= CHECKPOINT_RECORDS) {
+            checkpoint();
+        }
+        return sequence;
+    }
+
+    /**
+     * Applies a record of the log: writes the round file, the moves and the history record. It can be repeated.
+     * @param data the data of the record
+     * @return the sequence number of the record
+     */
+    private long apply(ByteBuffer data) throws IOException {
+        long sequence = data.getLong();
+        long historyOffset = data.getLong();
+        byte[] round = new byte[data.getInt()];
+        data.get(round);
+        int journalLength = data.getInt();
+        byte[] journal = null;
+        if(journalLength >= 0) {
+            journal = new byte[journalLength];
+            data.get(journal);
+        }
+        byte[] historyRecord = new byte[data.getInt()];
+        data.get(historyRecord);
+
+        Path roundPath = getRoundPath(sequence);
+        replace(roundPath, round);
+        Path journalPath = FileManager.getJournalPath(roundPath);
+        if(journal != null) {
+            replace(journalPath, journal);
+        }
+        else {
+            Files.deleteIfExists(journalPath);
+        }
+        try (FileChannel history = FileChannel.open(historyPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            history.truncate(historyOffset);
+            ByteBuffer buffer = ByteBuffer.wrap(historyRecord);
+            while(buffer.hasRemaining()) {
+                history.write(buffer, historyOffset + buffer.position());
+            }
+        }
+        historySize = historyOffset + historyRecord.length;
+        return sequence;
+    }
+
+    /**
+     * Forces the applied files to the disk and resets the log to its header (with the next sequence number).
+     * The new log replaces the old one atomically, so a crash leaves one of the two.
+     */
+    private void checkpoint() throws IOException {
+        for(int slot = 0; slot < MAX_ROUNDS; slot++) {
+            Path roundPath = getRoundPath(slot);
+            force(roundPath);
+            force(FileManager.getJournalPath(roundPath));
+        }
+        force(historyPath);
+        force(directory);
+
+        if(channel != null) {
+            channel.close();
+        }
+        Path tmpPath = logPath.resolveSibling(LOG_FILE + ".tmp");
+        try (FileChannel tmp = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put(VERSION).putLong(nextSequence).flip();
+            while(header.hasRemaining()) {
+                tmp.write(header);
+            }
+            tmp.force(true);
+        }
+        Files.move(tmpPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        force(directory);
+        channel = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        records = 0;
+    }
+
+    /**
+     * Replaces a file with new contents through a temporary file, so it is never half written.
+     */
+    private static void replace(Path path, byte[] contents) throws IOException {
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmpPath, contents);
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Forces a file (or a directory, where the platform allows it) to the disk, if it exists.
+     */
+    private static void force(Path path) throws IOException {
+        if(!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            file.force(true);
+        } catch (IOException e) {
+            // Directories can't be opened on some platforms; their entries are then written by the file system
+            if(!Files.isDirectory(path)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the file of the round with the given sequence number.
+     * @param sequence the sequence number of the round
+     * @return the path of the round file
+     */
+    Path getRoundPath(long sequence) {
+        return directory.resolve(FILE_PREFIX + (sequence % MAX_ROUNDS + 1) + FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the files of the last rounds, from the oldest to the latest.
+     * @return the paths of the round files that exist
+     */
+    List<Path> getRoundFiles() {
+        List<Path> roundFiles = new ArrayList<>();
+        for(long sequence = Math.max(0, nextSequence - MAX_ROUNDS); sequence < nextSequence; sequence++) {
+            Path roundPath = getRoundPath(sequence);
+            if(Files.exists(roundPath)) {
+                roundFiles.add(roundPath);
+            }
+        }
+        return roundFiles;
+    }
+
+    /**
+     * Returns the sequence number of the next round.
+     * @return the next sequence number
+     */
+    long getNextSequence() {
+        return nextSequence;
+    }
+}
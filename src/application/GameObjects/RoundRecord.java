@@ -0,0 +1,117 @@
+package application.GameObjects;
+
+/**
+ * This class holds the data of a finished round, as it is kept in the round history (see RoundHistory)
+ * and exported for analysis (see RoundExporter).
+ */
+public class RoundRecord {
+
+    private final long date;            // When the round ended (milliseconds since the epoch)
+    private final int numMines;
+    private final int attempts;
+    private final int threeBV;
+    private final long totalGameTime;   // In milliseconds
+    private final String winner;        // "Player" or "PC"
+    private final String scenarioId;    // null if the game was not started from a scenario file (e.g. resumed)
+    private final boolean hasSeed;      // false if the seed of the board is unknown (e.g. a resumed game)
+    private final long seed;
+
+    /**
+     * Constructs a new record.
+     * @param date when the round ended (milliseconds since the epoch)
+     * @param numMines the total number of mines of the round
+     * @param attempts the number of attempts (left clicks) of the round
+     * @param threeBV the 3BV of the round's board
+     * @param totalGameTime the total game time in milliseconds
+     * @param winner the winner of the round ("Player" or "PC")
+     * @param scenarioId the ID of the round's scenario or null
+     * @param hasSeed true if the seed of the board is known
+     * @param seed the seed of the board (ignored if hasSeed is false)
+     */
+    public RoundRecord(long date, int numMines, int attempts, int threeBV, long totalGameTime, String winner,
+                       String scenarioId, boolean hasSeed, long seed) {
+        this.date = date;
+        this.numMines = numMines;
+        this.attempts = attempts;
+        this.threeBV = threeBV;
+        this.totalGameTime = totalGameTime;
+        this.winner = winner;
+        this.scenarioId = scenarioId;
+        this.hasSeed = hasSeed;
+        this.seed = hasSeed ? seed : 0;
+    }
+
+    // Getters
+
+    /**
+     * Returns when the round ended.
+     * @return milliseconds since the epoch
+     */
+    public long getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the total number of mines of the round.
+     * @return the number of mines
+     */
+    public int getNumMines() {
+        return numMines;
+    }
+
+    /**
+     * Returns the number of attempts (left clicks) of the round.
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the 3BV of the round's board.
+     * @return the 3BV
+     */
+    public int getThreeBV() {
+        return threeBV;
+    }
+
+    /**
+     * Returns the total game time of the round.
+     * @return the game time in milliseconds
+     */
+    public long getTotalGameTime() {
+        return totalGameTime;
+    }
+
+    /**
+     * Returns the winner of the round.
+     * @return "Player" or "PC"
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the ID of the round's scenario.
+     * @return the scenario ID or null if it is unknown
+     */
+    public String getScenarioId() {
+        return scenarioId;
+    }
+
+    /**
+     * Returns whether the seed of the round's board is known.
+     * @return true if the seed is known
+     */
+    public boolean getHasSeed() {
+        return hasSeed;
+    }
+
+    /**
+     * Returns the seed of the round's board.
+     * @return the seed (0 if it is unknown)
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
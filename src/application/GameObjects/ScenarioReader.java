@@ -1,6 +1,9 @@
 package application.GameObjects;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import application.ReadScenario.DescriptionReader;
 import application.ReadScenario.GameDescription;
@@ -11,9 +14,17 @@ import application.ReadScenario.InvalidValueException;
 /**
  * This class implements the method Read which reads SCENARIO-ID.txt using methods from the classes under folder "ReadScenario"
  * and returns a proper GameDescription object.
+ *
+ * The valid scenarios are cached together with the modification time and the size of their files, so a scenario is
+ * parsed again only when its file changes. Since a file that is rewritten within the resolution of the file system's
+ * timestamps can keep its modification time, the application also removes a scenario from the cache when it writes
+ * its file (see invalidate). The cache can be filled in the background when the application starts (see preload).
  */
 public class ScenarioReader {
 
+    // The valid scenarios that were already read, by ID
+    private static final Map<String, CachedScenario> cache = new ConcurrentHashMap<>();
+
     GameDescription game = new GameDescription();
 
     /**
@@ -28,7 +39,60 @@ public class ScenarioReader {
 
         //read SCENARIO-ID.txt
         String filePath = "./medialab/SCENARIO-" + iD + ".txt";
+        File file = new File(filePath);
+        long modified = file.lastModified();
+        long size = file.length();
+        CachedScenario cached = cache.get(iD);
+        if(cached != null && modified != 0 && cached.modified == modified && cached.size == size) {
+            game = cached.game;
+            return game;
+        }
         game = DescriptionReader.readDescription(filePath);
+        cache.put(iD, new CachedScenario(modified, size, game));
         return game; 
     }
-}
\ No newline at end of file
+
+    /**
+     * Removes a scenario from the cache, so its next read parses its file again. It is called when the file of
+     * the scenario is written.
+     * @param iD the ID of the scenario
+     */
+    public static void invalidate(String iD) {
+        cache.remove(iD);
+    }
+
+    /**
+     * Reads every scenario of the medialab folder, so the following reads use the cache.
+     * The invalid scenarios are skipped (they are reported when they are loaded).
+     */
+    public static void preload() {
+        File[] files = new File("medialab").listFiles((directory, name) -> name.startsWith("SCENARIO-") && name.endsWith(".txt"));
+        if(files == null) {
+            return;
+        }
+        for(File file : files) {
+            String id = file.getName().substring("SCENARIO-".length(), file.getName().length() - ".txt".length());
+            try {
+                new ScenarioReader().Read(id);
+            } catch (InvalidDescriptionException | InvalidValueException | IOException e) {
+                // Skipped
+            }
+        }
+    }
+
+    /**
+     * A valid scenario and the modification time and size of its file when it was read.
+     */
+    private static class CachedScenario {
+
+        final long modified;
+        final long size;
+        final GameDescription game;
+
+        CachedScenario(long modified, long size, GameDescription game) {
+            this.modified = modified;
+            this.size = size;
+            this.game = game;
+        }
+    }
+}
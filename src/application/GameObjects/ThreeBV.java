@@ -0,0 +1,108 @@
+package application.GameObjects;
+
+/**
+ * This class computes the 3BV of a board: the minimum number of left clicks that reveal all the tiles without mines.
+ * Every opening (a connected area of tiles without adjacent mines) is revealed by one click, together with the
+ * numbers around it, and every number that does not border an opening needs its own click.
+ *
+ * The computation is linear in the number of tiles, so it can run on boards of millions of tiles:
+ *      -> the numbers plane gives the adjacent mines of every tile (see AdjacencyPlane)
+ *      -> one pass joins every tile without adjacent mines with its (already visited) neighbours of the same kind,
+ *         using a union-find, and the openings are its sets
+ *      -> one pass counts the numbers that don't touch an opening
+ */
+public class ThreeBV {
+
+    private ThreeBV() {
+    }
+
+    /**
+     * Computes the 3BV of a board.
+     * @param state the board
+     * @return the 3BV of the board
+     */
+    public static int compute(BoardState state) {
+        int boardsize = state.getBoardsize();
+        int numCells = state.getNumCells();
+
+        // The adjacent mines of every tile (a mine gets at least 9, so it is never an opening)
+        byte[] counts = AdjacencyPlane.compute(state);
+        long[] mines = state.getMines();
+        for(int w = 0; w < mines.length; w++) {
+            long word = mines[w];
+            while(word != 0) {
+                counts[(w << 6) + Long.numberOfTrailingZeros(word)] += 9;
+                word &= word - 1;
+            }
+        }
+
+        // Join the tiles without adjacent mines with their neighbours above and on the left
+        int[] parent = new int[numCells];
+        int openings = 0;
+        for(int row = 0; row < boardsize; row++) {
+            for(int col = 0, cell = row * boardsize; col < boardsize; col++, cell++) {
+                parent[cell] = cell;
+                if(counts[cell] != 0) {
+                    continue;
+                }
+                openings++;
+                if(col > 0) {
+                    openings -= union(parent, counts, cell, cell - 1);
+                }
+                if(row > 0) {
+                    for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                        openings -= union(parent, counts, cell, cell - boardsize + j - col);
+                    }
+                }
+            }
+        }
+
+        // Count the numbers that don't touch an opening
+        int isolated = 0;
+        for(int row = 0; row < boardsize; row++) {
+            for(int col = 0, cell = row * boardsize; col < boardsize; col++, cell++) {
+                if(counts[cell] == 0 || counts[cell] >= 9) {
+                    continue;
+                }
+                boolean touchesOpening = false;
+                for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1) && !touchesOpening; i++) {
+                    for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                        if(counts[i * boardsize + j] == 0) {
+                            touchesOpening = true;
+                            break;
+                        }
+                    }
+                }
+                if(!touchesOpening) {
+                    isolated++;
+                }
+            }
+        }
+        return openings + isolated;
+    }
+
+    /**
+     * Joins the sets of two tiles, if the other tile has no adjacent mines.
+     * @return 1 if two different openings were joined, 0 otherwise
+     */
+    private static int union(int[] parent, byte[] counts, int cell, int other) {
+        if(counts[other] != 0) {
+            return 0;
+        }
+        int a = find(parent, cell);
+        int b = find(parent, other);
+        if(a == b) {
+            return 0;
+        }
+        parent[Math.max(a, b)] = Math.min(a, b);
+        return 1;
+    }
+
+    private static int find(int[] parent, int cell) {
+        while(parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+}
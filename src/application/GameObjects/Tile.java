@@ -72,6 +72,48 @@ public class Tile extends Button {
         }
     }
 
+    /**
+     * This method resets the tile to its initial (not revealed and not flagged) appearance.
+     * It is the opposite of reveal and it is used when a saved game state is restored.
+     */
+    public void hide() {
+        isRevealed = false;
+        isFlagged = false;
+        setDisable(false);
+        setStyle("-fx-background-color: darkmagenta");
+    }
+
+    /**
+     * This method reuses the tile for a new game: it sets its value and hides it.
+     * @param value an integer value that indicates whether the tile is mine (-1),
+     *              a supermine (-2) or a simple tile (0)
+     */
+    public void reset(int value) {
+        this.value = value;
+        this.adjacentMines = 0;
+        hide();
+    }
+
+    /**
+     * This method highlights the tile, e.g. when it is suggested by a hint.
+     * The highlight is removed when the tile is revealed or flagged. A flagged tile is not highlighted, so its
+     * flag stays shown.
+     */
+    public void highlight() {
+        if(!isFlagged) {
+            setStyle("-fx-background-color: gold");
+        }
+    }
+
+    /**
+     * This method removes the highlight of a tile that is still hidden.
+     */
+    public void unhighlight() {
+        if(!isRevealed && !isFlagged) {
+            setStyle("-fx-background-color: darkmagenta");
+        }
+    }
+
     /**
      * This method is called when the player right-clicks on a tile to toggle its flagged status.
      * It changes the isFlagged boolean value and sets the background image accordingly.
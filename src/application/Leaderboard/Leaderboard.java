@@ -0,0 +1,268 @@
+package application.Leaderboard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * This class keeps the leaderboards of the won rounds: the K fastest and the K most efficient wins
+ * of every scenario and of every difficulty level (see Ranking). Recording a round costs O(log K) and
+ * reading a ranking costs O(K), so the rankings are shown at once however many rounds have been played.
+ *
+ * The leaderboard is persisted incrementally: a result is appended to the file only if it enters a ranking
+ * (a result that doesn't can never enter one later). When most of the file holds results that have since been
+ * pushed out of every ranking, it is rewritten with the remaining ones, so its size stays proportional to
+ * the number of rankings and not to the number of rounds.
+ *
+ * File format (big endian): int magic, byte version, and then one record per result:
+ *      int difficultyLevel, int numMines, int maxTime, byte hasSupermine, long timeMillis, int attempts,
+ *      int threeBV, long date
+ * A record that was cut off by a crash is ignored.
+ */
+public class Leaderboard {
+
+    public static final int TOP = 10;
+    public static final Path DEFAULT_PATH = Paths.get("rounds", "leaderboard.bin");
+
+    private static final int MAGIC = 0x4D534C42; // "MSLB"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int RECORD_SIZE = 37;
+
+    /**
+     * path             -> The file of the leaderboard
+     * capacity         -> The number of results of every ranking (K)
+     * fastest          -> The rankings by game time, per scenario key and per difficulty key
+     * mostEfficient    -> The rankings by efficiency, per scenario key and per difficulty key
+     * scenarios        -> The keys of the scenarios that have rankings
+     * sequence         -> The sequence number of the next result
+     * stored           -> The number of records in the file
+     * compactAt        -> The number of records at which the file is rewritten with the ranked results only
+     */
+
+    private final Path path;
+    private final int capacity;
+    private final Map<String, Ranking> fastest = new HashMap<>();
+    private final Map<String, Ranking> mostEfficient = new HashMap<>();
+    private final TreeSet<String> scenarios = new TreeSet<>();
+    private long sequence;
+    private long stored;
+    private long compactAt;
+
+    /**
+     * Opens a leaderboard and loads its results. A new leaderboard is created if the file doesn't exist.
+     * @param path the file of the leaderboard
+     * @param capacity the number of results of every ranking (K)
+     * @throws IOException if an I/O error occurs or the file is not a valid leaderboard
+     */
+    public Leaderboard(Path path, int capacity) throws IOException {
+        this.path = path;
+        this.capacity = capacity;
+        if(!Files.exists(path)) {
+            compactAt = 4L * capacity;
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            throw new IOException("Invalid leaderboard");
+        }
+        while(buffer.remaining() >= RECORD_SIZE) {
+            RoundResult result = new RoundResult(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.get() != 0,
+                                                 buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                                                 sequence++);
+            rank(result);
+            stored++;
+        }
+        // Drop the cut off record (if any) and the results that are no longer ranked
+        compactAt = Math.max(2 * ranked().size(), 4L * capacity);
+        if(buffer.hasRemaining() || stored >= compactAt) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the leaderboard of the application (DEFAULT_PATH, TOP results per ranking).
+     * It is loaded the first time it is used. If it can't be read, an empty leaderboard replaces it.
+     * @return the leaderboard
+     */
+    public static Leaderboard getDefault() {
+        return DefaultLeaderboard.INSTANCE;
+    }
+
+    /**
+     * Records a won round. It is appended to the file only if it enters a ranking.
+     * @param difficultyLevel the difficulty level of the round
+     * @param numMines the number of mines of the round
+     * @param maxTime the time limit of the round in seconds
+     * @param hasSupermine true if the round had a supermine
+     * @param timeMillis the game time in milliseconds
+     * @param attempts the number of attempts (left clicks)
+     * @param threeBV the 3BV of the board
+     * @return true if the round entered a ranking
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized boolean record(int difficultyLevel, int numMines, int maxTime, boolean hasSupermine,
+                                       long timeMillis, int attempts, int threeBV) throws IOException {
+        RoundResult result = new RoundResult(difficultyLevel, numMines, maxTime, hasSupermine, timeMillis,
+                                             attempts, threeBV, System.currentTimeMillis(), sequence++);
+        if(!rank(result)) {
+            return false;
+        }
+        if(stored + 1 >= compactAt) {
+            compact();
+        }
+        else {
+            append(result);
+        }
+        return true;
+    }
+
+    /**
+     * Offers a result to the rankings of its scenario and of its difficulty level.
+     * @return true if it entered at least one of them
+     */
+    private boolean rank(RoundResult result) {
+        String scenario = result.getScenario();
+        scenarios.add(scenario);
+        String difficulty = RoundResult.difficultyKey(result.getDifficultyLevel());
+        boolean ranked = ranking(fastest, scenario, RoundResult.FASTEST).offer(result);
+        ranked |= ranking(fastest, difficulty, RoundResult.FASTEST).offer(result);
+        // Without attempts there is no efficiency
+        if(result.getAttempts() > 0) {
+            ranked |= ranking(mostEfficient, scenario, RoundResult.MOST_EFFICIENT).offer(result);
+            ranked |= ranking(mostEfficient, difficulty, RoundResult.MOST_EFFICIENT).offer(result);
+        }
+        return ranked;
+    }
+
+    private Ranking ranking(Map<String, Ranking> rankings, String key, Comparator<RoundResult> order) {
+        return rankings.computeIfAbsent(key, k -> new Ranking(capacity, order));
+    }
+
+    /**
+     * Appends a result to the file (the header too, if the file is new).
+     */
+    private void append(RoundResult result) throws IOException {
+        boolean isNew = !Files.exists(path);
+        ByteBuffer buffer = ByteBuffer.allocate((isNew ? HEADER_SIZE : 0) + RECORD_SIZE);
+        if(isNew) {
+            if(path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            buffer.putInt(MAGIC).put(VERSION);
+        }
+        put(buffer, result);
+        Files.write(path, buffer.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        stored++;
+    }
+
+    /**
+     * Rewrites the file with the results that are still ranked, in the order they were recorded.
+     * The data is first written to a temporary file which then replaces the file, so a crash never loses results.
+     */
+    private void compact() throws IOException {
+        TreeSet<RoundResult> ranked = ranked();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + ranked.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC).put(VERSION);
+        for(RoundResult result : ranked) {
+            put(buffer, result);
+        }
+        if(path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmpPath, buffer.array());
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        stored = ranked.size();
+        compactAt = Math.max(2 * stored, 4L * capacity);
+    }
+
+    /**
+     * Returns the results that are in at least one ranking, in the order they were recorded.
+     */
+    private TreeSet<RoundResult> ranked() {
+        TreeSet<RoundResult> ranked = new TreeSet<>(Comparator.comparingLong(RoundResult::getSequence));
+        for(Ranking ranking : fastest.values()) {
+            ranked.addAll(ranking.getResults());
+        }
+        for(Ranking ranking : mostEfficient.values()) {
+            ranked.addAll(ranking.getResults());
+        }
+        return ranked;
+    }
+
+    private static void put(ByteBuffer buffer, RoundResult result) {
+        buffer.putInt(result.getDifficultyLevel());
+        buffer.putInt(result.getNumMines());
+        buffer.putInt(result.getMaxTime());
+        buffer.put((byte) (result.getHasSupermine() ? 1 : 0));
+        buffer.putLong(result.getTimeMillis());
+        buffer.putInt(result.getAttempts());
+        buffer.putInt(result.getThreeBV());
+        buffer.putLong(result.getDate());
+    }
+
+    /**
+     * Returns the fastest wins of a scenario or of a difficulty level.
+     * @param key a key of RoundResult.scenarioKey or RoundResult.difficultyKey
+     * @return at most K results, the fastest first
+     */
+    public synchronized List<RoundResult> getFastest(String key) {
+        Ranking ranking = fastest.get(key);
+        return ranking == null ? Collections.emptyList() : ranking.getResults();
+    }
+
+    /**
+     * Returns the most efficient wins of a scenario or of a difficulty level.
+     * @param key a key of RoundResult.scenarioKey or RoundResult.difficultyKey
+     * @return at most K results, the most efficient first
+     */
+    public synchronized List<RoundResult> getMostEfficient(String key) {
+        Ranking ranking = mostEfficient.get(key);
+        return ranking == null ? Collections.emptyList() : ranking.getResults();
+    }
+
+    /**
+     * Returns the keys of the scenarios that have won rounds.
+     * @return the keys of the scenarios, in alphabetical order
+     */
+    public synchronized List<String> getScenarios() {
+        return new ArrayList<>(scenarios);
+    }
+
+    /**
+     * The leaderboard of the application. It is loaded the first time it is used.
+     */
+    private static class DefaultLeaderboard {
+        static final Leaderboard INSTANCE = load();
+
+        private static Leaderboard load() {
+            try {
+                return new Leaderboard(DEFAULT_PATH, TOP);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            // Set the unreadable file aside and start over, so the new wins are still ranked
+            try {
+                Files.move(DEFAULT_PATH, DEFAULT_PATH.resolveSibling(DEFAULT_PATH.getFileName() + ".invalid"),
+                           StandardCopyOption.REPLACE_EXISTING);
+                return new Leaderboard(DEFAULT_PATH, TOP);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can't create the leaderboard", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package application.Leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * This class keeps the best K results of a ranking, in order. The results are kept in a balanced tree
+ * of at most K elements, so offering a result costs O(log K) and reading the ranking costs O(K),
+ * no matter how many results have been offered.
+ */
+public class Ranking {
+
+    private final int capacity;
+    private final TreeSet<RoundResult> results;
+
+    /**
+     * Constructs an empty ranking.
+     * @param capacity the number of results it keeps (K)
+     * @param order the order of the results (the best first)
+     */
+    public Ranking(int capacity, Comparator<RoundResult> order) {
+        this.capacity = capacity;
+        this.results = new TreeSet<>(order);
+    }
+
+    /**
+     * Offers a result to the ranking. If the ranking is full, the result replaces the worst one,
+     * unless it is worse than all of them.
+     * @param result the result
+     * @return true if the result entered the ranking
+     */
+    public boolean offer(RoundResult result) {
+        if(results.size() == capacity) {
+            if(results.comparator().compare(result, results.last()) >= 0) {
+                return false;
+            }
+            results.pollLast();
+        }
+        results.add(result);
+        return true;
+    }
+
+    /**
+     * Returns the results of the ranking, the best first.
+     * @return a new list of at most K results
+     */
+    public List<RoundResult> getResults() {
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Returns the number of results in the ranking.
+     * @return the number of results
+     */
+    public int size() {
+        return results.size();
+    }
+}
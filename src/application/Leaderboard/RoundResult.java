@@ -0,0 +1,185 @@
+package application.Leaderboard;
+
+import java.util.Comparator;
+
+/**
+ * This class holds the result of a won round, as it is ranked by the leaderboard: its scenario
+ * (difficulty level, mines, time limit and supermine), its game time and its efficiency (3BV / attempts).
+ * The sequence number is the order in which the results were recorded, so of two equal results the older
+ * one is ranked first.
+ */
+public class RoundResult {
+
+    /**
+     * Orders the results from the fastest to the slowest. Equal times are ordered by efficiency.
+     */
+    public static final Comparator<RoundResult> FASTEST = Comparator
+        .comparingLong(RoundResult::getTimeMillis)
+        .thenComparing(RoundResult::compareEfficiency)
+        .thenComparingLong(RoundResult::getSequence);
+
+    /**
+     * Orders the results from the most to the least efficient. Equal efficiencies are ordered by time.
+     */
+    public static final Comparator<RoundResult> MOST_EFFICIENT = ((Comparator<RoundResult>) RoundResult::compareEfficiency)
+        .thenComparingLong(RoundResult::getTimeMillis)
+        .thenComparingLong(RoundResult::getSequence);
+
+    private final int difficultyLevel;
+    private final int numMines;
+    private final int maxTime;
+    private final boolean hasSupermine;
+    private final long timeMillis;
+    private final int attempts;
+    private final int threeBV;
+    private final long date;        // When the round was won (milliseconds since the epoch)
+    private final long sequence;
+
+    /**
+     * Constructs a new result.
+     * @param difficultyLevel the difficulty level of the round
+     * @param numMines the number of mines of the round
+     * @param maxTime the time limit of the round in seconds
+     * @param hasSupermine true if the round had a supermine
+     * @param timeMillis the game time in milliseconds
+     * @param attempts the number of attempts (left clicks)
+     * @param threeBV the 3BV of the board
+     * @param date when the round was won (milliseconds since the epoch)
+     * @param sequence the order in which the result was recorded
+     */
+    public RoundResult(int difficultyLevel, int numMines, int maxTime, boolean hasSupermine, long timeMillis,
+                       int attempts, int threeBV, long date, long sequence) {
+        this.difficultyLevel = difficultyLevel;
+        this.numMines = numMines;
+        this.maxTime = maxTime;
+        this.hasSupermine = hasSupermine;
+        this.timeMillis = timeMillis;
+        this.attempts = attempts;
+        this.threeBV = threeBV;
+        this.date = date;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the key of a scenario, which is also its description, e.g. "Level 1, 10 mines, 120 secs".
+     * @param difficultyLevel the difficulty level
+     * @param numMines the number of mines
+     * @param maxTime the time limit in seconds
+     * @param hasSupermine true if there is a supermine
+     * @return the key of the scenario
+     */
+    public static String scenarioKey(int difficultyLevel, int numMines, int maxTime, boolean hasSupermine) {
+        return difficultyKey(difficultyLevel) + ", " + numMines + " mines, " + maxTime + " secs"
+             + (hasSupermine ? ", supermine" : "");
+    }
+
+    /**
+     * Returns the key of a difficulty level, e.g. "Level 1".
+     * @param difficultyLevel the difficulty level
+     * @return the key of the difficulty level
+     */
+    public static String difficultyKey(int difficultyLevel) {
+        return "Level " + difficultyLevel;
+    }
+
+    /**
+     * Compares the efficiency of two results (3BV / attempts) without rounding: the more efficient comes first.
+     * A result without attempts has no efficiency, so it comes last.
+     */
+    private static int compareEfficiency(RoundResult a, RoundResult b) {
+        if(a.attempts == 0 || b.attempts == 0) {
+            return Boolean.compare(a.attempts == 0, b.attempts == 0);
+        }
+        return Long.compare((long) b.threeBV * a.attempts, (long) a.threeBV * b.attempts);
+    }
+
+    /**
+     * Returns the key of the scenario of the round.
+     * @return the key of the scenario
+     */
+    public String getScenario() {
+        return scenarioKey(difficultyLevel, numMines, maxTime, hasSupermine);
+    }
+
+    /**
+     * Returns the efficiency of the round, as it is written in the round files.
+     * @return 100 * 3BV / attempts (0 if there were no attempts)
+     */
+    public int getEfficiency() {
+        return attempts == 0 ? 0 : 100 * threeBV / attempts;
+    }
+
+    // Getters
+
+    /**
+     * Returns the difficulty level of the round.
+     * @return the difficulty level
+     */
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    /**
+     * Returns the number of mines of the round.
+     * @return the number of mines
+     */
+    public int getNumMines() {
+        return numMines;
+    }
+
+    /**
+     * Returns the time limit of the round.
+     * @return the time limit in seconds
+     */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Returns whether the round had a supermine.
+     * @return true if the round had a supermine
+     */
+    public boolean getHasSupermine() {
+        return hasSupermine;
+    }
+
+    /**
+     * Returns the game time of the round.
+     * @return the game time in milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the number of attempts (left clicks) of the round.
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the 3BV of the board of the round.
+     * @return the 3BV
+     */
+    public int getThreeBV() {
+        return threeBV;
+    }
+
+    /**
+     * Returns when the round was won.
+     * @return milliseconds since the epoch
+     */
+    public long getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the order in which the result was recorded.
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,24 @@
+package application.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event that is committed every time BoardGenerator generates the mines of a board. Its duration is the time
+ * of the generation.
+ */
+@Name("application.BoardGeneration")
+@Label("Board Generation")
+@Category("Minesweeper")
+@Description("The generation of the mines of a board")
+public class BoardGenerationEvent extends Event {
+
+    @Label("Board size")
+    public int boardSize;
+
+    @Label("Mines")
+    public int numMines;
+}
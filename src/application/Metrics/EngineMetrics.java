@@ -0,0 +1,237 @@
+package application.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class collects the metrics of the game engine: the latency of each left click and the tiles it opened,
+ * the time to generate a board, the time to store a round and the number of running game timers.
+ * The metrics are exposed through JMX (see EngineMetricsMBean) and as JFR events.
+ *
+ * The metrics are enabled with the system property -Dminesweeper.metrics=true. ENABLED is a constant,
+ * so when the metrics are disabled the JIT removes the instrumentation and it costs nothing.
+ * The JFR events are committed only while a JFR recording that enables them is running. Each event is begun before
+ * the work it measures (see beginReveal, beginGeneration and beginPersistence) and committed after it, so its
+ * duration is the time of the work and the duration thresholds of the recording apply to it.
+ */
+public class EngineMetrics implements EngineMetricsMBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    private static final EngineMetrics INSTANCE = new EngineMetrics();
+
+    private final LatencyHistogram revealLatency = new LatencyHistogram();
+    private final LatencyHistogram cellsPerClick = new LatencyHistogram();
+    private final LatencyHistogram generationTime = new LatencyHistogram();
+    private final LatencyHistogram persistenceTime = new LatencyHistogram();
+    private final AtomicInteger activeTimers = new AtomicInteger();
+
+    static {
+        if(ENABLED) {
+            register();
+        }
+    }
+
+    /**
+     * Returns the single instance of EngineMetrics.
+     * @return the metrics of the engine
+     */
+    public static EngineMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, so they can be read with JConsole or any JMX client.
+     */
+    private static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("application:type=EngineMetrics");
+            if(!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Recording methods. Callers check ENABLED before measuring, so these are only called when metrics are enabled.
+
+    /**
+     * Begins the JFR event of a left click. It is called before the click runs.
+     * @return the event (passed to recordReveal)
+     */
+    public static RevealEvent beginReveal() {
+        RevealEvent event = new RevealEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a left click and commits its event.
+     * @param event the event of the click (see beginReveal)
+     * @param row the row of the clicked tile
+     * @param col the column of the clicked tile
+     * @param nanos the time the click took in nanoseconds
+     * @param cellsOpened the number of tiles the click opened
+     */
+    public static void recordReveal(RevealEvent event, int row, int col, long nanos, int cellsOpened) {
+        INSTANCE.revealLatency.record(nanos);
+        INSTANCE.cellsPerClick.record(cellsOpened);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.row = row;
+            event.col = col;
+            event.cellsOpened = cellsOpened;
+            event.commit();
+        }
+    }
+
+    /**
+     * Begins the JFR event of the generation of a board. It is called before the mines are placed.
+     * @return the event (passed to recordGeneration)
+     */
+    public static BoardGenerationEvent beginGeneration() {
+        BoardGenerationEvent event = new BoardGenerationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records the generation of a board and commits its event.
+     * @param event the event of the generation (see beginGeneration)
+     * @param boardSize the size of the board
+     * @param numMines the number of mines
+     * @param nanos the time the generation took in nanoseconds
+     */
+    public static void recordGeneration(BoardGenerationEvent event, int boardSize, int numMines, long nanos) {
+        INSTANCE.generationTime.record(nanos);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.boardSize = boardSize;
+            event.numMines = numMines;
+            event.commit();
+        }
+    }
+
+    /**
+     * Begins the JFR event of the storage of a round. It is called before the round is written.
+     * @return the event (passed to recordPersistence)
+     */
+    public static PersistenceEvent beginPersistence() {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records the storage of a round and commits its event.
+     * @param event the event of the storage (see beginPersistence)
+     * @param winner the winner of the round
+     * @param nanos the time the storage took in nanoseconds
+     */
+    public static void recordPersistence(PersistenceEvent event, String winner, long nanos) {
+        INSTANCE.persistenceTime.record(nanos);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.winner = winner;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a game timer started.
+     */
+    public static void timerStarted() {
+        INSTANCE.activeTimers.incrementAndGet();
+    }
+
+    /**
+     * Records that a game timer stopped.
+     */
+    public static void timerStopped() {
+        INSTANCE.activeTimers.decrementAndGet();
+    }
+
+    // EngineMetricsMBean
+
+    @Override
+    public long getRevealCount() {
+        return revealLatency.getTotalCount();
+    }
+
+    @Override
+    public long getRevealLatencyP50Micros() {
+        return revealLatency.getValueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getRevealLatencyP99Micros() {
+        return revealLatency.getValueAtPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getRevealLatencyMaxMicros() {
+        return revealLatency.getMax() / 1000;
+    }
+
+    @Override
+    public double getMeanCellsPerClick() {
+        return cellsPerClick.getMean();
+    }
+
+    @Override
+    public long getMaxCellsPerClick() {
+        return cellsPerClick.getMax();
+    }
+
+    @Override
+    public long getGenerationCount() {
+        return generationTime.getTotalCount();
+    }
+
+    @Override
+    public long getGenerationP50Micros() {
+        return generationTime.getValueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getGenerationMaxMicros() {
+        return generationTime.getMax() / 1000;
+    }
+
+    @Override
+    public long getPersistenceCount() {
+        return persistenceTime.getTotalCount();
+    }
+
+    @Override
+    public long getPersistenceP50Micros() {
+        return persistenceTime.getValueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getPersistenceMaxMicros() {
+        return persistenceTime.getMax() / 1000;
+    }
+
+    @Override
+    public int getActiveTimers() {
+        return activeTimers.get();
+    }
+
+    @Override
+    public void reset() {
+        revealLatency.reset();
+        cellsPerClick.reset();
+        generationTime.reset();
+        persistenceTime.reset();
+    }
+}
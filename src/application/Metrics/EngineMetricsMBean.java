@@ -0,0 +1,50 @@
+package application.Metrics;
+
+/**
+ * The JMX interface of EngineMetrics. It is registered as "application:type=EngineMetrics".
+ * All times are in microseconds.
+ */
+public interface EngineMetricsMBean {
+
+    /** @return the number of recorded left clicks */
+    long getRevealCount();
+
+    /** @return the median latency of a left click */
+    long getRevealLatencyP50Micros();
+
+    /** @return the 99th percentile of the latency of a left click */
+    long getRevealLatencyP99Micros();
+
+    /** @return the maximum latency of a left click */
+    long getRevealLatencyMaxMicros();
+
+    /** @return the mean number of tiles opened by a left click */
+    double getMeanCellsPerClick();
+
+    /** @return the maximum number of tiles opened by a left click */
+    long getMaxCellsPerClick();
+
+    /** @return the number of generated boards */
+    long getGenerationCount();
+
+    /** @return the median time to generate the mines of a board */
+    long getGenerationP50Micros();
+
+    /** @return the maximum time to generate the mines of a board */
+    long getGenerationMaxMicros();
+
+    /** @return the number of stored rounds */
+    long getPersistenceCount();
+
+    /** @return the median time to store a round */
+    long getPersistenceP50Micros();
+
+    /** @return the maximum time to store a round */
+    long getPersistenceMaxMicros();
+
+    /** @return the number of game timers that are currently running */
+    int getActiveTimers();
+
+    /** Clears all the metrics (except the active timers). */
+    void reset();
+}
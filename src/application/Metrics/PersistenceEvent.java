@@ -0,0 +1,20 @@
+package application.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event that is committed every time FileManager stores a round. Its duration is the time of the storage.
+ */
+@Name("application.Persistence")
+@Label("Round Persistence")
+@Category("Minesweeper")
+@Description("The storage of a round's data by FileManager")
+public class PersistenceEvent extends Event {
+
+    @Label("Winner")
+    public String winner;
+}
@@ -0,0 +1,26 @@
+package application.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event that is committed for every left click (GameLogic.AddRevealClick). Its duration is the time of the click.
+ */
+@Name("application.Reveal")
+@Label("Reveal")
+@Category("Minesweeper")
+@Description("A left click of the player and the tiles it opened")
+public class RevealEvent extends Event {
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("Opened tiles")
+    public int cellsOpened;
+}
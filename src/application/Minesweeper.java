@@ -1,6 +1,7 @@
 package application;
 
 import application.GUI.MinesweeperGUI;
+import application.GUI.Startup;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
@@ -12,12 +13,16 @@ import javafx.stage.Stage;
  */
 public class Minesweeper extends Application {
 
+    // The page of the game, closed when the application exits
+    private MinesweeperGUI startPage;
 
     /**
      * The start method is called when the application is launched. It initializes the MinesweeperGUI,
      * creates a new BorderPane and adds the MinesweeperGUI to the center of the BorderPane. It then
      * creates a new Scene with the BorderPane as the root and sets the Scene of the primary stage.
-     * Finally, it shows the primary stage.
+     * The timer of the game is paused while the window is not focused.
+     * Finally, it shows the primary stage, reports the time to its first frame and starts preloading
+     * the scenarios and the images in the background (see Startup).
      *
      * @param stage the primary stage of the application
      */
@@ -25,7 +30,7 @@ public class Minesweeper extends Application {
     public void start(Stage stage) {
 
         // Create an instance of the StartPage class
-        MinesweeperGUI startPage = new MinesweeperGUI();
+        startPage = new MinesweeperGUI();
 
         // Create a new BorderPane and add the StartPage to the center
         BorderPane root = new BorderPane();
@@ -40,8 +45,23 @@ public class Minesweeper extends Application {
         // Set the Scene of the primary stage
         stage.setScene(scene);
 
+        // Pause the timer of the game while the window is not focused
+        stage.focusedProperty().addListener((observable, wasFocused, focused) -> startPage.setPaused(!focused));
+
         // Show the primary stage
+        Startup.reportFirstFrame(scene);
         stage.show();
+        Startup.preload();
+    }
+
+    /**
+     * The stop method is called when the application exits. It closes the files kept open by the game.
+     */
+    @Override
+    public void stop() {
+        if(startPage != null) {
+            startPage.close();
+        }
     }
 
     /**
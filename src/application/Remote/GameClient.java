@@ -0,0 +1,316 @@
+package application.Remote;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * This class plays a remote game of a GameServer with the binary protocol of WireProtocol. Every command waits for
+ * its response, which updates a copy of the board kept by the client (see getTile), so a client only ever receives
+ * the tiles that changed. The buffers are direct and reused, so a move allocates nothing.
+ *
+ * Usage: java application.Remote.GameClient [games] [port]
+ * plays random games on level 2 boards (16x16, 40 mines and a supermine) and prints the message rate. Without a
+ * port, the games are played against a server started in the same process.
+ */
+public class GameClient implements Closeable {
+
+    /**
+     * channel          -> The connection to the server
+     * out              -> The frame of the next command
+     * in               -> The response to the last command (read in parts if it doesn't fit)
+     * boardsize        -> The size of the board of the game (0 until a game is started)
+     * tiles            -> The value of every tile of the board, as known by the client (see WireProtocol)
+     * changes          -> The tiles changed by the last command, packed (see WireProtocol.pack)
+     * numChanges       -> The number of tiles changed by the last command
+     * status           -> The status of the last command
+     * state            -> The state of the game (GAME_OVER, GAME_WON and GAME_LOST bits)
+     * attempts         -> The number of attempts of the game
+     * markedTiles      -> The number of marked tiles of the game
+     */
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(WireProtocol.FRAME_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+    private int boardsize;
+    private byte[] tiles = new byte[0];
+    private int[] changes = new int[64];
+    private int numChanges;
+    private int status;
+    private int state;
+    private int attempts;
+    private int markedTiles;
+
+    /**
+     * Connects to a server.
+     * @param host the host of the server
+     * @param port the port of the server
+     * @throws IOException if the server can't be reached
+     */
+    public GameClient(String host, int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Starts a new game with a generated board. The same arguments always generate the same board.
+     * @param boardsize the size of the board (up to WireProtocol.MAX_BOARDSIZE)
+     * @param numMines the number of mines (the supermine included)
+     * @param hasSupermine true if the board has a supermine
+     * @param seed the seed of the board
+     * @return the status of the command (see WireProtocol)
+     * @throws IOException if the connection fails
+     */
+    public int newGame(int boardsize, int numMines, boolean hasSupermine, long seed) throws IOException {
+        out.clear();
+        WireProtocol.putNewGame(out, boardsize, numMines, hasSupermine, seed);
+        send();
+        receive();
+        if(status == WireProtocol.OK) {
+            this.boardsize = boardsize;
+            if(tiles.length != boardsize * boardsize) {
+                tiles = new byte[boardsize * boardsize];
+            }
+            Arrays.fill(tiles, (byte) WireProtocol.HIDDEN);
+        }
+        return status;
+    }
+
+    /**
+     * Reveals a tile (left click).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the status of the command
+     * @throws IOException if the connection fails
+     */
+    public int reveal(int row, int col) throws IOException {
+        return move(WireProtocol.REVEAL, row, col);
+    }
+
+    /**
+     * Marks or unmarks a tile as mine (right click).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the status of the command
+     * @throws IOException if the connection fails
+     */
+    public int flag(int row, int col) throws IOException {
+        return move(WireProtocol.FLAG, row, col);
+    }
+
+    /**
+     * Reveals the unflagged neighbours of a revealed number whose flags match it (middle click).
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the status of the command
+     * @throws IOException if the connection fails
+     */
+    public int chord(int row, int col) throws IOException {
+        return move(WireProtocol.CHORD, row, col);
+    }
+
+    private int move(int command, int row, int col) throws IOException {
+        out.clear();
+        WireProtocol.putMove(out, command, row, col);
+        send();
+        receive();
+        return status;
+    }
+
+    private void send() throws IOException {
+        out.flip();
+        while(out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    /**
+     * Reads the response to the command that was sent and applies its changed tiles to the board.
+     */
+    private void receive() throws IOException {
+        in.clear().limit(WireProtocol.HEADER_SIZE);
+        readFully();
+        status = in.get(0);
+        state = in.get(1);
+        attempts = in.getInt(4);
+        markedTiles = in.getInt(8);
+        numChanges = in.getInt(12);
+        if(changes.length < numChanges) {
+            changes = new int[Math.max(numChanges, changes.length * 2)];
+        }
+
+        int received = 0;
+        while(received < numChanges) {
+            in.clear().limit(Math.min(in.capacity(), (numChanges - received) * Integer.BYTES));
+            readFully();
+            in.flip();
+            while(in.hasRemaining()) {
+                int packed = in.getInt();
+                changes[received++] = packed;
+                tiles[WireProtocol.getIndex(packed)] = (byte) WireProtocol.getValue(packed);
+            }
+        }
+    }
+
+    private void readFully() throws IOException {
+        while(in.hasRemaining()) {
+            if(channel.read(in) < 0) {
+                throw new EOFException("The server closed the connection");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Getters
+
+    /**
+     * Returns the value of a tile, as known by the client.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the number of the tile (0-8), HIDDEN, FLAGGED, MINE or SUPER_MINE (see WireProtocol)
+     */
+    public int getTile(int row, int col) {
+        return tiles[row * boardsize + col];
+    }
+
+    /**
+     * Returns the number of tiles changed by the last command.
+     * @return the number of changed tiles
+     */
+    public int getNumChanges() {
+        return numChanges;
+    }
+
+    /**
+     * Returns a tile changed by the last command.
+     * @param i the number of the change (from 0 to getNumChanges() - 1)
+     * @return the packed tile (see WireProtocol.getIndex and WireProtocol.getValue)
+     */
+    public int getChange(int i) {
+        return changes[i];
+    }
+
+    /**
+     * Returns the size of the board of the game.
+     * @return the size of the board (0 until a game is started)
+     */
+    public int getBoardsize() {
+        return boardsize;
+    }
+
+    /**
+     * Returns the status of the last command.
+     * @return the status (see WireProtocol)
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of attempts (left and middle clicks) of the game.
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the number of tiles marked as mines.
+     * @return the number of marked tiles
+     */
+    public int getMarkedTiles() {
+        return markedTiles;
+    }
+
+    /**
+     * Returns whether the game is over.
+     * @return true if the game is over
+     */
+    public boolean getGameOver() {
+        return (state & WireProtocol.GAME_OVER) != 0;
+    }
+
+    /**
+     * Returns whether the player won.
+     * @return true if the player won
+     */
+    public boolean getGameWon() {
+        return (state & WireProtocol.GAME_WON) != 0;
+    }
+
+    /**
+     * Returns whether the player lost.
+     * @return true if the player lost
+     */
+    public boolean getGameLost() {
+        return (state & WireProtocol.GAME_LOST) != 0;
+    }
+
+    /**
+     * Plays random games and prints the number of commands per second.
+     * @param args the number of games (default 20000) and the port of the server (default: a server in this process)
+     * @throws Exception if the connection fails
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        GameServer server = null;
+        int port;
+        if(args.length > 1) {
+            port = Integer.parseInt(args[1]);
+        }
+        else {
+            server = new GameServer(0);
+            port = server.getPort();
+            GameServer local = server;
+            Thread thread = new Thread(() -> {
+                try {
+                    local.run();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "Game server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Random random = new Random(0);
+        long commands = 0;
+        long tilesReceived = 0;
+        int wins = 0;
+        long start = System.nanoTime();
+        try(GameClient client = new GameClient("localhost", port)) {
+            for(int game = 0; game < games; game++) {
+                client.newGame(16, 40, true, game);
+                commands++;
+                while(!client.getGameOver()) {
+                    int row = random.nextInt(16);
+                    int col = random.nextInt(16);
+                    if(client.getTile(row, col) == WireProtocol.HIDDEN) {
+                        client.reveal(row, col);
+                        commands++;
+                        tilesReceived += client.getNumChanges();
+                    }
+                }
+                wins += client.getGameWon() ? 1 : 0;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d games (%d won), %d commands in %.2f s: %.0f commands/s, %.1f us per command, "
+                          + "%.1f tiles per response%n", games, wins, commands, seconds, commands / seconds,
+                          seconds * 1e6 / commands, (double) tilesReceived / commands);
+        if(server != null) {
+            server.close();
+        }
+    }
+}
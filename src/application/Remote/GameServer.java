@@ -0,0 +1,247 @@
+package application.Remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * This class serves remote games over TCP with the binary protocol of WireProtocol, so that thin clients and bots
+ * (see GameClient) can play headless games at high message rates without any text or object serialization.
+ * One thread serves every connection with non-blocking channels and a selector. Every connection plays one game
+ * at a time (see GameSession) and has a direct buffer for its commands and one for its responses: the frames are
+ * decoded in place and the responses are written straight into the output buffer, so a move allocates nothing.
+ * A client can send several commands without waiting (pipelining). Once MAX_PENDING_OUTPUT bytes of responses
+ * are waiting to be sent, a connection stops running commands and reading new ones until they are sent, so a
+ * client that doesn't read its responses can't make the server buffer them without limit.
+ *
+ * Usage: java application.Remote.GameServer [port]
+ */
+public class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7717;
+
+    private static final int INPUT_SIZE = WireProtocol.FRAME_SIZE * 1024;
+    private static final int OUTPUT_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_OUTPUT = OUTPUT_SIZE;
+    // The pending responses never reach MAX_PENDING_OUTPUT before the last response is added
+    private static final int MAX_OUTPUT_SIZE = MAX_PENDING_OUTPUT + WireProtocol.MAX_RESPONSE_SIZE;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private volatile boolean closed;
+    private volatile boolean running;
+
+    /**
+     * Opens the server on a port of the loopback address. The connections are only served by run.
+     * @param port the port (0 for any free port)
+     * @throws IOException if the port can't be opened
+     */
+    public GameServer(int port) throws IOException {
+        this(new InetSocketAddress("localhost", port));
+    }
+
+    /**
+     * Opens the server on an address. The connections are only served by run.
+     * @param address the address
+     * @throws IOException if the address can't be opened
+     */
+    public GameServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        }
+    }
+
+    /**
+     * Serves the connections until the server is closed.
+     * @throws IOException if the selector fails
+     */
+    public void run() throws IOException {
+        running = true;
+        try {
+            while(!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()) {
+                        continue;
+                    }
+                    if(key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if(key.isWritable()) {
+                            connection.serve(key);
+                        }
+                        if(key.isValid() && key.isReadable()) {
+                            connection.read(key);
+                        }
+                    } catch (IOException e) {
+                        // The client has gone: only its connection is closed
+                        key.cancel();
+                        connection.channel.close();
+                    }
+                }
+            }
+        } finally {
+            running = false;
+            closeChannels();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if(channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+    }
+
+    /**
+     * Returns the port of the server.
+     * @return the port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Closes the server and all its connections. It can be called from any thread: if the server is running,
+     * run closes them and returns.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        if(!running) {
+            closeChannels();
+        }
+    }
+
+    /**
+     * Closes the connections, the server channel and the selector (on the thread of run, if it is running).
+     */
+    private synchronized void closeChannels() throws IOException {
+        if(!selector.isOpen()) {
+            return;
+        }
+        for(SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        serverChannel.close();
+    }
+
+    /**
+     * The state of a connection: its game and its buffers. The input buffer is always in write mode (the commands
+     * that were read but not run yet are between 0 and its position), and so is the output buffer (the responses
+     * that were not sent yet are between 0 and its position).
+     */
+    private static class Connection {
+
+        private final SocketChannel channel;
+        private final GameSession session = new GameSession();
+        private final ByteBuffer in = ByteBuffer.allocateDirect(INPUT_SIZE);
+        private ByteBuffer out = ByteBuffer.allocateDirect(OUTPUT_SIZE);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads the commands that arrived and serves them.
+         */
+        void read(SelectionKey key) throws IOException {
+            if(channel.read(in) < 0) {
+                key.cancel();
+                channel.close();
+                return;
+            }
+            serve(key);
+        }
+
+        /**
+         * Runs the complete commands that were read and sends their responses, as much as the channel takes.
+         * The commands stop once MAX_PENDING_OUTPUT bytes of responses are pending: until they are sent, the
+         * connection waits to write instead of reading, and the remaining commands run when it can write again.
+         */
+        void serve(SelectionKey key) throws IOException {
+            while(true) {
+                in.flip();
+                while(in.remaining() >= WireProtocol.FRAME_SIZE && out.position() < MAX_PENDING_OUTPUT) {
+                    int size = session.execute(in);
+                    ensureOutput(size);
+                    session.writeResponse(out);
+                }
+                in.compact();
+
+                out.flip();
+                channel.write(out);
+                out.compact();
+                if(out.position() > 0) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if(in.position() < WireProtocol.FRAME_SIZE) {
+                    break;
+                }
+            }
+            // A buffer that was enlarged for a large response is not kept
+            if(out.capacity() > OUTPUT_SIZE) {
+                out = ByteBuffer.allocateDirect(OUTPUT_SIZE);
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Enlarges the output buffer, if needed, so that a response of a given size fits after the pending ones.
+         * The buffer never grows past MAX_OUTPUT_SIZE.
+         */
+        private void ensureOutput(int size) throws IOException {
+            if(out.remaining() >= size) {
+                return;
+            }
+            if(out.position() + size > MAX_OUTPUT_SIZE) {
+                throw new IOException("The response doesn't fit in the output buffer");
+            }
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.min(Math.max(out.capacity() * 2, out.position() + size),
+                                                                   MAX_OUTPUT_SIZE));
+            out.flip();
+            larger.put(out);
+            out = larger;
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * @param args the port (default DEFAULT_PORT)
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try(GameServer server = new GameServer(port)) {
+            System.out.println("Serving games on port " + server.getPort());
+            server.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package application.Remote;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import application.GameObjects.BoardGenerator;
+import application.GameObjects.BoardState;
+import application.GameObjects.GameLogic;
+
+/**
+ * This class holds the game of a remote connection: a headless GameLogic that tracks its changed tiles
+ * (see GameLogic.setTrackChanges), so that every response lists only the tiles changed by its command.
+ * As in the GUI, the first left click is never a mine: if the first move of a game reveals a mine, the board is
+ * generated again (with the next seed, as the bots do) until it doesn't. Since at most half of the tiles are mines
+ * (see WireProtocol.MAX_MINE_PERCENT), that takes 2 boards on average; after MAX_BOARDS boards the click is played.
+ */
+class GameSession {
+
+    // Headless games have no clock, so the maximum time is never used
+    private static final int MAX_TIME = 1;
+
+    // The most boards generated for the first move of a game
+    private static final int MAX_BOARDS = 32;
+
+    /**
+     * game             -> The game (null until the first NEW_GAME)
+     * hasSupermine     -> Indicates that the board of the game has a supermine
+     * seed             -> The seed of the board of the game
+     * firstMove        -> Indicates that no move has been played in the game yet
+     * status           -> The status of the last command (see WireProtocol)
+     */
+
+    private GameLogic game;
+    private boolean hasSupermine;
+    private long seed;
+    private boolean firstMove;
+    private int status;
+
+    /**
+     * Runs the command of the frame at the position of a buffer and advances the position past the frame.
+     * The frame is read in place, without copying it.
+     * @param frame the buffer (with at least WireProtocol.FRAME_SIZE bytes remaining)
+     * @return the size of the response (see writeResponse)
+     */
+    int execute(ByteBuffer frame) {
+        int position = frame.position();
+        frame.position(position + WireProtocol.FRAME_SIZE);
+        int command = frame.get(position);
+        if(game != null) {
+            game.clearChanges();
+        }
+
+        if(command == WireProtocol.NEW_GAME) {
+            int boardsize = frame.getShort(position + 2) & 0xFFFF;
+            int numMines = frame.getInt(position + 4);
+            newGame(boardsize, numMines, frame.get(position + 1) == 1, frame.getLong(position + 8));
+            return getResponseSize();
+        }
+        if(command != WireProtocol.REVEAL && command != WireProtocol.FLAG && command != WireProtocol.CHORD) {
+            status = WireProtocol.INVALID;
+            return getResponseSize();
+        }
+        if(game == null) {
+            status = WireProtocol.NO_GAME;
+            return getResponseSize();
+        }
+        int row = frame.getInt(position + 4);
+        int col = frame.getInt(position + 8);
+        int boardsize = game.getBoardsize();
+        if(row < 0 || row >= boardsize || col < 0 || col >= boardsize) {
+            status = WireProtocol.INVALID;
+            return getResponseSize();
+        }
+
+        status = WireProtocol.OK;
+        if(command == WireProtocol.REVEAL) {
+            for(int boards = 1; firstMove && game.isMine(row, col) && boards < MAX_BOARDS; boards++) {
+                seed = new Random(seed).nextLong();
+                createGame(boardsize, game.getNumMines());
+            }
+            game.AddRevealClick(row, col);
+        }
+        else if(command == WireProtocol.FLAG) {
+            game.flagTile(row, col);
+        }
+        else {
+            game.chordTile(row, col);
+        }
+        firstMove = false;
+        return getResponseSize();
+    }
+
+    /**
+     * Starts a new game, unless its parameters are invalid or exceed the limits of WireProtocol.
+     */
+    private void newGame(int boardsize, int numMines, boolean hasSupermine, long seed) {
+        if(boardsize < 2 || boardsize > WireProtocol.MAX_BOARDSIZE || numMines < 1
+           || numMines * 100L > (long) boardsize * boardsize * WireProtocol.MAX_MINE_PERCENT) {
+            status = WireProtocol.INVALID;
+            return;
+        }
+        this.hasSupermine = hasSupermine;
+        this.seed = seed;
+        createGame(boardsize, numMines);
+        status = WireProtocol.OK;
+    }
+
+    private void createGame(int boardsize, int numMines) {
+        BoardState layout = BoardGenerator.ofSize(boardsize, numMines, hasSupermine, seed).GenerateLayout();
+        game = new GameLogic(layout, numMines, MAX_TIME);
+        game.setTrackChanges(true);
+        firstMove = true;
+    }
+
+    /**
+     * Returns the size of the response to the last command.
+     * @return the size in bytes
+     */
+    private int getResponseSize() {
+        return WireProtocol.HEADER_SIZE + (game != null ? game.getNumChanges() * Integer.BYTES : 0);
+    }
+
+    /**
+     * Writes the response to the last command at the position of a buffer and advances the position.
+     * The values of the changed tiles are read from the game, so nothing is allocated.
+     * @param out the buffer (with at least the size returned by execute remaining)
+     */
+    void writeResponse(ByteBuffer out) {
+        if(game == null) {
+            out.put((byte) status).put((byte) 0).putShort((short) 0).putInt(0).putInt(0).putInt(0);
+            return;
+        }
+        int state = (game.getGameOver() ? WireProtocol.GAME_OVER : 0) | (game.getGameWon() ? WireProtocol.GAME_WON : 0)
+                    | (game.getGameLost() ? WireProtocol.GAME_LOST : 0);
+        int numChanges = game.getNumChanges();
+        out.put((byte) status).put((byte) state).putShort((short) 0).putInt(game.getAttempts())
+           .putInt(game.getMarkedTiles()).putInt(numChanges);
+
+        int boardsize = game.getBoardsize();
+        BoardState layout = game.getState();
+        for(int i = 0; i < numChanges; i++) {
+            int index = game.getChangedTile(i);
+            int row = index / boardsize;
+            int col = index % boardsize;
+            int value;
+            if(layout.isRevealed(row, col)) {
+                int mine = layout.getValue(row, col);
+                value = mine == GameLogic.SUPER_MINE ? WireProtocol.SUPER_MINE
+                        : mine == GameLogic.MINE ? WireProtocol.MINE : game.getNumAdjacentMines(row, col);
+            }
+            else {
+                value = layout.isFlagged(row, col) ? WireProtocol.FLAGGED : WireProtocol.HIDDEN;
+            }
+            out.putInt(WireProtocol.pack(index, value));
+        }
+    }
+}
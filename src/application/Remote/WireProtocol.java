@@ -0,0 +1,119 @@
+package application.Remote;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class defines the binary protocol of the remote games (see GameServer and GameClient). All the numbers are
+ * big-endian (the default order of a ByteBuffer).
+ *
+ * Every command is a frame of FRAME_SIZE bytes:
+ *      byte 0      -> the command (NEW_GAME, REVEAL, FLAG or CHORD)
+ *      byte 1      -> NEW_GAME: 1 if the board has a supermine, otherwise 0
+ *      bytes 2-3   -> NEW_GAME: the size of the board (short)
+ *      bytes 4-7   -> NEW_GAME: the number of mines; REVEAL, FLAG, CHORD: the row of the tile (int)
+ *      bytes 8-15  -> NEW_GAME: the seed of the board (long); REVEAL, FLAG, CHORD: the column of the tile (int)
+ *                     and 4 unused bytes
+ *
+ * Every command is answered, in order, by a response of HEADER_SIZE bytes followed by the tiles that changed:
+ *      byte 0      -> the status (OK, NO_GAME or INVALID)
+ *      byte 1      -> the state of the game: GAME_OVER, GAME_WON and GAME_LOST bits
+ *      bytes 2-3   -> unused
+ *      bytes 4-7   -> the number of attempts (int)
+ *      bytes 8-11  -> the number of marked tiles (int)
+ *      bytes 12-15 -> the number of changed tiles n (int)
+ *      n ints      -> the changed tiles, each packed as index * 16 + value (see pack)
+ * The index of a tile is row * boardsize + col and its value is its number (0-8), HIDDEN, FLAGGED, MINE or
+ * SUPER_MINE. A tile can be listed more than once in a response; its last value is its current value.
+ * A new game starts with every tile hidden, so its response lists no tiles. A NEW_GAME whose board is larger than
+ * MAX_BOARDSIZE or has more than MAX_MINE_PERCENT of its tiles as mines is answered with INVALID, which bounds the
+ * work of a command and the size of its response (a command changes every tile at most once).
+ */
+public final class WireProtocol {
+
+    public static final int FRAME_SIZE = 16;
+    public static final int HEADER_SIZE = 16;
+
+    // Commands
+    public static final int NEW_GAME = 1;
+    public static final int REVEAL = 2;
+    public static final int FLAG = 3;
+    public static final int CHORD = 4;
+
+    // Statuses
+    public static final int OK = 0;
+    public static final int NO_GAME = 1;
+    public static final int INVALID = 2;
+
+    // Bits of the state of the game
+    public static final int GAME_OVER = 1;
+    public static final int GAME_WON = 2;
+    public static final int GAME_LOST = 4;
+
+    // Values of the tiles (the numbers are 0-8)
+    public static final int HIDDEN = 9;
+    public static final int FLAGGED = 10;
+    public static final int MINE = 11;
+    public static final int SUPER_MINE = 12;
+
+    // The largest board and the largest share of its tiles (in percent) that can be mines
+    public static final int MAX_BOARDSIZE = 256;
+    public static final int MAX_MINE_PERCENT = 50;
+
+    // The size of the largest response: one change for every tile of the largest board
+    public static final int MAX_RESPONSE_SIZE = HEADER_SIZE + MAX_BOARDSIZE * MAX_BOARDSIZE * Integer.BYTES;
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Packs a tile and its value in one int.
+     * @param index the index of the tile
+     * @param value the value of the tile
+     * @return the packed tile
+     */
+    public static int pack(int index, int value) {
+        return (index << 4) | value;
+    }
+
+    /**
+     * Returns the index of a packed tile.
+     * @param packed the packed tile
+     * @return the index of the tile
+     */
+    public static int getIndex(int packed) {
+        return packed >>> 4;
+    }
+
+    /**
+     * Returns the value of a packed tile.
+     * @param packed the packed tile
+     * @return the value of the tile
+     */
+    public static int getValue(int packed) {
+        return packed & 15;
+    }
+
+    /**
+     * Writes a NEW_GAME frame at the position of a buffer and advances the position.
+     * @param buffer the buffer
+     * @param boardsize the size of the board (up to MAX_BOARDSIZE)
+     * @param numMines the number of mines (the supermine included)
+     * @param hasSupermine true if the board has a supermine
+     * @param seed the seed of the board (see BoardGenerator)
+     */
+    public static void putNewGame(ByteBuffer buffer, int boardsize, int numMines, boolean hasSupermine, long seed) {
+        buffer.put((byte) NEW_GAME).put((byte) (hasSupermine ? 1 : 0)).putShort((short) boardsize)
+              .putInt(numMines).putLong(seed);
+    }
+
+    /**
+     * Writes a REVEAL, FLAG or CHORD frame at the position of a buffer and advances the position.
+     * @param buffer the buffer
+     * @param command the command
+     * @param row the row of the tile
+     * @param col the column of the tile
+     */
+    public static void putMove(ByteBuffer buffer, int command, int row, int col) {
+        buffer.put((byte) command).put((byte) 0).putShort((short) 0).putInt(row).putInt(col).putInt(0);
+    }
+}
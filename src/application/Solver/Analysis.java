@@ -0,0 +1,111 @@
+package application.Solver;
+
+/**
+ * This class holds the result of a Solver: the probability that each tile contains a mine.
+ * The probability of a revealed tile is NaN. A probability of 0 (or 1) means that the tile is certainly safe (or a mine).
+ */
+public class Analysis {
+
+    private final int boardsize;
+    private final double[] probabilities;
+    private final int deductionRounds;
+    private final int numComponents;
+    private final boolean complete;
+
+    /**
+     * Constructs a new analysis.
+     * @param boardsize the size of the board
+     * @param probabilities the probability of a mine for every tile (NaN for the revealed tiles)
+     * @param deductionRounds the rounds of simple deductions that found a tile
+     * @param numComponents the number of independent components of the frontier
+     * @param complete false if some components were approximated because the time budget ran out
+     */
+    public Analysis(int boardsize, double[] probabilities, int deductionRounds, int numComponents, boolean complete) {
+        this.boardsize = boardsize;
+        this.probabilities = probabilities;
+        this.deductionRounds = deductionRounds;
+        this.numComponents = numComponents;
+        this.complete = complete;
+    }
+
+    /**
+     * Returns the unknown tile with the lowest probability of a mine. Among equally safe tiles, the first one is chosen.
+     * @return the index of the tile or -1 if there are no unknown tiles
+     */
+    public int getSafestCell() {
+        int best = -1;
+        for(int cell = 0; cell < probabilities.length; cell++) {
+            if(!Double.isNaN(probabilities[cell]) && (best < 0 || probabilities[cell] < probabilities[best])) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of unknown tiles that are certainly safe.
+     * @return the number of safe tiles
+     */
+    public int getNumSafe() {
+        int count = 0;
+        for(double probability : probabilities) {
+            if(probability == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Getters
+
+    /**
+     * Returns the probability that a tile contains a mine.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the probability or NaN if the tile is revealed
+     */
+    public double getProbability(int row, int col) {
+        return probabilities[row * boardsize + col];
+    }
+
+    /**
+     * Returns the probability that a tile contains a mine.
+     * @param cell the index of the tile
+     * @return the probability or NaN if the tile is revealed
+     */
+    public double getProbability(int cell) {
+        return probabilities[cell];
+    }
+
+    /**
+     * Returns the size of the board.
+     * @return the size of the board
+     */
+    public int getBoardsize() {
+        return boardsize;
+    }
+
+    /**
+     * Returns the number of rounds of simple deductions that found a tile.
+     * @return the number of rounds
+     */
+    public int getDeductionRounds() {
+        return deductionRounds;
+    }
+
+    /**
+     * Returns the number of independent components of the frontier.
+     * @return the number of components
+     */
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * Returns whether all the components were enumerated within the time budget.
+     * @return true if the probabilities are exact
+     */
+    public boolean getComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,213 @@
+package application.Solver;
+
+import java.util.Arrays;
+
+import application.GameObjects.GameEngine;
+import application.GameObjects.GameLogic;
+
+/**
+ * This class holds what the player can see on a board: the number of each revealed tile and the revealed mines.
+ * The solvers only use a BoardView, so they never peek at the hidden mines.
+ */
+public class BoardView {
+
+    // Values of the tiles that are not numbers
+    public static final int UNKNOWN = -1;
+    public static final int KNOWN_MINE = -2;
+
+    /**
+     * boardsize        -> The size of the board
+     * numMines         -> The total number of mines (including the supermine)
+     * values           -> The value of every tile (UNKNOWN, KNOWN_MINE or its number)
+     * hasSupermine     -> Whether the scenario has a supermine
+     * attempts         -> The attempts of the game so far (the supermine rule needs less than 4)
+     * superMine        -> The supermine, once the rule has revealed it (-1 before)
+     * probed           -> The tiles that were marked within the first attempts and are not the supermine
+     */
+    private final int boardsize;
+    private final int numMines;
+    private final int[] values;
+    private final boolean hasSupermine;
+    private int attempts;
+    private int superMine = -1;
+    private final boolean[] probed;
+
+    /**
+     * Constructs a view where every tile is unknown, of a scenario without a supermine.
+     * @param boardsize the size of the board
+     * @param numMines the total number of mines
+     */
+    public BoardView(int boardsize, int numMines) {
+        this(boardsize, numMines, false);
+    }
+
+    /**
+     * Constructs a view where every tile is unknown.
+     * @param boardsize the size of the board
+     * @param numMines the total number of mines (including the supermine)
+     * @param hasSupermine whether the scenario has a supermine
+     */
+    public BoardView(int boardsize, int numMines, boolean hasSupermine) {
+        this.boardsize = boardsize;
+        this.numMines = numMines;
+        this.values = new int[boardsize * boardsize];
+        this.hasSupermine = hasSupermine;
+        this.probed = new boolean[boardsize * boardsize];
+        Arrays.fill(values, UNKNOWN);
+    }
+
+    /**
+     * Creates the view of the player of a game.
+     * @param gameLogic the game
+     * @return the view of the game's board
+     */
+    public static BoardView of(GameLogic gameLogic) {
+        BoardView view = new BoardView(gameLogic.getBoardsize(), gameLogic.getNumMines());
+        view.update(gameLogic);
+        return view;
+    }
+
+    /**
+     * Updates the view with the revealed tiles and the attempts of a game.
+     * @param game the game
+     */
+    public void update(GameEngine game) {
+        attempts = game.getAttempts();
+        for(int row = 0; row < boardsize; row++) {
+            for(int col = 0; col < boardsize; col++) {
+                if(values[row * boardsize + col] == UNKNOWN && game.isRevealed(row, col)) {
+                    values[row * boardsize + col] = game.isMine(row, col) ? KNOWN_MINE : game.getNumAdjacentMines(row, col);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a tile.
+     * @param cell the index of the tile
+     * @param value UNKNOWN, KNOWN_MINE or the number of adjacent mines
+     */
+    public void set(int cell, int value) {
+        values[cell] = value;
+    }
+
+    /**
+     * Returns the value of a tile.
+     * @param cell the index of the tile
+     * @return UNKNOWN, KNOWN_MINE or the number of adjacent mines
+     */
+    public int get(int cell) {
+        return values[cell];
+    }
+
+    /**
+     * Returns whether a tile is revealed and shows a number.
+     * @param cell the index of the tile
+     * @return true if the tile shows a number
+     */
+    public boolean isNumber(int cell) {
+        return values[cell] >= 0;
+    }
+
+    /**
+     * Stores the indices of the neighbours of a tile in the given array.
+     * @param cell the index of the tile
+     * @param neighbours an array of (at least) 8 elements
+     * @return the number of neighbours
+     */
+    public int getNeighbours(int cell, int[] neighbours) {
+        int row = cell / boardsize;
+        int col = cell % boardsize;
+        int count = 0;
+        for(int i = Math.max(row - 1, 0); i <= Math.min(row + 1, boardsize - 1); i++) {
+            for(int j = Math.max(col - 1, 0); j <= Math.min(col + 1, boardsize - 1); j++) {
+                if(i != row || j != col) {
+                    neighbours[count++] = i * boardsize + j;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Records the result of marking a tile within the first attempts (see SupermineAnalysis).
+     * @param cell the index of the tile
+     * @param supermine true if the tile was the supermine (and the rule revealed its row and column)
+     */
+    public void setProbed(int cell, boolean supermine) {
+        if(supermine) {
+            superMine = cell;
+        }
+        else {
+            probed[cell] = true;
+        }
+    }
+
+    /**
+     * Returns whether a tile was marked within the first attempts and was not the supermine.
+     * @param cell the index of the tile
+     * @return true if the tile is certainly not the supermine
+     */
+    public boolean isProbed(int cell) {
+        return probed[cell];
+    }
+
+    /**
+     * Returns whether marking the supermine would still reveal its row and column: the scenario has a supermine,
+     * the rule has not revealed it yet and there were less than SupermineAnalysis.RULE_ATTEMPTS attempts.
+     * @return true if the supermine rule can be used
+     */
+    public boolean getSupermineRuleOpen() {
+        return hasSupermine && superMine < 0 && attempts < SupermineAnalysis.RULE_ATTEMPTS;
+    }
+
+    // Getters
+
+    /**
+     * Returns the size of the board.
+     * @return the size of the board
+     */
+    public int getBoardsize() {
+        return boardsize;
+    }
+
+    /**
+     * Returns the total number of tiles.
+     * @return the number of tiles
+     */
+    public int getNumCells() {
+        return values.length;
+    }
+
+    /**
+     * Returns the total number of mines.
+     * @return the number of mines
+     */
+    public int getNumMines() {
+        return numMines;
+    }
+
+    /**
+     * Returns whether the scenario has a supermine.
+     * @return true if there is a supermine
+     */
+    public boolean getHasSupermine() {
+        return hasSupermine;
+    }
+
+    /**
+     * Returns the attempts of the game when the view was last updated.
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the supermine, if the rule has revealed it.
+     * @return the index of the supermine or -1
+     */
+    public int getSupermine() {
+        return superMine;
+    }
+}
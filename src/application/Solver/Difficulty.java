@@ -0,0 +1,154 @@
+package application.Solver;
+
+/**
+ * This class holds the difficulty of a board, as measured by the DifficultyEstimator:
+ *      threeBV -> the minimum number of left clicks that solve the board (3BV)
+ *      guesses -> the number of times the solver had no safe tile and had to guess
+ *      deductionDepth -> the most rounds of simple deductions that one position needed
+ *      advancedDeductions -> the safe tiles that only the full analysis (and not the simple rules) could find
+ *      winProbability -> the probability that the solver survives all its guesses
+ */
+public class Difficulty {
+
+    // Buckets of difficulty
+    public static final int NO_GUESS = 0;
+    public static final int EASY = 1;
+    public static final int MEDIUM = 2;
+    public static final int HARD = 3;
+
+    private static final String[] BUCKET_NAMES = {"no guess", "easy", "medium", "hard"};
+
+    private final int threeBV;
+    private final int guesses;
+    private final int deductionDepth;
+    private final int advancedDeductions;
+    private final double winProbability;
+
+    /**
+     * Constructs a new difficulty.
+     * @param threeBV the 3BV of the board
+     * @param guesses the number of forced guesses
+     * @param deductionDepth the most rounds of simple deductions in one position
+     * @param advancedDeductions the safe tiles found only by the full analysis
+     * @param winProbability the probability to survive all the guesses
+     */
+    public Difficulty(int threeBV, int guesses, int deductionDepth, int advancedDeductions, double winProbability) {
+        this.threeBV = threeBV;
+        this.guesses = guesses;
+        this.deductionDepth = deductionDepth;
+        this.advancedDeductions = advancedDeductions;
+        this.winProbability = winProbability;
+    }
+
+    /**
+     * Returns the bucket of the board:
+     *      NO_GUESS -> the board can be solved without guessing
+     *      EASY -> the win probability is at least 90%
+     *      MEDIUM -> the win probability is at least 60%
+     *      HARD -> the win probability is less than 60%
+     * @return the bucket of the board
+     */
+    public int getBucket() {
+        if(guesses == 0) {
+            return NO_GUESS;
+        }
+        if(winProbability >= 0.9) {
+            return EASY;
+        }
+        return winProbability >= 0.6 ? MEDIUM : HARD;
+    }
+
+    /**
+     * Packs the bucket, the forced guesses and the deduction depth in one int, as stored with a board in a
+     * BoardArchive: bits 0-7 hold the bucket + 1 (so 0 is a board that was not scored), bits 8-15 the deduction
+     * depth and bits 16-31 the guesses (both capped at the largest value that fits).
+     * @return the packed difficulty
+     */
+    public int pack() {
+        return (getBucket() + 1) | Math.min(deductionDepth, 0xFF) << 8 | Math.min(guesses, 0xFFFF) << 16;
+    }
+
+    /**
+     * Returns the bucket of a packed difficulty.
+     * @param packed the packed difficulty (see pack)
+     * @return the bucket, or -1 if the board was not scored
+     */
+    public static int getBucket(int packed) {
+        return (packed & 0xFF) - 1;
+    }
+
+    /**
+     * Returns the forced guesses of a packed difficulty.
+     * @param packed the packed difficulty (see pack)
+     * @return the number of guesses
+     */
+    public static int getGuesses(int packed) {
+        return packed >>> 16;
+    }
+
+    /**
+     * Returns the deduction depth of a packed difficulty.
+     * @param packed the packed difficulty (see pack)
+     * @return the deduction depth
+     */
+    public static int getDeductionDepth(int packed) {
+        return (packed >>> 8) & 0xFF;
+    }
+
+    /**
+     * Returns the name of a bucket.
+     * @param bucket the bucket (NO_GUESS, EASY, MEDIUM or HARD)
+     * @return the name of the bucket
+     */
+    public static String getBucketName(int bucket) {
+        return BUCKET_NAMES[bucket];
+    }
+
+    @Override
+    public String toString() {
+        return "3BV=" + threeBV + " guesses=" + guesses + " depth=" + deductionDepth + " advanced=" + advancedDeductions
+               + String.format(" win=%.3f", winProbability);
+    }
+
+    // Getters
+
+    /**
+     * Returns the 3BV of the board.
+     * @return the minimum number of left clicks
+     */
+    public int getThreeBV() {
+        return threeBV;
+    }
+
+    /**
+     * Returns the number of forced guesses.
+     * @return the number of guesses
+     */
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * Returns the most rounds of simple deductions that one position needed.
+     * @return the deduction depth
+     */
+    public int getDeductionDepth() {
+        return deductionDepth;
+    }
+
+    /**
+     * Returns the number of safe tiles that only the full analysis could find.
+     * @return the number of advanced deductions
+     */
+    public int getAdvancedDeductions() {
+        return advancedDeductions;
+    }
+
+    /**
+     * Returns the probability that the solver survives all its guesses.
+     * @return the win probability
+     */
+    public double getWinProbability() {
+        return winProbability;
+    }
+}
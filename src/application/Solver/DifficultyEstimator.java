@@ -0,0 +1,173 @@
+package application.Solver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+import application.GameObjects.BoardArchive;
+import application.GameObjects.BoardGenerator;
+import application.GameObjects.BoardState;
+import application.GameObjects.GameEngine;
+import application.GameObjects.ThreeBV;
+import application.ReadScenario.GameDescription;
+
+/**
+ * This class measures how difficult a generated board is by solving it. The solver plays the board as a player
+ * would (it only sees a BoardView): it reveals every tile that the simple rules prove safe, then every tile that the
+ * full analysis proves safe and, when there is none, it guesses the safest tile. The estimator knows the mines, so a
+ * guess that hits a mine is not the end: the mine is marked as known and the solving goes on. This way every board
+ * gets a complete score, and the win probability is the product of the chances to survive each guess.
+ *
+ * The first click is free (the GUI never starts a game on a mine): it is the first tile (in row order) that is not a mine.
+ *
+ * Usage: java application.Solver.DifficultyEstimator [boards] [level] [mines] [archive] [first seed]
+ * generates the boards of a scenario (level 2 with 40 mines by default), scores each of them as it is generated and
+ * appends them with their difficulty to a board archive (by default boards-[level]-[mines].archive), then prints how
+ * many boards fell in each bucket (see Difficulty.getBucket).
+ */
+public class DifficultyEstimator {
+
+    public static final long DEFAULT_STEP_BUDGET = 1_000_000L;
+
+    private final Solver solver;
+    private final long stepBudget;
+    private final int[] neighbours = new int[8];
+
+    /**
+     * Constructs a new estimator with the default budget of enumeration steps (see Solver.analyzeSteps).
+     */
+    public DifficultyEstimator() {
+        this(DEFAULT_STEP_BUDGET);
+    }
+
+    /**
+     * Constructs a new estimator. The analyses have a budget of steps, not of time, so a board always gets the
+     * same score.
+     * @param stepBudget the most enumeration steps of a component in each analysis
+     */
+    public DifficultyEstimator(long stepBudget) {
+        this.solver = new Solver();
+        this.stepBudget = stepBudget;
+    }
+
+    /**
+     * Measures the difficulty of a board.
+     * @param layout the board (it is not modified)
+     * @param numMines the number of mines of the board
+     * @return the difficulty of the board
+     */
+    public Difficulty estimate(BoardState layout, int numMines) {
+        int boardsize = layout.getBoardsize();
+        int numCells = layout.getNumCells();
+        GameEngine game = GameEngine.headless(layout.fork(), numMines, Integer.MAX_VALUE);
+        BoardView view = new BoardView(boardsize, numMines);
+        byte[] deduced = new byte[numCells];
+
+        int guesses = 0;
+        int deductionDepth = 0;
+        int advancedDeductions = 0;
+        double winProbability = 1;
+
+        // The free first click
+        int first = 0;
+        while(first < numCells && layout.isMine(first / boardsize, first % boardsize)) {
+            first++;
+        }
+        reveal(game, view, first);
+
+        while(!game.getGameOver()) {
+
+            // Reveal every tile that the simple rules prove safe
+            Arrays.fill(deduced, (byte) 0);
+            deductionDepth = Math.max(deductionDepth, Solver.deduce(view, deduced, neighbours));
+            boolean progress = false;
+            for(int cell = 0; cell < numCells; cell++) {
+                if(deduced[cell] == Solver.SAFE) {
+                    progress |= reveal(game, view, cell);
+                }
+            }
+            if(progress) {
+                continue;
+            }
+
+            // Reveal every tile that the full analysis proves safe
+            Analysis analysis = solver.analyzeSteps(view, stepBudget);
+            for(int cell = 0; cell < numCells; cell++) {
+                if(analysis.getProbability(cell) == 0 && reveal(game, view, cell)) {
+                    progress = true;
+                    advancedDeductions++;
+                }
+            }
+            if(progress) {
+                continue;
+            }
+
+            // Guess the safest tile
+            int cell = analysis.getSafestCell();
+            guesses++;
+            winProbability *= 1 - analysis.getProbability(cell);
+            if(layout.isMine(cell / boardsize, cell % boardsize)) {
+                view.set(cell, BoardView.KNOWN_MINE);
+            }
+            else {
+                reveal(game, view, cell);
+            }
+        }
+        return new Difficulty(ThreeBV.compute(layout), guesses, deductionDepth, advancedDeductions, winProbability);
+    }
+
+    /**
+     * Generates and scores the boards of a scenario and stores them in an archive with their difficulty.
+     * @param args the number of boards (default 1000), the level (default 2), the number of mines (default 40),
+     *             the path of the archive and the first seed (default 0)
+     * @throws IOException if the archive can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int level = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int numMines = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        Path path = Paths.get(args.length > 3 ? args[3] : "boards-" + level + "-" + numMines + ".archive");
+        long firstSeed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        GameDescription description = new GameDescription();
+        description.setDifficultyLevel(level);
+        description.setNumMines(numMines);
+        description.setMaxTime(level == 1 ? 120 : 300);
+        description.setHasSupermine(false);
+
+        DifficultyEstimator estimator = new DifficultyEstimator();
+        int[] buckets = new int[4];
+        long start = System.nanoTime();
+        try(BoardArchive archive = new BoardArchive(path, level == 1 ? 9 : 16, true)) {
+            BoardGenerator.GenerateArchive(description, firstSeed, boards, archive, layout -> {
+                int difficulty = estimator.estimate(layout, numMines).pack();
+                buckets[Difficulty.getBucket(difficulty)]++;
+                return difficulty;
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "%d boards (level %d, %d mines) scored and stored in %s in %.1f s (%.2f ms per board)%n",
+                          boards, level, numMines, path, seconds, seconds * 1e3 / boards);
+        for(int bucket = Difficulty.NO_GUESS; bucket <= Difficulty.HARD; bucket++) {
+            System.out.printf(Locale.ROOT, "%-10s %7d %6.1f%%%n", Difficulty.getBucketName(bucket), buckets[bucket],
+                              100.0 * buckets[bucket] / boards);
+        }
+    }
+
+    /**
+     * Reveals a safe tile and updates the view.
+     * @return false if the tile was already revealed
+     */
+    private static boolean reveal(GameEngine game, BoardView view, int cell) {
+        int boardsize = view.getBoardsize();
+        if(game.isRevealed(cell / boardsize, cell % boardsize)) {
+            return false;
+        }
+        game.AddRevealClick(cell / boardsize, cell % boardsize);
+        view.update(game);
+        return true;
+    }
+}
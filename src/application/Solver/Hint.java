@@ -0,0 +1,68 @@
+package application.Solver;
+
+/**
+ * This class holds a hint: the tile to reveal next and how safe it is.
+ */
+public class Hint {
+
+    private final int row;
+    private final int col;
+    private final double probability;
+    private final boolean exact;
+
+    /**
+     * Constructs a new hint.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param probability the probability that the tile contains a mine
+     * @param exact false if the probability is an estimate (the time budget ran out)
+     */
+    public Hint(int row, int col, double probability, boolean exact) {
+        this.row = row;
+        this.col = col;
+        this.probability = probability;
+        this.exact = exact;
+    }
+
+    /**
+     * Returns whether the tile is certainly safe, i.e. the hint is a deduction and not a guess.
+     * @return true if the tile is certainly safe
+     */
+    public boolean getForced() {
+        return probability == 0;
+    }
+
+    // Getters
+
+    /**
+     * Returns the row of the tile.
+     * @return the row of the tile
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the column of the tile.
+     * @return the column of the tile
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Returns the probability that the tile contains a mine.
+     * @return the probability
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Returns whether the probability is exact.
+     * @return false if the probability is an estimate
+     */
+    public boolean getExact() {
+        return exact;
+    }
+}
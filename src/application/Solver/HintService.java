@@ -0,0 +1,63 @@
+package application.Solver;
+
+import application.GameObjects.GameLogic;
+
+/**
+ * This class suggests the safest next move of a game. The Solver's component cache is kept between the calls,
+ * so after a move only the part of the frontier that the move changed is analyzed again.
+ */
+public class HintService {
+
+    public static final long DEFAULT_BUDGET_NANOS = 5_000_000L;
+
+    private final Solver solver;
+
+    /**
+     * Constructs a new hint service.
+     */
+    public HintService() {
+        this.solver = new Solver();
+    }
+
+    /**
+     * Returns the safest tile to reveal, computed within the default time budget (5 ms).
+     * @param gameLogic the game
+     * @return the hint or null if there are no tiles to reveal
+     */
+    public Hint getHint(GameLogic gameLogic) {
+        return getHint(gameLogic, DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Returns the safest tile to reveal. A certainly safe tile is preferred, otherwise the tile with the
+     * lowest probability of a mine is chosen. The tiles flagged by the player are never suggested, since they
+     * can't be revealed until they are unflagged.
+     * @param gameLogic the game
+     * @param budgetNanos the time budget in nanoseconds
+     * @return the hint or null if there are no unflagged tiles to reveal
+     */
+    public Hint getHint(GameLogic gameLogic, long budgetNanos) {
+        Analysis analysis = solver.analyze(BoardView.of(gameLogic), budgetNanos);
+        int boardsize = analysis.getBoardsize();
+        int best = -1;
+        for(int cell = 0; cell < boardsize * boardsize; cell++) {
+            double probability = analysis.getProbability(cell);
+            if(!Double.isNaN(probability) && !gameLogic.isFlagged(cell / boardsize, cell % boardsize)
+               && (best < 0 || probability < analysis.getProbability(best))) {
+                best = cell;
+            }
+        }
+        if(best < 0) {
+            return null;
+        }
+        return new Hint(best / boardsize, best % boardsize, analysis.getProbability(best), analysis.getComplete());
+    }
+
+    /**
+     * Returns the solver of the service.
+     * @return the solver
+     */
+    public Solver getSolver() {
+        return solver;
+    }
+}
@@ -0,0 +1,603 @@
+package application.Solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class computes the probability that each unknown tile of a BoardView contains a mine.
+ *
+ * The analysis has three steps:
+ *      -> Deduction: the simple rules (a number with as many unknown neighbours as missing mines, or with all its
+ *         mines found) are applied until nothing changes. The tiles they find are certain.
+ *      -> Enumeration: the remaining unknown tiles next to a number (the frontier) are split into independent
+ *         components, i.e. groups of tiles that share numbers. All the mine placements of each component that
+ *         satisfy its numbers are enumerated, counting them by their number of mines.
+ *      -> Combination: the components are combined with the tiles away from the frontier, weighting every
+ *         placement by the ways the remaining mines can be placed on these tiles.
+ *
+ * The enumeration of a component only depends on its tiles and numbers, so its result is cached by them.
+ * After a move only the components that the move touched change, so only they are enumerated again.
+ * The enumeration stops when the deadline passes and the unfinished components are approximated. The deadline
+ * depends on the speed and the load of the machine, so the bots, which must play the same moves on the same boards
+ * in every run, give each component a number of enumeration steps instead (see analyzeSteps).
+ */
+public class Solver {
+
+    private static final int CACHE_SIZE = 4096;
+    private static final int DEADLINE_CHECK = 1024;     // Number of enumeration steps between two deadline checks
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final long UNLIMITED_STEPS = Long.MAX_VALUE;
+
+    // Values of the deduced tiles
+    public static final byte SAFE = 1;
+    public static final byte MINE = 2;
+
+    private final Map<ComponentKey, ComponentResult> cache;
+    private long cacheHits;
+    private long cacheMisses;
+
+    /**
+     * Constructs a new solver with an empty cache.
+     */
+    public Solver() {
+        this.cache = new LinkedHashMap<ComponentKey, ComponentResult>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ComponentKey, ComponentResult> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Analyzes a board view within a time budget, e.g. for a hint that must stay responsive.
+     * @param view the board view
+     * @param budgetNanos the time budget of the analysis in nanoseconds
+     * @return the analysis
+     */
+    public Analysis analyze(BoardView view, long budgetNanos) {
+        return analyze(view, System.nanoTime() + budgetNanos, UNLIMITED_STEPS);
+    }
+
+    /**
+     * Analyzes a board view with a budget of enumeration steps for every component instead of a time budget.
+     * The analysis then only depends on the view, not on the machine or its load (or on the cache, since every
+     * component gets the same budget), so it is the same in every run.
+     * @param view the board view
+     * @param stepBudget the most enumeration steps of a component, before it is approximated
+     * @return the analysis
+     */
+    public Analysis analyzeSteps(BoardView view, long stepBudget) {
+        return analyze(view, NO_DEADLINE, stepBudget);
+    }
+
+    /**
+     * Analyzes a board view.
+     * @param view the board view
+     * @param deadline the deadline (System.nanoTime()) of the enumeration, or NO_DEADLINE
+     * @param stepBudget the most enumeration steps of a component
+     * @return the analysis
+     */
+    private Analysis analyze(BoardView view, long deadline, long stepBudget) {
+        int numCells = view.getNumCells();
+        int[] neighbours = new int[8];
+
+        // Deduce the certain tiles
+        byte[] deduced = new byte[numCells];
+        int deductionRounds = deduce(view, deduced, neighbours);
+
+        int knownMines = 0;
+        for(int cell = 0; cell < numCells; cell++) {
+            if(view.get(cell) == BoardView.KNOWN_MINE || deduced[cell] == MINE) {
+                knownMines++;
+            }
+        }
+
+        // Build the constraints of the numbers next to the frontier
+        int[] variable = new int[numCells];
+        Arrays.fill(variable, -1);
+        List<int[]> constraints = new ArrayList<>();    // {cell, remaining mines, tiles...}
+        int numVariables = 0;
+        for(int cell = 0; cell < numCells; cell++) {
+            if(!view.isNumber(cell)) {
+                continue;
+            }
+            int count = view.getNeighbours(cell, neighbours);
+            int remaining = view.get(cell);
+            int unknown = 0;
+            for(int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if(view.get(neighbour) == BoardView.KNOWN_MINE || deduced[neighbour] == MINE) {
+                    remaining--;
+                }
+                else if(view.get(neighbour) == BoardView.UNKNOWN && deduced[neighbour] == 0) {
+                    neighbours[unknown++] = neighbour;
+                }
+            }
+            if(unknown == 0) {
+                continue;
+            }
+            int[] constraint = new int[2 + unknown];
+            constraint[0] = cell;
+            constraint[1] = remaining;
+            for(int i = 0; i < unknown; i++) {
+                constraint[2 + i] = neighbours[i];
+                if(variable[neighbours[i]] < 0) {
+                    variable[neighbours[i]] = numVariables++;
+                }
+            }
+            constraints.add(constraint);
+        }
+
+        // Split the frontier into components (tiles connected by shared numbers)
+        int[] parent = new int[numVariables];
+        for(int v = 0; v < numVariables; v++) {
+            parent[v] = v;
+        }
+        for(int[] constraint : constraints) {
+            int first = find(parent, variable[constraint[2]]);
+            for(int i = 3; i < constraint.length; i++) {
+                int other = find(parent, variable[constraint[i]]);
+                if(other != first) {
+                    parent[other] = first;
+                }
+            }
+        }
+        Map<Integer, List<int[]>> groups = new LinkedHashMap<>();
+        for(int[] constraint : constraints) {
+            groups.computeIfAbsent(find(parent, variable[constraint[2]]), k -> new ArrayList<>()).add(constraint);
+        }
+
+        // Enumerate every component (or take its result from the cache)
+        List<ComponentResult> components = new ArrayList<>();
+        boolean complete = true;
+        for(List<int[]> group : groups.values()) {
+            ComponentKey key = new ComponentKey(group);
+            ComponentResult result = cache.get(key);
+            if(result != null) {
+                cacheHits++;
+            }
+            else {
+                cacheMisses++;
+                result = enumerate(group, deadline, stepBudget);
+                if(result.complete) {
+                    cache.put(key, result);
+                }
+            }
+            complete &= result.complete;
+            components.add(result);
+        }
+
+        // The unknown tiles away from the frontier
+        int others = 0;
+        for(int cell = 0; cell < numCells; cell++) {
+            if(view.get(cell) == BoardView.UNKNOWN && deduced[cell] == 0 && variable[cell] < 0) {
+                others++;
+            }
+        }
+
+        double[] probabilities = new double[numCells];
+        Arrays.fill(probabilities, Double.NaN);
+        for(int cell = 0; cell < numCells; cell++) {
+            if(deduced[cell] != 0) {
+                probabilities[cell] = deduced[cell] == MINE ? 1 : 0;
+            }
+        }
+        combine(components, view.getNumMines() - knownMines, others, probabilities, view, deduced, variable);
+
+        return new Analysis(view.getBoardsize(), probabilities, deductionRounds, components.size(), complete);
+    }
+
+    /**
+     * Applies the simple rules until nothing changes. This is the first step of analyze, and it is
+     * much faster than a full analysis.
+     * @param view the board view
+     * @param deduced the deduced tiles (SAFE or MINE, 0 if unknown), filled by this method
+     * @param neighbours a buffer of (at least) 8 elements for the neighbours of a tile
+     * @return the number of rounds that deduced a tile
+     */
+    public static int deduce(BoardView view, byte[] deduced, int[] neighbours) {
+        int rounds = 0;
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+            for(int cell = 0; cell < view.getNumCells(); cell++) {
+                if(!view.isNumber(cell)) {
+                    continue;
+                }
+                int count = view.getNeighbours(cell, neighbours);
+                int mines = 0;
+                int unknown = 0;
+                for(int i = 0; i < count; i++) {
+                    int neighbour = neighbours[i];
+                    if(view.get(neighbour) == BoardView.KNOWN_MINE || deduced[neighbour] == MINE) {
+                        mines++;
+                    }
+                    else if(view.get(neighbour) == BoardView.UNKNOWN && deduced[neighbour] == 0) {
+                        unknown++;
+                    }
+                }
+                if(unknown == 0) {
+                    continue;
+                }
+
+                // All the mines are found (the rest are safe) or every unknown tile is a mine
+                byte value;
+                if(mines == view.get(cell)) {
+                    value = SAFE;
+                }
+                else if(mines + unknown == view.get(cell)) {
+                    value = MINE;
+                }
+                else {
+                    continue;
+                }
+                for(int i = 0; i < count; i++) {
+                    int neighbour = neighbours[i];
+                    if(view.get(neighbour) == BoardView.UNKNOWN && deduced[neighbour] == 0) {
+                        deduced[neighbour] = value;
+                    }
+                }
+                changed = true;
+            }
+            if(changed) {
+                rounds++;
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * Enumerates the mine placements of a component that satisfy its numbers.
+     * @param group the constraints of the component
+     * @param deadline the deadline (System.nanoTime()) of the enumeration, or NO_DEADLINE
+     * @param stepBudget the most enumeration steps
+     * @return the result of the component
+     */
+    private static ComponentResult enumerate(List<int[]> group, long deadline, long stepBudget) {
+
+        // Order the tiles so that the tiles of a number are assigned together (better pruning)
+        Map<Integer, Integer> index = new LinkedHashMap<>();
+        for(int[] constraint : group) {
+            for(int i = 2; i < constraint.length; i++) {
+                index.putIfAbsent(constraint[i], index.size());
+            }
+        }
+        int numVariables = index.size();
+        int[] cells = new int[numVariables];
+        for(Map.Entry<Integer, Integer> entry : index.entrySet()) {
+            cells[entry.getValue()] = entry.getKey();
+        }
+
+        // For every tile, the constraints it appears in
+        int numConstraints = group.size();
+        int[] remaining = new int[numConstraints];
+        int[] unassigned = new int[numConstraints];
+        int[][] constraintsOf = new int[numVariables][];
+        int[] numConstraintsOf = new int[numVariables];
+        for(int[] constraint : group) {
+            for(int i = 2; i < constraint.length; i++) {
+                numConstraintsOf[index.get(constraint[i])]++;
+            }
+        }
+        for(int v = 0; v < numVariables; v++) {
+            constraintsOf[v] = new int[numConstraintsOf[v]];
+            numConstraintsOf[v] = 0;
+        }
+        for(int c = 0; c < numConstraints; c++) {
+            int[] constraint = group.get(c);
+            remaining[c] = constraint[1];
+            unassigned[c] = constraint.length - 2;
+            for(int i = 2; i < constraint.length; i++) {
+                int v = index.get(constraint[i]);
+                constraintsOf[v][numConstraintsOf[v]++] = c;
+            }
+        }
+
+        ComponentResult result = new ComponentResult(cells);
+        Enumeration enumeration = new Enumeration(result, constraintsOf, remaining, unassigned, deadline, stepBudget);
+        result.complete = enumeration.search(0, 0);
+        if(!result.complete) {
+            approximate(result, group, index);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the result of an unfinished enumeration with an estimate: the probability of a tile is the
+     * average density of mines of its numbers and the component has the (rounded) expected number of mines.
+     * @param result the result of the component
+     * @param group the constraints of the component
+     * @param index the index of every tile of the component
+     */
+    private static void approximate(ComponentResult result, List<int[]> group, Map<Integer, Integer> index) {
+        int numVariables = result.cells.length;
+        double[] sum = new double[numVariables];
+        int[] count = new int[numVariables];
+        for(int[] constraint : group) {
+            double density = Math.max(0, Math.min(1, (double) constraint[1] / (constraint.length - 2)));
+            for(int i = 2; i < constraint.length; i++) {
+                int v = index.get(constraint[i]);
+                sum[v] += density;
+                count[v]++;
+            }
+        }
+        double expected = 0;
+        for(int v = 0; v < numVariables; v++) {
+            sum[v] /= count[v];
+            expected += sum[v];
+        }
+        int mines = (int) Math.round(expected);
+        Arrays.fill(result.ways, 0);
+        result.ways[mines] = 1;
+        for(int v = 0; v < numVariables; v++) {
+            Arrays.fill(result.cellWays[v], 0);
+            result.cellWays[v][mines] = sum[v];
+        }
+    }
+
+    /**
+     * Combines the components with the tiles away from the frontier and stores the probabilities of the tiles.
+     * @param components the results of the components
+     * @param remainingMines the mines that are not known or deduced
+     * @param others the number of unknown tiles away from the frontier
+     * @param probabilities the probabilities of the tiles, filled by this method
+     * @param view the board view
+     * @param deduced the deduced tiles
+     * @param variable the tiles of the frontier (variable[cell] >= 0)
+     */
+    private static void combine(List<ComponentResult> components, int remainingMines, int others,
+                                double[] probabilities, BoardView view, byte[] deduced, int[] variable) {
+        int numComponents = components.size();
+
+        // prefix[c] (suffix[c]) counts the placements of the components before c (from c on) by number of mines
+        double[][] prefix = new double[numComponents + 1][];
+        double[][] suffix = new double[numComponents + 1][];
+        prefix[0] = new double[] {1};
+        suffix[numComponents] = new double[] {1};
+        for(int c = 0; c < numComponents; c++) {
+            prefix[c + 1] = convolve(prefix[c], components.get(c).ways);
+        }
+        for(int c = numComponents - 1; c >= 0; c--) {
+            suffix[c] = convolve(components.get(c).ways, suffix[c + 1]);
+        }
+        double[] total = prefix[numComponents];
+
+        // weight[s]: the ways to place the other remainingMines - s mines away from the frontier (scaled)
+        double[] weight = new double[total.length];
+        double maxLog = Double.NEGATIVE_INFINITY;
+        for(int s = 0; s < total.length; s++) {
+            int rest = remainingMines - s;
+            if(rest >= 0 && rest <= others) {
+                maxLog = Math.max(maxLog, logBinomial(others, rest));
+            }
+        }
+        double sum = 0;
+        double otherMines = 0;
+        for(int s = 0; s < total.length; s++) {
+            int rest = remainingMines - s;
+            if(rest >= 0 && rest <= others) {
+                weight[s] = Math.exp(logBinomial(others, rest) - maxLog);
+                sum += total[s] * weight[s];
+                otherMines += total[s] * weight[s] * rest;
+            }
+        }
+
+        // Inconsistent view (e.g. the mines don't fit): fall back to a uniform estimate
+        if(sum <= 0 || Double.isNaN(sum)) {
+            int unknown = others;
+            for(ComponentResult component : components) {
+                unknown += component.cells.length;
+            }
+            double uniform = unknown == 0 ? 0 : Math.max(0, Math.min(1, (double) remainingMines / unknown));
+            for(int cell = 0; cell < probabilities.length; cell++) {
+                if(view.get(cell) == BoardView.UNKNOWN && deduced[cell] == 0) {
+                    probabilities[cell] = uniform;
+                }
+            }
+            return;
+        }
+
+        double otherProbability = others == 0 ? 0 : otherMines / sum / others;
+        for(int cell = 0; cell < probabilities.length; cell++) {
+            if(view.get(cell) == BoardView.UNKNOWN && deduced[cell] == 0 && variable[cell] < 0) {
+                probabilities[cell] = otherProbability;
+            }
+        }
+
+        for(int c = 0; c < numComponents; c++) {
+            ComponentResult component = components.get(c);
+            double[] rest = convolve(prefix[c], suffix[c + 1]);
+            for(int v = 0; v < component.cells.length; v++) {
+                double mines = 0;
+                for(int k = 0; k < component.ways.length; k++) {
+                    if(component.cellWays[v][k] == 0) {
+                        continue;
+                    }
+                    for(int t = 0; t < rest.length; t++) {
+                        mines += component.cellWays[v][k] * rest[t] * weight[k + t];
+                    }
+                }
+                probabilities[component.cells[v]] = Math.min(1, mines / sum);
+            }
+        }
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for(int i = 0; i < a.length; i++) {
+            if(a[i] == 0) {
+                continue;
+            }
+            for(int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    private static double logBinomial(int n, int k) {
+        double result = 0;
+        for(int i = 1; i <= k; i++) {
+            result += Math.log(n - k + i) - Math.log(i);
+        }
+        return result;
+    }
+
+    private static int find(int[] parent, int v) {
+        while(parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Removes every cached component.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    // Getters
+
+    /**
+     * Returns the number of components that were taken from the cache.
+     * @return the number of cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the number of components that were enumerated.
+     * @return the number of cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * The placements of a component, counted by their number of mines:
+     *      ways[k] -> the number of placements with k mines
+     *      cellWays[v][k] -> the number of placements with k mines where tile cells[v] is a mine
+     */
+    private static class ComponentResult {
+        final int[] cells;
+        final double[] ways;
+        final double[][] cellWays;
+        boolean complete;
+
+        ComponentResult(int[] cells) {
+            this.cells = cells;
+            this.ways = new double[cells.length + 1];
+            this.cellWays = new double[cells.length][cells.length + 1];
+        }
+    }
+
+    /**
+     * The backtracking search of a component. Tiles are assigned in order and a branch is cut as soon as
+     * a number gets more mines than it shows or can no longer get enough.
+     */
+    private static class Enumeration {
+        private final ComponentResult result;
+        private final int[][] constraintsOf;
+        private final int[] remaining;
+        private final int[] unassigned;
+        private final boolean[] mine;
+        private final long deadline;
+        private final long stepBudget;
+        private long steps;
+
+        Enumeration(ComponentResult result, int[][] constraintsOf, int[] remaining, int[] unassigned, long deadline,
+                    long stepBudget) {
+            this.result = result;
+            this.constraintsOf = constraintsOf;
+            this.remaining = remaining;
+            this.unassigned = unassigned;
+            this.mine = new boolean[result.cells.length];
+            this.deadline = deadline;
+            this.stepBudget = stepBudget;
+        }
+
+        /**
+         * Assigns tile v and the following ones.
+         * @param v the tile to assign
+         * @param mines the mines placed so far
+         * @return false if the deadline passed or the steps ran out
+         */
+        boolean search(int v, int mines) {
+            if(++steps > stepBudget) {
+                return false;
+            }
+            if(steps % DEADLINE_CHECK == 0 && deadline != NO_DEADLINE && System.nanoTime() > deadline) {
+                return false;
+            }
+            if(v == mine.length) {
+                result.ways[mines]++;
+                for(int i = 0; i < mine.length; i++) {
+                    if(mine[i]) {
+                        result.cellWays[i][mines]++;
+                    }
+                }
+                return true;
+            }
+            for(int value = 0; value <= 1; value++) {
+                boolean valid = true;
+                for(int c : constraintsOf[v]) {
+                    remaining[c] -= value;
+                    unassigned[c]--;
+                    if(remaining[c] < 0 || remaining[c] > unassigned[c]) {
+                        valid = false;
+                    }
+                }
+                mine[v] = value == 1;
+                boolean finished = !valid || search(v + 1, mines + value);
+                for(int c : constraintsOf[v]) {
+                    remaining[c] += value;
+                    unassigned[c]++;
+                }
+                mine[v] = false;
+                if(!finished) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The key of a component in the cache: its numbers, their remaining mines and their unknown tiles.
+     */
+    private static class ComponentKey {
+        private final int[] data;
+        private final int hash;
+
+        ComponentKey(List<int[]> group) {
+            int length = 0;
+            for(int[] constraint : group) {
+                length += constraint.length + 1;
+            }
+            this.data = new int[length];
+            int position = 0;
+            for(int[] constraint : group) {
+                data[position++] = constraint.length;
+                System.arraycopy(constraint, 0, data, position, constraint.length);
+                position += constraint.length;
+            }
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ComponentKey && Arrays.equals(data, ((ComponentKey) other).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package application.Solver;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class models the supermine rule of GameLogic: if the supermine is marked within the first RULE_ATTEMPTS
+ * attempts, its row and column are revealed. It computes, from an Analysis of the board:
+ *      -> the probability that each unknown tile is the supermine. The supermine is placed on a random tile and the
+ *         other mines on random free tiles, so it is a random one of the mines: the probability is the probability
+ *         of a mine divided by the number of mines. The tiles that were marked without revealing anything (see
+ *         BoardView.isProbed) are not the supermine, so the probabilities of the others are scaled up to a total of 1.
+ *         (The probabilities of a mine are not updated for them, which is a small approximation.)
+ *      -> the expected information gain of marking each tile while the rule can be used: the entropy (in bits) of
+ *         the unknown tiles of its row and column, which become known if it is the supermine, times the probability
+ *         that it is. The tiles are taken as independent and a mark that reveals nothing is taken to teach nothing.
+ * Marking doesn't count as an attempt, so a player can mark (and unmark) tiles until the rule reveals the supermine.
+ */
+public class SupermineAnalysis {
+
+    public static final int RULE_ATTEMPTS = 4;
+
+    private final int boardsize;
+    private final double[] probabilities;
+    private final double[] informationGains;
+    private final boolean ruleOpen;
+
+    private SupermineAnalysis(int boardsize, double[] probabilities, double[] informationGains, boolean ruleOpen) {
+        this.boardsize = boardsize;
+        this.probabilities = probabilities;
+        this.informationGains = informationGains;
+        this.ruleOpen = ruleOpen;
+    }
+
+    /**
+     * Analyzes the supermine of a board view.
+     * @param view the board view
+     * @param analysis the analysis of the view (see Solver.analyze)
+     * @return the supermine analysis
+     */
+    public static SupermineAnalysis of(BoardView view, Analysis analysis) {
+        int boardsize = view.getBoardsize();
+        int numCells = view.getNumCells();
+        double[] probabilities = new double[numCells];
+        double[] informationGains = new double[numCells];
+
+        // The supermine is one of the unknown tiles that were not probed, in proportion to their probability of a mine
+        double total = 0;
+        for(int cell = 0; cell < numCells; cell++) {
+            if(view.get(cell) == BoardView.UNKNOWN && !view.isProbed(cell)) {
+                total += analysis.getProbability(cell);
+            }
+        }
+        for(int cell = 0; cell < numCells; cell++) {
+            if(cell == view.getSupermine()) {
+                probabilities[cell] = 1;
+            }
+            else if(view.get(cell) != BoardView.UNKNOWN) {
+                probabilities[cell] = Double.NaN;
+            }
+            else if(view.getHasSupermine() && view.getSupermine() < 0 && !view.isProbed(cell) && total > 0) {
+                probabilities[cell] = analysis.getProbability(cell) / total;
+            }
+        }
+
+        // The entropy of the unknown tiles of every row and column
+        boolean ruleOpen = view.getSupermineRuleOpen();
+        if(ruleOpen) {
+            double[] rows = new double[boardsize];
+            double[] cols = new double[boardsize];
+            double[] entropies = new double[numCells];
+            for(int cell = 0; cell < numCells; cell++) {
+                if(view.get(cell) == BoardView.UNKNOWN) {
+                    entropies[cell] = entropy(analysis.getProbability(cell));
+                    rows[cell / boardsize] += entropies[cell];
+                    cols[cell % boardsize] += entropies[cell];
+                }
+            }
+            for(int cell = 0; cell < numCells; cell++) {
+                if(probabilities[cell] > 0) {
+                    double line = rows[cell / boardsize] + cols[cell % boardsize] - entropies[cell];
+                    informationGains[cell] = probabilities[cell] * line;
+                }
+            }
+        }
+        return new SupermineAnalysis(boardsize, probabilities, informationGains, ruleOpen);
+    }
+
+    private static double entropy(double p) {
+        if(!(p > 0 && p < 1)) {
+            return 0;
+        }
+        return -(p * Math.log(p) + (1 - p) * Math.log(1 - p)) / Math.log(2);
+    }
+
+    /**
+     * Returns the tile with the largest expected information gain, i.e. the best tile to mark while the rule
+     * can be used.
+     * @return the index of the tile or -1 if the rule can't be used or no tile would gain anything
+     */
+    public int getBestProbe() {
+        int best = -1;
+        for(int cell = 0; cell < informationGains.length; cell++) {
+            if(informationGains[cell] > 0 && (best < 0 || informationGains[cell] > informationGains[best])) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the tiles that could be the supermine, from the best one to mark to the worst (see getBestProbe).
+     * Marking a tile that is not the supermine scales the probabilities of the other tiles by the same factor, so
+     * this order stays the same until the next attempt.
+     * @return the indices of the tiles (empty if the rule can't be used)
+     */
+    public int[] getProbes() {
+        return IntStream.range(0, informationGains.length).filter(cell -> informationGains[cell] > 0).boxed()
+                        .sorted((a, b) -> Double.compare(informationGains[b], informationGains[a]))
+                        .mapToInt(Integer::intValue).toArray();
+    }
+
+    // Getters
+
+    /**
+     * Returns the probability that a tile is the supermine.
+     * @param cell the index of the tile
+     * @return the probability or NaN if the tile is revealed (and is not the supermine)
+     */
+    public double getProbability(int cell) {
+        return probabilities[cell];
+    }
+
+    /**
+     * Returns the probability that a tile is the supermine.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the probability or NaN if the tile is revealed (and is not the supermine)
+     */
+    public double getProbability(int row, int col) {
+        return probabilities[row * boardsize + col];
+    }
+
+    /**
+     * Returns the expected information gain of marking a tile now.
+     * @param cell the index of the tile
+     * @return the gain in bits (0 if the rule can't be used or the tile can't be the supermine)
+     */
+    public double getInformationGain(int cell) {
+        return informationGains[cell];
+    }
+
+    /**
+     * Returns whether the supermine rule could still be used when the view was analyzed.
+     * @return true if the rule can be used
+     */
+    public boolean getRuleOpen() {
+        return ruleOpen;
+    }
+}
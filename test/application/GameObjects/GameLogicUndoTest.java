@@ -0,0 +1,135 @@
+package application.GameObjects;
+
+import java.io.IOException;
+
+/**
+ * This class tests that a game that is over can't be undone or redone: its round has already been stored, so undoing
+ * the last click would let the player continue and store the round again. It also tests that only practice games can
+ * be undone and that undoing a click doesn't give its attempt back.
+ * The project has no test framework, so the tests run from main and throw an AssertionError when they fail.
+ *
+ * Usage: java application.GameObjects.GameLogicUndoTest
+ */
+public class GameLogicUndoTest {
+
+    private static final int BOARDSIZE = 9;
+    private static final int NUM_MINES = 10;
+
+    /**
+     * Runs the tests.
+     * @param args not used
+     * @throws IOException if a snapshot can't be decoded
+     */
+    public static void main(String[] args) throws IOException {
+        undoAfterLoss();
+        undoAfterWin();
+        undoKeepsAttempts();
+        undoOnlyInPractice();
+        System.out.println("GameLogicUndoTest: all tests passed");
+    }
+
+    /**
+     * Loses a game after a safe click: the losing click can't be undone and the safe click can't be either.
+     */
+    private static void undoAfterLoss() {
+        GameLogic game = newGame();
+        int safe = findTile(game, false);
+        int mine = findTile(game, true);
+        game.AddRevealClick(safe / BOARDSIZE, safe % BOARDSIZE);
+        check(!game.getGameOver(), "the safe click doesn't end the game");
+        game.AddRevealClick(mine / BOARDSIZE, mine % BOARDSIZE);
+        check(game.getGameLost(), "the click on a mine loses the game");
+
+        int revealed = game.getNumRevealed();
+        check(!game.getCanUndo(), "a lost game can't be undone");
+        check(!game.undo(), "undo after a loss does nothing");
+        check(!game.redo(), "redo after a loss does nothing");
+        check(game.getGameOver() && game.getGameLost(), "the game stays lost");
+        check(game.isRevealed(mine / BOARDSIZE, mine % BOARDSIZE), "the mine stays revealed");
+        check(game.getNumRevealed() == revealed, "the revealed tiles don't change");
+    }
+
+    /**
+     * Wins a game by revealing every safe tile: the winning click can't be undone.
+     */
+    private static void undoAfterWin() {
+        GameLogic game = newGame();
+        for(int cell = 0; cell < BOARDSIZE * BOARDSIZE && !game.getGameOver(); cell++) {
+            int row = cell / BOARDSIZE;
+            int col = cell % BOARDSIZE;
+            if(!game.isMine(row, col) && !game.isRevealed(row, col)) {
+                game.AddRevealClick(row, col);
+            }
+        }
+        check(game.getGameWon(), "revealing every safe tile wins the game");
+        check(!game.getCanUndo(), "a won game can't be undone");
+        check(!game.undo(), "undo after a win does nothing");
+        check(!game.redo(), "redo after a win does nothing");
+        check(game.getGameOver() && game.getGameWon(), "the game stays won");
+        check(game.getSafeRemaining() == 0, "every safe tile stays revealed");
+    }
+
+    /**
+     * Undoes and redoes a click: the attempt of the click still counts, so the round can't gain efficiency or
+     * use the supermine rule again by undoing.
+     */
+    private static void undoKeepsAttempts() {
+        GameLogic game = newGame();
+        int safe = findTile(game, false);
+        game.AddRevealClick(safe / BOARDSIZE, safe % BOARDSIZE);
+        check(game.getAttempts() == 1, "the click is an attempt");
+        check(game.undo(), "the click can be undone");
+        check(!game.isRevealed(safe / BOARDSIZE, safe % BOARDSIZE), "undo hides the tile again");
+        check(game.getAttempts() == 1, "undo keeps the attempt");
+        check(game.redo(), "the click can be redone");
+        check(game.getAttempts() == 1, "redo doesn't add an attempt");
+        check(game.undo(), "the click can be undone again");
+        game.AddRevealClick(safe / BOARDSIZE, safe % BOARDSIZE);
+        check(game.getAttempts() == 2, "the click played again is a new attempt");
+    }
+
+    /**
+     * Only a practice game (with undo enabled) can be undone, and a saved practice game stays one.
+     */
+    private static void undoOnlyInPractice() throws IOException {
+        GameLogic game = newGame();
+        game.setUndoEnabled(false);
+        int safe = findTile(game, false);
+        game.AddRevealClick(safe / BOARDSIZE, safe % BOARDSIZE);
+        check(!game.getCanUndo() && !game.undo(), "a game that is not a practice game can't be undone");
+
+        GameLogic practice = newGame();
+        practice.AddRevealClick(safe / BOARDSIZE, safe % BOARDSIZE);
+        GameSnapshot saved = GameSnapshot.fromBytes(practice.saveSnapshot().toBytes());
+        check(saved.getPractice(), "the saved game is a practice game");
+        game.restoreSnapshot(saved);
+        check(game.getUndoEnabled(), "the restored game is a practice game");
+        game.restoreSnapshot(GameSnapshot.fromBytes(newGame().saveSnapshot().toBytes()));
+        check(game.getUndoEnabled(), "a restored new practice game is a practice game");
+        game.setUndoEnabled(false);
+        game.restoreSnapshot(GameSnapshot.fromBytes(game.saveSnapshot().toBytes()));
+        check(!game.getUndoEnabled(), "a restored game that is not a practice game stays one");
+    }
+
+    private static GameLogic newGame() {
+        GameLogic game = new GameLogic(BoardGenerator.ofSize(BOARDSIZE, NUM_MINES, true, 42).GenerateLayout(), NUM_MINES, 100);
+        game.setUndoEnabled(true);
+        return game;
+    }
+
+    private static int findTile(GameLogic game, boolean mine) {
+        for(int cell = 0; cell < BOARDSIZE * BOARDSIZE; cell++) {
+            if(game.isMine(cell / BOARDSIZE, cell % BOARDSIZE) == mine
+               && (mine || game.getNumAdjacentMines(cell / BOARDSIZE, cell % BOARDSIZE) > 0)) {
+                return cell;
+            }
+        }
+        throw new AssertionError("No tile found");
+    }
+
+    private static void check(boolean condition, String message) {
+        if(!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}